@@ -1,6 +1,7 @@
 package history;
 
 import task.Task;
+import util.IntHashSet;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -10,6 +11,7 @@ import java.util.List;
 
 public class HistoryManagerImpl implements HistoryManager {
     private final List<Task> history = new ArrayList<>();
+    private final IntHashSet historyIds = new IntHashSet(); // Быстрая проверка, есть ли задача в истории
 
     @Override
     public void loadFromFile(String filename) throws IOException {
@@ -21,14 +23,16 @@ public class HistoryManagerImpl implements HistoryManager {
 
     @Override
     public void add(Task task) {
-        if (history.stream().noneMatch(existingTask -> existingTask.getId() == task.getId())) {
+        if (historyIds.add(task.getId())) {
             history.add(task);
         }
     }
 
     @Override
     public void remove(int id) {
-        history.removeIf(task -> task.getId() == id);
+        if (historyIds.remove(id)) {
+            history.removeIf(task -> task.getId() == id);
+        }
     }
 
     @Override
@@ -1,15 +1,14 @@
 package history;
 
 import task.Task;
+import util.IntObjectHashMap;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public class InMemoryHistoryManager implements HistoryManager {
-    private final Map<Integer, Node> taskNodes = new HashMap<>();
+    private final IntObjectHashMap<Node> taskNodes = new IntObjectHashMap<>();
     private Node head;
     private Node tail;
 
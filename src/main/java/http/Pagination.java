@@ -0,0 +1,37 @@
+package http;
+
+// Параметры постраничного чтения ?limit=&after=. Курсор следующей страницы
+// возвращается в заголовке, тело ответа остаётся массивом элементов
+public final class Pagination {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    private Pagination() {
+    }
+
+    public static boolean isRequested(QueryParams params) {
+        return params.has("limit") || params.has("after");
+    }
+
+    // Размер страницы; значения больше MAX_LIMIT урезаются
+    public static int limit(QueryParams params) {
+        String limit = params.get("limit");
+        if (limit == null || limit.isEmpty()) {
+            return DEFAULT_LIMIT;
+        }
+        try {
+            int value = Integer.parseInt(limit);
+            if (value <= 0) {
+                throw new IllegalArgumentException("Limit must be positive: " + limit);
+            }
+            return Math.min(value, MAX_LIMIT);
+        } catch (NumberFormatException exception) {
+            throw new IllegalArgumentException("Invalid limit: " + limit);
+        }
+    }
+
+    public static String after(QueryParams params) {
+        return params.get("after");
+    }
+}
@@ -0,0 +1,40 @@
+package http;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+// Разбор строки запроса вида "a=1&b=2"; при повторе параметра остаётся последнее значение
+public final class QueryParams {
+    private final Map<String, String> values;
+
+    private QueryParams(Map<String, String> values) {
+        this.values = values;
+    }
+
+    public static QueryParams parse(String rawQuery) {
+        Map<String, String> values = new HashMap<>();
+        if (rawQuery != null && !rawQuery.isEmpty()) {
+            for (String pair : rawQuery.split("&")) {
+                if (pair.isEmpty()) {
+                    continue;
+                }
+                int separator = pair.indexOf('=');
+                String name = separator >= 0 ? pair.substring(0, separator) : pair;
+                String value = separator >= 0 ? pair.substring(separator + 1) : "";
+                values.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                        URLDecoder.decode(value, StandardCharsets.UTF_8));
+            }
+        }
+        return new QueryParams(values);
+    }
+
+    public boolean has(String name) {
+        return values.containsKey(name);
+    }
+
+    public String get(String name) {
+        return values.get(name);
+    }
+}
@@ -0,0 +1,319 @@
+package manager;
+
+import task.Task;
+import task.TaskStatus;
+import util.EpochNanos;
+import util.IntIntHashMap;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntFunction;
+import java.util.function.LongBinaryOperator;
+
+// Расстановка задач без времени начала. Задачи ставятся по одной в самый ранний свободный промежуток:
+// заблокированная — не раньше окончания своих блокирующих, а из доступных первой идёт та, у которой
+// ближе крайний срок. Срок блокирующей подтягивается к сроку зависимой минус длительность зависимой.
+// Дороже всего поиск свободного места; для больших пакетов он делается заранее и параллельно
+// в пуле fork-join: каждая задача ищет место от своей нижней границы старта без учёта остального пакета.
+// Последовательный проход проверяет найденное только против уже поставленных задач пакета
+final class AutoScheduler {
+    static final int PARALLEL_THRESHOLD = 1024; // Меньшие пакеты считаются в вызывающем потоке
+    private static final int LEAF_SIZE = 256;
+    private static final int[] NO_BLOCKERS = new int[0];
+
+    private final int[] ids;
+    private final long notBefore;
+    private final Map<Integer, LocalDateTime> deadlines;
+    private final IntFunction<Task> lookup;
+    private final IntFunction<int[]> blockers;
+    private final LongBinaryOperator freeStart; // (нижняя граница, длина) → самое раннее свободное начало
+    private final IntIntHashMap positions = new IntIntHashMap(); // id → позиция в пакете
+
+    private final long[] lengths;
+    private final long[] releases; // Нижняя граница старта по notBefore и блокирующим вне пакета
+    private final long[] deadlineNanos; // Long.MAX_VALUE — срока нет
+    private final long[] probes; // Место в индексе от releases, без учёта пакета
+    private final int[][] batchBlockers; // Позиции блокирующих внутри пакета
+    private final String[] reasons;
+    private final long[] starts;
+    // Длительность → [from, to): окна такой длины, начинающиеся в этом промежутке, уже заняты.
+    // Занятость при расстановке только растёт, поэтому однажды пройденный промежуток повторно не просматривается
+    private final Map<Long, long[]> searched = new HashMap<>();
+
+    private AutoScheduler(int[] ids, LocalDateTime notBefore, Map<Integer, LocalDateTime> deadlines,
+                          IntFunction<Task> lookup, IntFunction<int[]> blockers, LongBinaryOperator freeStart) {
+        this.ids = ids;
+        this.notBefore = EpochNanos.of(notBefore);
+        this.deadlines = deadlines;
+        this.lookup = lookup;
+        this.blockers = blockers;
+        this.freeStart = freeStart;
+        int n = ids.length;
+        this.lengths = new long[n];
+        this.releases = new long[n];
+        this.deadlineNanos = new long[n];
+        this.probes = new long[n];
+        this.batchBlockers = new int[n][];
+        this.reasons = new String[n];
+        this.starts = new long[n];
+    }
+
+    // lookup возвращает задачу или подзадачу по id (null, если такой нет), blockers — id её блокирующих
+    static List<SchedulePlan.Item> plan(List<Integer> ids, LocalDateTime notBefore,
+                                        Map<Integer, LocalDateTime> deadlines, IntFunction<Task> lookup,
+                                        IntFunction<int[]> blockers, LongBinaryOperator freeStart, ForkJoinPool pool) {
+        if (ids == null || notBefore == null) {
+            throw new IllegalArgumentException("Task ids and start bound cannot be null");
+        }
+        int[] batch = new int[ids.size()];
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = ids.get(i);
+        }
+        AutoScheduler scheduler = new AutoScheduler(batch, notBefore,
+                deadlines != null ? deadlines : Map.of(), lookup, blockers, freeStart);
+        for (int i = 0; i < batch.length; i++) {
+            if (scheduler.positions.containsKey(batch[i])) {
+                scheduler.reasons[i] = "Duplicate task id " + batch[i];
+            } else {
+                scheduler.positions.put(batch[i], i);
+            }
+        }
+        if (batch.length >= PARALLEL_THRESHOLD) {
+            pool.invoke(scheduler.new Prepare(0, batch.length));
+        } else {
+            scheduler.prepare(0, batch.length);
+        }
+        scheduler.place();
+        return scheduler.items();
+    }
+
+    // Проверка задачи, её нижняя граница старта и пробное место в индексе. Пишет только в свою позицию
+    // массивов, а индексы, граф и карты менеджера лишь читает, поэтому позиции считаются параллельно
+    private void prepare(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (reasons[i] != null) {
+                batchBlockers[i] = NO_BLOCKERS;
+                continue;
+            }
+            reasons[i] = check(i);
+            if (reasons[i] == null) {
+                probes[i] = freeStart.applyAsLong(releases[i], lengths[i]);
+            }
+        }
+    }
+
+    private String check(int i) {
+        batchBlockers[i] = NO_BLOCKERS;
+        Task task = lookup.apply(ids[i]);
+        if (task == null) {
+            return "Task or subtask with id " + ids[i] + " not found";
+        }
+        if (task.getStartTime() != null) {
+            return "Task already has a start time";
+        }
+        if (task.getDuration() == null || task.getDuration().isZero() || task.getDuration().isNegative()) {
+            return "Duration must be positive";
+        }
+        lengths[i] = EpochNanos.length(task.getDuration());
+        LocalDateTime deadline = deadlines.get(ids[i]);
+        deadlineNanos[i] = deadline != null ? EpochNanos.clamp(deadline) : Long.MAX_VALUE;
+
+        long release = notBefore;
+        int[] blockerIds = blockers.apply(ids[i]);
+        int[] inBatch = new int[blockerIds.length];
+        int count = 0;
+        for (int blockerId : blockerIds) {
+            Task blocker = lookup.apply(blockerId);
+            if (blocker.getStatus() == TaskStatus.DONE) {
+                continue;
+            }
+            int position = positions.get(blockerId, -1);
+            if (position >= 0) {
+                inBatch[count++] = position;
+            } else if (blocker.getStartTime() == null) {
+                return "Blocked by unscheduled task " + blockerId;
+            } else {
+                long end = blocker.getEndNanos();
+                release = Math.max(release, end != Task.NO_END ? end : blocker.getStartNanos());
+            }
+        }
+        releases[i] = release;
+        batchBlockers[i] = count > 0 ? Arrays.copyOf(inBatch, count) : NO_BLOCKERS;
+        return null;
+    }
+
+    // Последовательная расстановка в топологическом порядке пакета, ближайший срок — первым
+    private void place() {
+        int n = ids.length;
+        int[] pending = new int[n];
+        int[][] dependents = dependents(pending);
+        long[] effectiveDeadlines = effectiveDeadlines(dependents, pending);
+
+        TreeMap<Long, Long> planned = new TreeMap<>(); // Начало → окончание блоков поставленных задач пакета
+        PriorityQueue<Integer> available = new PriorityQueue<>((a, b) -> {
+            int byDeadline = Long.compare(effectiveDeadlines[a], effectiveDeadlines[b]);
+            return byDeadline != 0 ? byDeadline : Integer.compare(a, b);
+        });
+        for (int i = 0; i < n; i++) {
+            if (pending[i] == 0) {
+                available.add(i);
+            }
+        }
+        while (!available.isEmpty()) {
+            int i = available.poll();
+            if (reasons[i] == null) {
+                schedule(i, planned);
+            }
+            for (int dependent : dependents[i]) {
+                if (reasons[i] != null && reasons[dependent] == null) {
+                    reasons[dependent] = "Blocked by unscheduled task " + ids[i];
+                }
+                if (--pending[dependent] == 0) {
+                    available.add(dependent);
+                }
+            }
+        }
+    }
+
+    private void schedule(int i, TreeMap<Long, Long> planned) {
+        long release = releases[i];
+        for (int blocker : batchBlockers[i]) {
+            release = Math.max(release, starts[blocker] + lengths[blocker]);
+        }
+        long length = lengths[i];
+        long[] known = searched.get(length);
+        boolean extendsKnown = known != null && known[0] <= release && release <= known[1];
+        long candidate = extendsKnown ? known[1] : release;
+        candidate = probes[i] >= candidate ? probes[i] : freeStart.applyAsLong(candidate, length);
+        while (true) {
+            // Блоки не пересекаются, поэтому мешать может только последний начавшийся до конца кандидата
+            Map.Entry<Long, Long> previous = planned.lowerEntry(EpochNanos.plus(candidate, length));
+            if (previous == null || previous.getValue() <= candidate) {
+                break;
+            }
+            candidate = freeStart.applyAsLong(previous.getValue(), length);
+        }
+        if (extendsKnown) {
+            known[1] = candidate;
+        } else {
+            searched.put(length, new long[]{release, candidate});
+        }
+        long end = EpochNanos.plus(candidate, length);
+        if (end == Long.MAX_VALUE) {
+            reasons[i] = "No free time within supported range";
+        } else if (end > deadlineNanos[i]) {
+            reasons[i] = "Deadline cannot be met";
+        } else {
+            starts[i] = candidate;
+            reserve(planned, candidate, end);
+        }
+    }
+
+    // Соприкасающиеся интервалы сливаются в один блок, чтобы плотно уложенный пакет
+    // пропускался при конфликте за один шаг, а не по одной задаче
+    private static void reserve(TreeMap<Long, Long> planned, long start, long end) {
+        Map.Entry<Long, Long> previous = planned.floorEntry(start);
+        if (previous != null && previous.getValue() == start) {
+            start = previous.getKey();
+        }
+        Long next = planned.remove(end);
+        if (next != null) {
+            end = next;
+        }
+        planned.put(start, end);
+    }
+
+    // Зависимые внутри пакета; pending получает число блокирующих каждой позиции
+    private int[][] dependents(int[] pending) {
+        int n = ids.length;
+        int[] counts = new int[n];
+        for (int i = 0; i < n; i++) {
+            pending[i] = batchBlockers[i].length;
+            for (int blocker : batchBlockers[i]) {
+                counts[blocker]++;
+            }
+        }
+        int[][] dependents = new int[n][];
+        for (int i = 0; i < n; i++) {
+            dependents[i] = new int[counts[i]];
+        }
+        for (int i = 0; i < n; i++) {
+            for (int blocker : batchBlockers[i]) {
+                dependents[blocker][--counts[blocker]] = i;
+            }
+        }
+        return dependents;
+    }
+
+    // Срок с учётом зависимых: обход в обратном топологическом порядке пакета
+    private long[] effectiveDeadlines(int[][] dependents, int[] pending) {
+        int n = ids.length;
+        int[] order = new int[n];
+        int[] remaining = pending.clone();
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            if (remaining[i] == 0) {
+                order[size++] = i;
+            }
+        }
+        for (int head = 0; head < size; head++) {
+            for (int dependent : dependents[order[head]]) {
+                if (--remaining[dependent] == 0) {
+                    order[size++] = dependent;
+                }
+            }
+        }
+        long[] effective = deadlineNanos.clone();
+        for (int k = size - 1; k >= 0; k--) {
+            int i = order[k];
+            for (int dependent : dependents[i]) {
+                effective[i] = Math.min(effective[i], EpochNanos.plus(effective[dependent], -lengths[dependent]));
+            }
+        }
+        return effective;
+    }
+
+    private List<SchedulePlan.Item> items() {
+        List<SchedulePlan.Item> items = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            if (reasons[i] != null) {
+                items.add(new SchedulePlan.Item(ids[i], SchedulePlan.Outcome.REJECTED, null, null, reasons[i]));
+            } else {
+                items.add(new SchedulePlan.Item(ids[i], SchedulePlan.Outcome.SCHEDULED,
+                        EpochNanos.toLocalDateTime(starts[i]),
+                        EpochNanos.toLocalDateTime(starts[i] + lengths[i]), null));
+            }
+        }
+        return items;
+    }
+
+    private final class Prepare extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        Prepare(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_SIZE) {
+                prepare(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Prepare(from, middle), new Prepare(middle, to));
+        }
+    }
+}
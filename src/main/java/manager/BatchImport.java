@@ -0,0 +1,140 @@
+package manager;
+
+import task.Epic;
+import task.RecurringTask;
+import task.Subtask;
+import task.Task;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+// Проверка пакета перед импортом. Пересечения внутри пакета ищутся одним проходом по интервалам,
+// отсортированным по (startTime, endTime): интервал конфликтует, если начинается раньше
+// самого позднего окончания среди предыдущих. Пересечения с расписанием менеджера проверяет overlapsExisting
+final class BatchImport {
+    private final List<Task> items;
+    private final String[] reasons;
+    private boolean valid = true;
+
+    private BatchImport(List<Task> items) {
+        this.items = items;
+        this.reasons = new String[items.size()];
+    }
+
+    static BatchImport plan(Collection<? extends Task> batch, IntPredicate epicExists,
+                            Predicate<Task> overlapsExisting) {
+        if (batch == null) {
+            throw new IllegalArgumentException("Batch cannot be null");
+        }
+        BatchImport plan = new BatchImport(new ArrayList<>(batch));
+        plan.validate(epicExists, overlapsExisting);
+        return plan;
+    }
+
+    // Id эпиков, к которым относятся подзадачи пакета; нужны до проверки, чтобы заранее взять блокировки
+    static List<Integer> referencedEpicIds(Collection<? extends Task> batch) {
+        List<Integer> epicIds = new ArrayList<>();
+        if (batch != null) {
+            for (Task task : batch) {
+                if (task instanceof Subtask) {
+                    epicIds.add(((Subtask) task).getEpicId());
+                }
+            }
+        }
+        return epicIds;
+    }
+
+    boolean isValid() {
+        return valid;
+    }
+
+    List<Task> getItems() {
+        return items;
+    }
+
+    // Отчёт для пакета; элементы получили id подряд начиная с firstId в порядке пакета
+    ImportReport report(int firstId) {
+        List<ImportReport.Item> reportItems = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            if (reasons[i] != null) {
+                reportItems.add(new ImportReport.Item(i, items.get(i), ImportReport.Outcome.REJECTED, 0, reasons[i]));
+            } else if (!valid) {
+                reportItems.add(new ImportReport.Item(i, items.get(i), ImportReport.Outcome.NOT_APPLIED, 0, null));
+            } else {
+                reportItems.add(new ImportReport.Item(i, items.get(i), ImportReport.Outcome.ACCEPTED, firstId + i, null));
+            }
+        }
+        return new ImportReport(reportItems, valid);
+    }
+
+    private void validate(IntPredicate epicExists, Predicate<Task> overlapsExisting) {
+        Set<Task> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Integer> timed = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            Task task = items.get(i);
+            if (task == null) {
+                reject(i, "Item cannot be null");
+            } else if (!seen.add(task)) {
+                reject(i, "Item appears in the batch more than once");
+            } else if (task instanceof RecurringTask) {
+                // Серия проверяется по своим вхождениям, а не одним интервалом, как в проходе ниже
+                reject(i, "Recurring tasks cannot be imported in a batch");
+            } else if (task instanceof Epic) {
+                // Подзадачи нового эпика ещё не знают его id, поэтому их добавляют отдельно
+                if (!((Epic) task).getSubtasks().isEmpty()) {
+                    reject(i, "Epic subtasks must be imported after the epic");
+                }
+            } else if (task instanceof Subtask && !epicExists.test(((Subtask) task).getEpicId())) {
+                reject(i, "Epic with ID " + ((Subtask) task).getEpicId() + " does not exist");
+            } else if (task.getStartTime() != null && task.getDuration() != null) {
+                if (overlapsExisting.test(task)) {
+                    reject(i, "Task overlaps with existing task");
+                }
+                timed.add(i);
+            }
+        }
+        sweep(timed);
+    }
+
+    private void sweep(List<Integer> timed) {
+        // Время переводится в числа один раз, сортировка и проход сравнивают только их
+        long[] starts = new long[items.size()];
+        long[] ends = new long[items.size()];
+        for (int i : timed) {
+            starts[i] = items.get(i).getStartNanos();
+            ends[i] = items.get(i).getEndNanos();
+        }
+        timed.sort((a, b) -> {
+            int byStart = Long.compare(starts[a], starts[b]);
+            if (byStart != 0) {
+                return byStart;
+            }
+            int byEnd = Long.compare(ends[a], ends[b]);
+            return byEnd != 0 ? byEnd : Integer.compare(a, b);
+        });
+
+        // Задачи нулевой длины при равном начале идут первыми, поэтому сравнения с maxEnd достаточно
+        long maxEnd = Task.NO_END;
+        int maxEndOwner = -1;
+        for (int i : timed) {
+            if (maxEndOwner >= 0 && starts[i] < maxEnd && reasons[i] == null) {
+                reject(i, "Task overlaps with batch item " + maxEndOwner);
+            }
+            if (maxEndOwner < 0 || ends[i] > maxEnd) {
+                maxEnd = ends[i];
+                maxEndOwner = i;
+            }
+        }
+    }
+
+    private void reject(int index, String reason) {
+        reasons[index] = reason;
+        valid = false;
+    }
+}
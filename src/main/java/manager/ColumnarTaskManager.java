@@ -0,0 +1,975 @@
+package manager;
+
+import history.HistoryManager;
+import task.Epic;
+import task.RecurringTask;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+import task.TaskType;
+import util.EpochNanos;
+import util.IntArrayList;
+import util.IntIntHashMap;
+import util.IntObjectHashMap;
+
+import java.io.File;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntFunction;
+
+// Менеджер для очень больших досок: поля сущностей лежат в столбцах вне кучи (TaskColumns),
+// названия и описания — в StringArena. Объекты Task, Epic и Subtask создаются только на границе API,
+// поэтому каждое чтение возвращает новую копию. Исключение — эпики, переданные в addEpic, updateEpic
+// и addAll: как и в InMemoryTaskManager, менеджер обновляет в них подзадачи, статус и время.
+// Эти эпики удерживаются слабыми ссылками и не мешают сборке мусора.
+// Доску можно открыть из двоичного файла задач без разбора строк (см. конструктор с файлом)
+public class ColumnarTaskManager implements TaskManager {
+    private final IdAllocator idAllocator = new IdAllocator();
+    private final TaskColumns columns = new TaskColumns();
+    private StringArena strings = new StringArena();
+    private final IntIntHashMap rowsById = new IntIntHashMap();
+    private final IdOrder taskOrder = new IdOrder();
+    private final IdOrder epicOrder = new IdOrder();
+    private final IdOrder subtaskOrder = new IdOrder();
+    private final IntObjectHashMap<IdOrder> subtasksByEpic = new IntObjectHashMap<>(); // Id подзадач эпика
+    private final IntIntHashMap doneSubtasks = new IntIntHashMap(); // Выполненные подзадачи эпика
+    private final IntObjectHashMap<LiveEpic> liveEpics = new IntObjectHashMap<>();
+    private final ReferenceQueue<Epic> releasedEpics = new ReferenceQueue<>();
+    private final HistoryManager historyManager = Managers.getDefaultHistory();
+    private final TimeIndex timeIndex = new TimeIndex();
+    private final StatusIndex statusIndex = new StatusIndex();
+    private final SearchIndex searchIndex = new SearchIndex();
+    private final DependencyGraph dependencies = new DependencyGraph();
+    private long version;
+    private TaskSnapshot snapshot;
+    private final TaskEventBus events = new TaskEventBus();
+    private MappedSnapshot mapped; // Файл, из которого открыта доска; его строки читаются прямо из отображения
+    private boolean searchPending; // Строки из файла ещё не проиндексированы для поиска
+
+    public ColumnarTaskManager() {
+    }
+
+    // Доска из двоичного файла задач FileBackedTaskManager (SnapshotFormat.BINARY), отображённого в память.
+    // При открытии заполняются столбцы и индексы по id, времени, статусу и зависимостям, но строки не
+    // декодируются: названия и описания читаются из файла, когда сущность собирается в объект, а поисковый
+    // индекс строится при первом поиске. Изменённая сущность переходит в StringArena. Изменения в файл
+    // не записываются
+    public ColumnarTaskManager(File snapshot) {
+        IntArrayList loadedEpics = new IntArrayList();
+        IntArrayList loadedSubtasks = new IntArrayList();
+        IntArrayList loadedTasks = new IntArrayList();
+        mapped = MappedSnapshot.open(snapshot, record -> {
+            restoreRow(record);
+            (record.type() == TaskType.EPIC ? loadedEpics
+                    : record.type() == TaskType.SUBTASK ? loadedSubtasks : loadedTasks).add(record.id());
+        });
+        // Порядок в файле произвольный: по возрастанию id порядки и списки подзадач растут только с конца
+        for (int id : sorted(loadedEpics)) {
+            epicOrder.add(id);
+            subtasksByEpic.put(id, new IdOrder());
+        }
+        for (int id : sorted(loadedSubtasks)) {
+            int row = rowsById.get(id, -1);
+            if (!subtasksByEpic.containsKey(columns.epicId(row))) {
+                throw new IllegalArgumentException("Epic with ID " + columns.epicId(row) + " does not exist");
+            }
+            subtaskOrder.add(id);
+            link(id, columns.epicId(row), columns.status(row));
+        }
+        for (int id : sorted(loadedTasks)) {
+            taskOrder.add(id);
+        }
+        IntArrayList timed = new IntArrayList(loadedSubtasks.size() + loadedTasks.size());
+        for (int i = 0; i < subtaskOrder.size(); i++) {
+            timed.add(subtaskOrder.get(i));
+        }
+        for (int i = 0; i < taskOrder.size(); i++) {
+            timed.add(taskOrder.get(i));
+        }
+        indexLoadedTimes(timed);
+        for (int i = 0; i < epicOrder.size(); i++) {
+            updateEpicStatus(epicOrder.get(i));
+        }
+        IntArrayList edges = mapped.getDependencies();
+        for (int i = 0; i < edges.size(); i += 2) {
+            dependencies.addEdge(edges.get(i), edges.get(i + 1));
+        }
+        idAllocator.advanceTo(mapped.getNextId() - 1);
+        searchPending = true;
+    }
+
+    private static int[] sorted(IntArrayList ids) {
+        int[] result = ids.toArray();
+        Arrays.sort(result);
+        return result;
+    }
+
+    // Строка таблицы по полям из файла, без объекта и без декодирования строк
+    private void restoreRow(SnapshotCodec.Record record) {
+        int id = record.id();
+        if (rowsById.containsKey(id)) {
+            throw new IllegalArgumentException("Duplicate id in task snapshot: " + id);
+        }
+        long start = record.hasStart() ? record.startNanos() : 0;
+        long duration = record.durationNanos();
+        int row = columns.allocate();
+        rowsById.put(id, row);
+        columns.write(row, id, record.type(), record.status(), record.epicId(), record.hasStart(), start, duration,
+                StringArena.mapped(record.name()), StringArena.mapped(record.description()));
+        idAllocator.advanceTo(id);
+        statusIndex.put(id, record.type(), record.status());
+        if (record.type() != TaskType.EPIC) {
+            dependencies.put(id, record.status() == TaskStatus.DONE);
+        }
+    }
+
+    // Индекс времени строится одним пакетом после чтения всех строк; время эпика вычисляется из подзадач
+    private void indexLoadedTimes(IntArrayList ids) {
+        int[] timed = new int[ids.size()];
+        long[] starts = new long[ids.size()];
+        long[] ends = new long[ids.size()];
+        int count = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            int row = rowsById.get(ids.get(i), -1);
+            if (columns.hasStart(row)) {
+                timed[count] = ids.get(i);
+                starts[count] = columns.start(row);
+                ends[count] = EpochNanos.plus(columns.start(row), columns.duration(row));
+                count++;
+            }
+        }
+        timeIndex.putAll(Arrays.copyOf(timed, count), Arrays.copyOf(starts, count), Arrays.copyOf(ends, count));
+    }
+
+    private boolean isTaskOverlapping(Task task) {
+        if (task.getStartTime() == null || task.getDuration() == null) {
+            return false;
+        }
+        return timeIndex.overlaps(task.getStartNanos(), task.getEndNanos(), task.getId());
+    }
+
+    private int rowOf(int id, TaskType type) {
+        int row = rowsById.get(id, -1);
+        return row >= 0 && columns.type(row) == type ? row : -1;
+    }
+
+    // Запись не должна перезаписать сущность другого типа с тем же id
+    private void checkWritable(Task task) {
+        int row = rowsById.get(task.getId(), -1);
+        if (row >= 0 && columns.type(row) != task.getType()) {
+            throw new IllegalArgumentException("Id " + task.getId() + " belongs to a " + columns.type(row));
+        }
+        TaskColumns.checkFits(task);
+    }
+
+    // Записывает сущность в её строку (новую или прежнюю) и обновляет индексы
+    private void store(Task task) {
+        checkWritable(task);
+        int row = rowsById.get(task.getId(), -1);
+        if (row < 0) {
+            row = columns.allocate();
+            rowsById.put(task.getId(), row);
+        } else {
+            strings.release(columns.nameRef(row));
+            strings.release(columns.descriptionRef(row));
+        }
+        columns.write(row, task, strings.put(task.getName()), strings.put(task.getDescription()));
+        if (task.getType() != TaskType.EPIC) {
+            timeIndex.put(task);
+            dependencies.put(task.getId(), task.getStatus() == TaskStatus.DONE);
+        }
+        statusIndex.put(task);
+        searchIndex.put(task);
+    }
+
+    private void erase(int id, int row) {
+        TaskType type = columns.type(row);
+        timeIndex.remove(id);
+        statusIndex.remove(id, type);
+        searchIndex.remove(id);
+        dependencies.remove(id);
+        strings.release(columns.nameRef(row));
+        strings.release(columns.descriptionRef(row));
+        columns.free(row);
+        rowsById.remove(id);
+    }
+
+    @Override
+    public Task addTask(Task task) {
+        if (task == null) return null;
+
+        if (task instanceof RecurringTask) {
+            throw new IllegalArgumentException("Recurring tasks are not supported by this manager");
+        }
+
+        if (task.getStartTime() != null && isTaskOverlapping(task)) {
+            throw new IllegalArgumentException("Task overlaps with existing task.");
+        }
+
+        task.setId(idAllocator.next());
+        store(task);
+        taskOrder.add(task.getId());
+        changed();
+        events.publish(TaskEvent.Kind.ADDED, task, version);
+        return task;
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        int row = rowOf(id, TaskType.TASK);
+        if (row < 0) {
+            return null;
+        }
+        Task task = materialize(row);
+        historyManager.add(task);
+        return task;
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        if (task == null) {
+            throw new IllegalArgumentException("Task cannot be null");
+        }
+        if (task instanceof RecurringTask) {
+            throw new IllegalArgumentException("Recurring tasks are not supported by this manager");
+        }
+        if (rowOf(task.getId(), TaskType.TASK) < 0) {
+            throw new IllegalArgumentException("Task with id " + task.getId() + " not found");
+        }
+        if (task.getStartTime() != null && isTaskOverlapping(task)) {
+            throw new IllegalArgumentException("Task time overlaps with existing task");
+        }
+
+        store(task);
+        changed();
+        events.publish(TaskEvent.Kind.UPDATED, task, version);
+    }
+
+    @Override
+    public void deleteTask(int id) {
+        int row = rowOf(id, TaskType.TASK);
+        if (row >= 0) {
+            Task removed = materializeForEvent(row);
+            erase(id, row);
+            taskOrder.remove(id);
+            historyManager.remove(id);
+            changed();
+            publishRemoved(removed);
+        }
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return getSnapshot().getTasks();
+    }
+
+    // Методы для эпиков
+
+    @Override
+    public Epic addEpic(Epic epic) {
+        if (epic == null) {
+            return null;
+        }
+
+        List<Subtask> initialSubtasks = epic.getSubtasks();
+        for (Subtask subtask : initialSubtasks) {
+            if (subtask.getStartTime() != null && isTaskOverlapping(subtask)) {
+                throw new IllegalArgumentException("Task time overlaps with existing task");
+            }
+        }
+
+        epic.setId(idAllocator.next());
+        epic.clearSubtasks(); // Подзадачи попадут в эпик заново через addSubtask
+        store(epic);
+        epicOrder.add(epic.getId());
+        subtasksByEpic.put(epic.getId(), new IdOrder());
+        keepLive(epic);
+        changed();
+        events.publish(TaskEvent.Kind.ADDED, epic, version);
+
+        for (Subtask subtask : initialSubtasks) {
+            addSubtask(subtask);
+        }
+        return epic;
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        int row = rowOf(id, TaskType.EPIC);
+        if (row < 0) {
+            return null;
+        }
+        Epic epic = (Epic) materialize(row);
+        historyManager.add(epic);
+        return epic;
+    }
+
+    // Обновляются название, описание и статус; подзадачи эпика берутся из менеджера
+    @Override
+    public void updateEpic(Epic epic) {
+        checkWritable(epic);
+        boolean known = rowOf(epic.getId(), TaskType.EPIC) >= 0;
+        List<Subtask> children = known ? materializeSubtasks(epic.getId()) : List.of();
+        store(epic);
+        if (!known) {
+            epicOrder.add(epic.getId());
+            subtasksByEpic.put(epic.getId(), new IdOrder());
+        }
+        epic.setSubtasks(children);
+        keepLive(epic);
+        updateEpicStatus(epic.getId()); // Статус, как и время, считается по подзадачам
+        changed();
+        events.publish(TaskEvent.Kind.UPDATED, epic, version);
+    }
+
+    @Override
+    public void deleteEpic(int id) {
+        int row = rowOf(id, TaskType.EPIC);
+        if (row >= 0) {
+            Task removed = materializeForEvent(row);
+            IdOrder children = subtasksByEpic.remove(id);
+            doneSubtasks.remove(id);
+            liveEpics.remove(id);
+            erase(id, row);
+            epicOrder.remove(id);
+            for (int i = children.size() - 1; i >= 0; i--) {
+                deleteSubtask(children.get(i)); // Эпика уже нет, пересчитывать нечего
+            }
+            changed();
+            publishRemoved(removed);
+        }
+        historyManager.remove(id);
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return getSnapshot().getEpics();
+    }
+
+    // Методы для подзадач
+
+    @Override
+    public Subtask addSubtask(Subtask subtask) {
+        if (subtask == null) {
+            return null;
+        }
+        if (rowOf(subtask.getEpicId(), TaskType.EPIC) < 0) {
+            throw new IllegalArgumentException("Epic with ID " + subtask.getEpicId() + " does not exist");
+        }
+        if (subtask.getStartTime() != null && isTaskOverlapping(subtask)) {
+            throw new IllegalArgumentException("Task time overlaps with existing task");
+        }
+
+        subtask.setId(idAllocator.next());
+        store(subtask);
+        subtaskOrder.add(subtask.getId());
+        link(subtask);
+        Epic live = liveEpic(subtask.getEpicId());
+        if (live != null) {
+            live.addSubtask(subtask);
+        }
+        updateEpicStatus(subtask.getEpicId());
+        changed();
+        events.publish(TaskEvent.Kind.ADDED, subtask, version);
+        publishRollUp(subtask.getEpicId());
+        return subtask;
+    }
+
+    @Override
+    public ImportReport addAll(Collection<? extends Task> batch) {
+        BatchImport plan = BatchImport.plan(batch, epicId -> rowOf(epicId, TaskType.EPIC) >= 0,
+                this::isTaskOverlapping);
+        if (!plan.isValid()) {
+            return plan.report(0);
+        }
+
+        List<Task> items = plan.getItems();
+        for (Task task : items) {
+            TaskColumns.checkFits(task); // До первой записи: пакет применяется целиком или никак
+        }
+        int firstId = idAllocator.reserve(items.size());
+        IntObjectHashMap<List<Subtask>> addedByEpic = new IntObjectHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            Task task = items.get(i);
+            task.setId(firstId + i);
+            store(task);
+            switch (task.getType()) {
+                case EPIC:
+                    epicOrder.add(task.getId());
+                    subtasksByEpic.put(task.getId(), new IdOrder());
+                    keepLive((Epic) task);
+                    break;
+                case SUBTASK:
+                    Subtask subtask = (Subtask) task;
+                    subtaskOrder.add(subtask.getId());
+                    link(subtask);
+                    List<Subtask> added = addedByEpic.get(subtask.getEpicId());
+                    if (added == null) {
+                        added = new ArrayList<>();
+                        addedByEpic.put(subtask.getEpicId(), added);
+                    }
+                    added.add(subtask);
+                    break;
+                default:
+                    taskOrder.add(task.getId());
+            }
+        }
+
+        // Статус и живой эпик обновляются один раз на пакет
+        addedByEpic.forEachKey(epicId -> {
+            Epic live = liveEpic(epicId);
+            if (live != null) {
+                live.addSubtasks(addedByEpic.get(epicId));
+            }
+            updateEpicStatus(epicId);
+        });
+        changed();
+        if (events.isActive()) {
+            for (Task task : items) {
+                events.publish(TaskEvent.Kind.ADDED, task, version);
+            }
+            addedByEpic.forEachKey(this::publishRollUp);
+        }
+        return plan.report(firstId);
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) {
+        int row = rowOf(id, TaskType.SUBTASK);
+        if (row < 0) {
+            return null;
+        }
+        Subtask subtask = (Subtask) materialize(row);
+        historyManager.add(subtask);
+        return subtask;
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        if (isTaskOverlapping(subtask)) {
+            throw new IllegalArgumentException("Подзадача перекрывается с существующей задачей.");
+        }
+        if (rowOf(subtask.getEpicId(), TaskType.EPIC) < 0) {
+            throw new IllegalArgumentException("Epic with ID " + subtask.getEpicId() + " does not exist");
+        }
+
+        checkWritable(subtask);
+
+        int row = rowOf(subtask.getId(), TaskType.SUBTASK);
+        int previousEpicId = row >= 0 ? columns.epicId(row) : 0;
+        if (row >= 0) {
+            unlink(subtask.getId(), previousEpicId, columns.status(row));
+        }
+        store(subtask);
+        subtaskOrder.add(subtask.getId());
+        link(subtask);
+
+        if (row >= 0 && previousEpicId != subtask.getEpicId()) {
+            Epic previous = liveEpic(previousEpicId);
+            if (previous != null) {
+                previous.removeSubtask(subtask.getId());
+            }
+            updateEpicStatus(previousEpicId);
+        }
+        Epic live = liveEpic(subtask.getEpicId());
+        if (live != null) {
+            if (row >= 0 && previousEpicId == subtask.getEpicId()) {
+                live.updateSubtask(subtask);
+            } else {
+                live.addSubtask(subtask);
+            }
+        }
+        updateEpicStatus(subtask.getEpicId());
+        changed();
+        events.publish(TaskEvent.Kind.UPDATED, subtask, version);
+        if (row >= 0 && previousEpicId != subtask.getEpicId()) {
+            publishRollUp(previousEpicId);
+        }
+        publishRollUp(subtask.getEpicId());
+    }
+
+    @Override
+    public void deleteSubtask(int id) {
+        int row = rowOf(id, TaskType.SUBTASK);
+        if (row >= 0) {
+            Task removed = materializeForEvent(row);
+            int epicId = columns.epicId(row);
+            unlink(id, epicId, columns.status(row));
+            erase(id, row);
+            subtaskOrder.remove(id);
+            Epic live = liveEpic(epicId);
+            if (live != null) {
+                live.removeSubtask(id);
+            }
+            boolean epicExists = subtasksByEpic.containsKey(epicId);
+            if (epicExists) {
+                updateEpicStatus(epicId);
+            }
+            changed();
+            publishRemoved(removed);
+            if (epicExists) {
+                publishRollUp(epicId);
+            }
+            historyManager.remove(id);
+        }
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return getSnapshot().getSubtasks();
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByEpicId(int epicId) {
+        if (!subtasksByEpic.containsKey(epicId)) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(materializeSubtasks(epicId));
+    }
+
+    private void link(Subtask subtask) {
+        link(subtask.getId(), subtask.getEpicId(), subtask.getStatus());
+    }
+
+    private void link(int subtaskId, int epicId, TaskStatus status) {
+        IdOrder children = subtasksByEpic.get(epicId);
+        if (children != null) {
+            children.add(subtaskId);
+            if (status == TaskStatus.DONE) {
+                doneSubtasks.put(epicId, doneSubtasks.get(epicId, 0) + 1);
+            }
+        }
+    }
+
+    private void unlink(int subtaskId, int epicId, TaskStatus status) {
+        IdOrder children = subtasksByEpic.get(epicId);
+        if (children != null) {
+            children.remove(subtaskId);
+            if (status == TaskStatus.DONE) {
+                doneSubtasks.put(epicId, doneSubtasks.get(epicId, 0) - 1);
+            }
+        }
+    }
+
+    // Статус эпика по счётчикам: без подзадач — NEW, все выполнены — DONE, иначе IN_PROGRESS
+    private void updateEpicStatus(int epicId) {
+        int total = subtasksByEpic.get(epicId).size();
+        int done = doneSubtasks.get(epicId, 0);
+        TaskStatus status = total == 0 ? TaskStatus.NEW : done == total ? TaskStatus.DONE : TaskStatus.IN_PROGRESS;
+        columns.setStatus(rowsById.get(epicId, -1), status);
+        statusIndex.put(epicId, TaskType.EPIC, status);
+        Epic live = liveEpic(epicId);
+        if (live != null) {
+            live.setStatus(status);
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public void clearTasks() {
+        for (int i = 0; i < taskOrder.size(); i++) {
+            int id = taskOrder.get(i);
+            erase(id, rowsById.get(id, -1));
+        }
+        taskOrder.clear();
+        changed();
+        events.publishCleared(TaskType.TASK, version);
+    }
+
+    @Override
+    public void clearEpics() {
+        clearSubtaskRows();
+        for (int i = 0; i < epicOrder.size(); i++) {
+            int id = epicOrder.get(i);
+            erase(id, rowsById.get(id, -1));
+        }
+        epicOrder.clear();
+        subtasksByEpic.clear();
+        liveEpics.clear();
+        changed();
+        events.publishCleared(TaskType.SUBTASK, version);
+        events.publishCleared(TaskType.EPIC, version);
+    }
+
+    @Override
+    public void clearSubtasks() {
+        clearSubtaskRows();
+        for (int i = 0; i < epicOrder.size(); i++) {
+            int epicId = epicOrder.get(i);
+            subtasksByEpic.get(epicId).clear();
+            Epic live = liveEpic(epicId);
+            if (live != null) {
+                live.clearSubtasks();
+            }
+            updateEpicStatus(epicId);
+        }
+        changed();
+        events.publishCleared(TaskType.SUBTASK, version);
+        if (events.isActive()) {
+            for (int i = 0; i < epicOrder.size(); i++) {
+                publishRollUp(epicOrder.get(i));
+            }
+        }
+    }
+
+    private void clearSubtaskRows() {
+        for (int i = 0; i < subtaskOrder.size(); i++) {
+            int id = subtaskOrder.get(i);
+            erase(id, rowsById.get(id, -1));
+        }
+        subtaskOrder.clear();
+        doneSubtasks.clear();
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(TaskStatus status, TaskType type) {
+        if (status == null || type == null) {
+            throw new IllegalArgumentException("Status and type cannot be null");
+        }
+        int[] ids = statusIndex.ids(status, type);
+        List<Task> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(materializeById(id));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        if (query == null) {
+            throw new IllegalArgumentException("Query cannot be null");
+        }
+        if (searchPending) {
+            indexMappedStrings();
+        }
+        int[] ids = searchIndex.search(query, limit);
+        List<Task> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(materializeById(id));
+        }
+        return result;
+    }
+
+    @Override
+    public void addDependency(int blockerId, int blockedId) {
+        dependencies.addEdge(blockerId, blockedId);
+        changed();
+        if (events.isActive()) {
+            events.publishDependency(TaskEvent.Kind.DEPENDENCY_ADDED, blockerId, materializeById(blockedId), version);
+        }
+    }
+
+    @Override
+    public void removeDependency(int blockerId, int blockedId) {
+        if (dependencies.removeEdge(blockerId, blockedId)) {
+            changed();
+            if (events.isActive()) {
+                events.publishDependency(TaskEvent.Kind.DEPENDENCY_REMOVED, blockerId, materializeById(blockedId),
+                        version);
+            }
+        }
+    }
+
+    @Override
+    public List<Task> getBlockers(int id) {
+        int[] ids = dependencies.blockers(id);
+        List<Task> result = new ArrayList<>(ids.length);
+        for (int blockerId : ids) {
+            result.add(materializeById(blockerId));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> getReadyTasks() {
+        int[] ids = dependencies.ready();
+        List<Task> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(materializeById(id));
+        }
+        return result;
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    // Срез собирается из столбцов при первом чтении после изменения; подзадачи эпиков
+    // в срезе — те же объекты, что и в списке подзадач
+    @Override
+    public TaskSnapshot getSnapshot() {
+        TaskSnapshot current = snapshot;
+        if (current == null || current.getVersion() != version) {
+            List<Task> tasks = materializeAll(taskOrder, this::materializeById);
+            IntObjectHashMap<Subtask> subtasksById = new IntObjectHashMap<>(subtaskOrder.size());
+            List<Subtask> subtasks = materializeAll(subtaskOrder, id -> {
+                Subtask subtask = (Subtask) materialize(rowsById.get(id, -1));
+                subtasksById.put(id, subtask);
+                return subtask;
+            });
+            List<Epic> epics = materializeAll(epicOrder, id -> {
+                IdOrder children = subtasksByEpic.get(id);
+                List<Subtask> epicSubtasks = new ArrayList<>(children.size());
+                for (int i = 0; i < children.size(); i++) {
+                    epicSubtasks.add(subtasksById.get(children.get(i)));
+                }
+                return materializeEpic(rowsById.get(id, -1), epicSubtasks);
+            });
+            current = new TaskSnapshot(version, tasks, epics, subtasks);
+            snapshot = current;
+        }
+        return current;
+    }
+
+    // Отмечает изменение содержимого менеджера; заодно убирает эпики, собранные сборщиком мусора,
+    // и уплотняет строки, если мусора в них стало больше, чем живых данных
+    private void changed() {
+        version++;
+        for (Reference<? extends Epic> released; (released = releasedEpics.poll()) != null; ) {
+            LiveEpic live = (LiveEpic) released;
+            if (liveEpics.get(live.id) == live) {
+                liveEpics.remove(live.id);
+            }
+        }
+        if (strings.needsCompaction()) {
+            compactStrings();
+        }
+    }
+
+    // События
+
+    // Строки хранят данные, а не объекты, поэтому сущность для события собирается, только если есть подписчики
+    private Task materializeForEvent(int row) {
+        return events.isActive() ? materialize(row) : null;
+    }
+
+    private void publishRemoved(Task removed) {
+        if (removed != null) {
+            events.publish(TaskEvent.Kind.DELETED, removed, version);
+        }
+    }
+
+    private void publishRollUp(int epicId) {
+        if (events.isActive()) {
+            Epic live = liveEpic(epicId);
+            events.publish(TaskEvent.Kind.EPIC_ROLLED_UP, live != null ? live : materializeById(epicId), version);
+        }
+    }
+
+    @Override
+    public void addListener(TaskEvent.Listener listener) {
+        events.addListener(listener);
+    }
+
+    @Override
+    public void removeListener(TaskEvent.Listener listener) {
+        events.removeListener(listener);
+    }
+
+    @Override
+    public void addBatchListener(TaskEvent.BatchListener listener) {
+        events.addBatchListener(listener);
+    }
+
+    @Override
+    public void removeBatchListener(TaskEvent.BatchListener listener) {
+        events.removeBatchListener(listener);
+    }
+
+    // Поисковый индекс для сущностей, которые с открытия файла не менялись: их строки всё ещё в файле.
+    // Изменённые сущности индексируются сразу при записи
+    private void indexMappedStrings() {
+        rowsById.forEach((id, row) -> {
+            long nameRef = columns.nameRef(row);
+            long descriptionRef = columns.descriptionRef(row);
+            if (StringArena.isMapped(nameRef) || StringArena.isMapped(descriptionRef)) {
+                Task document = new Task(text(nameRef), text(descriptionRef));
+                document.setId(id);
+                searchIndex.put(document);
+            }
+        });
+        searchPending = false;
+    }
+
+    private void compactStrings() {
+        StringArena compacted = new StringArena();
+        StringArena previous = strings;
+        rowsById.forEach((id, row) -> columns.setStrings(row,
+                moveString(previous, compacted, columns.nameRef(row)),
+                moveString(previous, compacted, columns.descriptionRef(row))));
+        strings = compacted;
+    }
+
+    // Строки файла остаются в файле
+    private static long moveString(StringArena from, StringArena to, long ref) {
+        return StringArena.isMapped(ref) ? ref : to.put(from.get(ref));
+    }
+
+    private String text(long ref) {
+        return StringArena.isMapped(ref) ? mapped.string(StringArena.mappedIndex(ref)) : strings.get(ref);
+    }
+
+    // Объём памяти вне кучи, занятый столбцами и строками
+    public long getOffHeapBytes() {
+        return columns.capacityBytes() + strings.capacityBytes();
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        List<Task> result = new ArrayList<>(timeIndex.size());
+        timeIndex.forEachInOrder(id -> result.add(materializeById(id)));
+        return result;
+    }
+
+    @Override
+    public List<Task> getTasksInWindow(LocalDateTime from, LocalDateTime to) {
+        TimeIndex.checkWindow(from, to);
+        List<Task> result = new ArrayList<>();
+        timeIndex.forEachIntersecting(from, to, id -> result.add(materializeById(id)));
+        return result;
+    }
+
+    @Override
+    public TimeSlot findNextFreeSlot(Duration duration, LocalDateTime notBefore) {
+        LocalDateTime start = timeIndex.nextFreeStart(notBefore, duration);
+        return new TimeSlot(start, start.plus(duration));
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(LocalDateTime from, LocalDateTime to, Duration minDuration) {
+        return timeIndex.freeSlots(from, to, minDuration);
+    }
+
+    @Override
+    public Page<Task> getTasksPage(String after, int limit) {
+        return pageById(taskOrder, after, limit);
+    }
+
+    @Override
+    public Page<Epic> getEpicsPage(String after, int limit) {
+        return pageById(epicOrder, after, limit);
+    }
+
+    @Override
+    public Page<Subtask> getSubtasksPage(String after, int limit) {
+        return pageById(subtaskOrder, after, limit);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Task> Page<T> pageById(IdOrder order, String after, int limit) {
+        Page.checkLimit(limit);
+        int from = order.firstAfter(Page.parseIdCursor(after));
+        int to = (int) Math.min(order.size(), (long) from + limit);
+        List<T> items = new ArrayList<>(Math.max(to - from, 0));
+        for (int position = from; position < to; position++) {
+            items.add((T) materializeById(order.get(position)));
+        }
+        String next = to < order.size() ? String.valueOf(order.get(to - 1)) : null;
+        return new Page<>(items, next);
+    }
+
+    @Override
+    public Page<Task> getPrioritizedPage(String after, int limit) {
+        Page.checkLimit(limit);
+        List<Task> items = new ArrayList<>();
+        timeIndex.forEachAfter(Page.parseTimeCursorStart(after), Page.parseTimeCursorId(after),
+                limit == Integer.MAX_VALUE ? limit : limit + 1, id -> items.add(materializeById(id)));
+        if (items.size() <= limit) {
+            return new Page<>(items, null);
+        }
+        items.remove(limit);
+        return new Page<>(items, Page.timeCursor(items.get(limit - 1)));
+    }
+
+    @Override
+    public void validateTaskTime(Task task) throws IllegalArgumentException {
+        if (isTaskOverlapping(task)) {
+            throw new IllegalArgumentException("Task time overlaps with existing task");
+        }
+    }
+
+    // Сборка объектов из столбцов
+
+    private Task materializeById(int id) {
+        return materialize(rowsById.get(id, -1));
+    }
+
+    private Task materialize(int row) {
+        String name = text(columns.nameRef(row));
+        String description = text(columns.descriptionRef(row));
+        Task task;
+        switch (columns.type(row)) {
+            case EPIC:
+                return materializeEpic(row, materializeSubtasks(columns.id(row)));
+            case SUBTASK:
+                task = new Subtask(name, description, columns.epicId(row));
+                break;
+            default:
+                task = new Task(name, description);
+        }
+        task.setId(columns.id(row));
+        task.setStatus(columns.status(row));
+        task.setDuration(columns.hasDuration(row) ? Duration.ofNanos(columns.duration(row)) : null);
+        task.setStartTime(columns.hasStart(row) ? EpochNanos.toLocalDateTime(columns.start(row)) : null);
+        return task;
+    }
+
+    // Время и продолжительность эпика вычисляются из подзадач, статус хранится в столбце
+    private Epic materializeEpic(int row, List<Subtask> subtasks) {
+        Epic epic = new Epic(text(columns.nameRef(row)), text(columns.descriptionRef(row)));
+        epic.setId(columns.id(row));
+        epic.setSubtasks(subtasks);
+        epic.setStatus(columns.status(row));
+        return epic;
+    }
+
+    private List<Subtask> materializeSubtasks(int epicId) {
+        IdOrder children = subtasksByEpic.get(epicId);
+        List<Subtask> result = new ArrayList<>(children.size());
+        for (int i = 0; i < children.size(); i++) {
+            result.add((Subtask) materializeById(children.get(i)));
+        }
+        return result;
+    }
+
+    private static <T> List<T> materializeAll(IdOrder order, IntFunction<T> materializer) {
+        List<T> result = new ArrayList<>(order.size());
+        for (int i = 0; i < order.size(); i++) {
+            result.add(materializer.apply(order.get(i)));
+        }
+        return result;
+    }
+
+    // Живые эпики
+
+    private void keepLive(Epic epic) {
+        liveEpics.put(epic.getId(), new LiveEpic(epic, releasedEpics));
+    }
+
+    private Epic liveEpic(int epicId) {
+        LiveEpic live = liveEpics.get(epicId);
+        return live != null ? live.get() : null;
+    }
+
+    private static final class LiveEpic extends WeakReference<Epic> {
+        private final int id;
+
+        LiveEpic(Epic epic, ReferenceQueue<Epic> queue) {
+            super(epic, queue);
+            this.id = epic.getId();
+        }
+    }
+}
@@ -0,0 +1,884 @@
+package manager;
+
+import history.HistoryManager;
+import task.Epic;
+import task.RecurringTask;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+import task.TaskType;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Потокобезопасный менеджер: id выдаются блоками на поток, запись блокирует только индекс времени
+// и тот эпик, который меняется. Задачи и подзадачи по id, полные списки и страницы читаются без
+// блокировок. Читатели эпиков получают копию: эпик меняется под своей блокировкой, копия собирается
+// под ней же при первом чтении после изменения и дальше отдаётся без блокировок. Поэтому первое
+// чтение эпика после записи ждёт эту запись — зато запись подзадачи не копирует весь эпик.
+// Запросы по времени (приоритетный список, окно, свободные слоты) и поиск не строятся из среза,
+// а берут блокировку чтения своего индекса и ждут только записи в этот индекс. Повторяющихся задач
+// и планировщика здесь нет, поэтому сервер по умолчанию работает с InMemoryTaskManager.
+// Порядок захвата блокировок всегда один: сначала эпик, затем индекс времени
+public class ConcurrentTaskManager implements TaskManager {
+    private static final int EPIC_LOCK_STRIPES = 64;
+
+    private final IdAllocator idAllocator = new IdAllocator();
+    // Упорядоченные по id карты: страницы читаются через tailMap, курсоры не сбиваются при вставках
+    private final ConcurrentNavigableMap<Integer, Task> tasks = new ConcurrentSkipListMap<>();
+    private final ConcurrentNavigableMap<Integer, Epic> epics = new ConcurrentSkipListMap<>();
+    private final ConcurrentNavigableMap<Integer, Subtask> subtasks = new ConcurrentSkipListMap<>();
+    private final Map<Integer, Epic> epicViews = new ConcurrentHashMap<>(); // Копии эпиков для читателей
+    private final HistoryManager historyManager = Managers.getDefaultHistory();
+    private final TimeIndex timeIndex = new TimeIndex();
+    private final StatusIndex statusIndex = new StatusIndex();
+    private final ReentrantReadWriteLock timeLock = new ReentrantReadWriteLock();
+    private final SearchIndex searchIndex = new SearchIndex();
+    private final ReentrantReadWriteLock searchLock = new ReentrantReadWriteLock();
+    private final DependencyGraph dependencies = new DependencyGraph(); // Доступ под synchronized (dependencies)
+    private final ReentrantLock[] epicLocks = new ReentrantLock[EPIC_LOCK_STRIPES];
+    private final AtomicLong version = new AtomicLong();
+    private volatile TaskSnapshot snapshot;
+    private final TaskEventBus events = new TaskEventBus(); // Публикация под теми же блокировками, что и изменение
+
+    public ConcurrentTaskManager() {
+        for (int i = 0; i < epicLocks.length; i++) {
+            epicLocks[i] = new ReentrantLock();
+        }
+    }
+
+    private ReentrantLock epicLock(int epicId) {
+        return epicLocks[Math.floorMod(epicId, EPIC_LOCK_STRIPES)];
+    }
+
+    // Копия эпика для читателей: список подзадач и агрегаты живого эпика меняются под его блокировкой,
+    // поэтому копия собирается под ней же и служит до следующего изменения эпика
+    private Epic epicView(int id) {
+        Epic view = epicViews.get(id);
+        if (view != null) {
+            return view;
+        }
+        ReentrantLock lock = epicLock(id);
+        lock.lock();
+        try {
+            Epic epic = epics.get(id);
+            if (epic == null) {
+                return null;
+            }
+            return epicViews.computeIfAbsent(id, key -> copyOf(epic, epic.getSubtasks()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static Epic copyOf(Epic epic, List<Subtask> subtasks) {
+        Epic copy = new Epic(epic.getName(), epic.getDescription());
+        copy.setId(epic.getId());
+        copy.setSubtasks(subtasks);
+        copy.setStatus(epic.getStatus());
+        return copy;
+    }
+
+    // События об эпике несут копию: слушатель может читать её в другом потоке
+    private void publishEpic(TaskEvent.Kind kind, Epic epic, long changeVersion) {
+        if (events.isActive()) {
+            Epic view = epicView(epic.getId());
+            events.publish(kind, view != null ? view : epic, changeVersion);
+        }
+    }
+
+    // Вызывается под блокировкой записи индекса времени
+    private boolean isTaskOverlapping(Task task) {
+        if (task.getStartTime() == null || task.getDuration() == null) {
+            return false;
+        }
+        return timeIndex.overlaps(task.getStartNanos(), task.getEndNanos(), task.getId());
+    }
+
+    private void addToHistory(Task task) {
+        synchronized (historyManager) {
+            historyManager.add(task);
+        }
+    }
+
+    // Статус задачи и подзадачи заодно отмечается в графе зависимостей
+    private void indexStatus(Task task) {
+        synchronized (statusIndex) {
+            statusIndex.put(task);
+        }
+        if (task.getType() != TaskType.EPIC) {
+            synchronized (dependencies) {
+                dependencies.put(task.getId(), task.getStatus() == TaskStatus.DONE);
+            }
+        }
+    }
+
+    private void unindexStatus(int id, TaskType type) {
+        synchronized (statusIndex) {
+            statusIndex.remove(id, type);
+        }
+        if (type != TaskType.EPIC) {
+            synchronized (dependencies) {
+                dependencies.remove(id);
+            }
+        }
+    }
+
+    private void indexText(Task task) {
+        searchLock.writeLock().lock();
+        try {
+            searchIndex.put(task);
+        } finally {
+            searchLock.writeLock().unlock();
+        }
+    }
+
+    private void unindexText(int id) {
+        searchLock.writeLock().lock();
+        try {
+            searchIndex.remove(id);
+        } finally {
+            searchLock.writeLock().unlock();
+        }
+    }
+
+    private void removeFromHistory(int id) {
+        synchronized (historyManager) {
+            historyManager.remove(id);
+        }
+    }
+
+    @Override
+    public Task addTask(Task task) {
+        if (task == null) return null;
+
+        if (task instanceof RecurringTask) {
+            throw new IllegalArgumentException("Recurring tasks are not supported by this manager");
+        }
+
+        // Задача без времени тоже добавляется под блокировкой записи: иначе clearTasks мог бы убрать её
+        // из карты, оставив в индексах, а событие ADDED пришло бы после CLEARED
+        timeLock.writeLock().lock();
+        try {
+            if (isTaskOverlapping(task)) {
+                throw new IllegalArgumentException("Task overlaps with existing task.");
+            }
+            task.setId(idAllocator.nextLocal());
+            tasks.put(task.getId(), task);
+            timeIndex.put(task);
+            indexStatus(task);
+            indexText(task);
+            events.publish(TaskEvent.Kind.ADDED, task, changed());
+        } finally {
+            timeLock.writeLock().unlock();
+        }
+        return task;
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        Task task = tasks.get(id);
+        if (task != null) {
+            addToHistory(task);
+        }
+        return task;
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        if (task == null) {
+            throw new IllegalArgumentException("Task cannot be null");
+        }
+        if (task instanceof RecurringTask) {
+            throw new IllegalArgumentException("Recurring tasks are not supported by this manager");
+        }
+
+        timeLock.writeLock().lock();
+        try {
+            if (!tasks.containsKey(task.getId())) {
+                throw new IllegalArgumentException("Task with id " + task.getId() + " not found");
+            }
+            if (task.getStartTime() != null && isTaskOverlapping(task)) {
+                throw new IllegalArgumentException("Task time overlaps with existing task");
+            }
+            tasks.put(task.getId(), task);
+            timeIndex.put(task);
+            indexStatus(task);
+            indexText(task);
+            events.publish(TaskEvent.Kind.UPDATED, task, changed());
+        } finally {
+            timeLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteTask(int id) {
+        timeLock.writeLock().lock();
+        try {
+            Task removed = tasks.remove(id);
+            if (removed == null) {
+                return;
+            }
+            timeIndex.remove(id);
+            unindexStatus(id, TaskType.TASK);
+            unindexText(id);
+            events.publish(TaskEvent.Kind.DELETED, removed, changed());
+        } finally {
+            timeLock.writeLock().unlock();
+        }
+        removeFromHistory(id);
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return getSnapshot().getTasks();
+    }
+
+    // Методы для эпиков
+
+    @Override
+    public Epic addEpic(Epic epic) {
+        if (epic == null) {
+            return null;
+        }
+
+        List<Subtask> initialSubtasks = epic.getSubtasks();
+        timeLock.readLock().lock();
+        try {
+            for (Subtask subtask : initialSubtasks) {
+                if (subtask.getStartTime() != null && isTaskOverlapping(subtask)) {
+                    throw new IllegalArgumentException("Task time overlaps with existing task");
+                }
+            }
+        } finally {
+            timeLock.readLock().unlock();
+        }
+
+        epic.setId(idAllocator.nextLocal());
+        epic.clearSubtasks(); // Подзадачи попадут в эпик заново через addSubtask
+        epics.put(epic.getId(), epic);
+        indexStatus(epic);
+        indexText(epic);
+        publishEpic(TaskEvent.Kind.ADDED, epic, changed());
+
+        for (Subtask subtask : initialSubtasks) {
+            addSubtask(subtask);
+        }
+        return epic;
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        Epic epic = epicView(id);
+        if (epic != null) {
+            addToHistory(epic);
+        }
+        return epic;
+    }
+
+    // Переданный эпик часто сам копия, которую видят другие читатели, поэтому в хранилище кладётся
+    // новая копия; подзадачи берутся у хранимого эпика, чтобы не потерять добавленные после чтения
+    @Override
+    public void updateEpic(Epic epic) {
+        ReentrantLock lock = epicLock(epic.getId());
+        lock.lock();
+        try {
+            Epic existing = epics.get(epic.getId());
+            Epic stored = copyOf(epic, existing != null ? existing.getSubtasks() : epic.getSubtasks());
+            epics.put(stored.getId(), stored);
+            updateEpicStatus(stored);
+            indexText(stored);
+            publishEpic(TaskEvent.Kind.UPDATED, stored, changed());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteEpic(int id) {
+        ReentrantLock lock = epicLock(id);
+        lock.lock();
+        try {
+            Epic removedEpic = epics.remove(id);
+            epicViews.remove(id);
+            if (removedEpic != null) {
+                unindexStatus(id, TaskType.EPIC);
+                unindexText(id);
+                for (Subtask subtask : removedEpic.getSubtasks()) {
+                    deleteSubtask(subtask.getId());
+                }
+                events.publish(TaskEvent.Kind.DELETED, removedEpic, changed());
+            }
+        } finally {
+            lock.unlock();
+        }
+        removeFromHistory(id);
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return getSnapshot().getEpics();
+    }
+
+    // Методы для подзадач
+
+    @Override
+    public Subtask addSubtask(Subtask subtask) {
+        if (subtask == null) {
+            return null;
+        }
+
+        ReentrantLock lock = epicLock(subtask.getEpicId());
+        lock.lock();
+        try {
+            Epic epic = epics.get(subtask.getEpicId());
+            if (epic == null) {
+                throw new IllegalArgumentException("Epic with ID " + subtask.getEpicId() + " does not exist");
+            }
+
+            timeLock.writeLock().lock();
+            try {
+                if (subtask.getStartTime() != null && isTaskOverlapping(subtask)) {
+                    throw new IllegalArgumentException("Task time overlaps with existing task");
+                }
+                subtask.setId(idAllocator.nextLocal());
+                subtasks.put(subtask.getId(), subtask);
+                timeIndex.put(subtask);
+                indexStatus(subtask);
+                indexText(subtask);
+            } finally {
+                timeLock.writeLock().unlock();
+            }
+
+            epic.addSubtask(subtask);
+            updateEpicStatus(epic);
+            long changeVersion = changed();
+            events.publish(TaskEvent.Kind.ADDED, subtask, changeVersion);
+            publishEpic(TaskEvent.Kind.EPIC_ROLLED_UP, epic, changeVersion);
+        } finally {
+            lock.unlock();
+        }
+        return subtask;
+    }
+
+    @Override
+    public ImportReport addAll(Collection<? extends Task> batch) {
+        // Блокировки эпиков берутся по возрастанию номера, чтобы два пакета не ждали друг друга
+        TreeSet<Integer> stripes = new TreeSet<>();
+        for (int epicId : BatchImport.referencedEpicIds(batch)) {
+            stripes.add(Math.floorMod(epicId, EPIC_LOCK_STRIPES));
+        }
+        for (int stripe : stripes) {
+            epicLocks[stripe].lock();
+        }
+        try {
+            timeLock.writeLock().lock();
+            try {
+                BatchImport plan = BatchImport.plan(batch, epics::containsKey, this::isTaskOverlapping);
+                if (!plan.isValid()) {
+                    return plan.report(0);
+                }
+
+                List<Task> items = plan.getItems();
+                int firstId = idAllocator.reserve(items.size());
+                Map<Integer, List<Subtask>> subtasksByEpic = new HashMap<>();
+                // Новые эпики не закрыты блокировками пакета: читатели увидят их уже с подзадачами
+                Map<Integer, Epic> addedEpics = new HashMap<>();
+                for (int i = 0; i < items.size(); i++) {
+                    Task task = items.get(i);
+                    task.setId(firstId + i);
+                    indexStatus(task);
+                    indexText(task);
+                    switch (task.getType()) {
+                        case EPIC:
+                            addedEpics.put(task.getId(), (Epic) task);
+                            break;
+                        case SUBTASK:
+                            Subtask subtask = (Subtask) task;
+                            subtasks.put(subtask.getId(), subtask);
+                            timeIndex.put(subtask);
+                            subtasksByEpic.computeIfAbsent(subtask.getEpicId(), id -> new ArrayList<>()).add(subtask);
+                            break;
+                        default:
+                            tasks.put(task.getId(), task);
+                            timeIndex.put(task);
+                    }
+                }
+
+                subtasksByEpic.forEach((epicId, added) -> {
+                    Epic epic = addedEpics.containsKey(epicId) ? addedEpics.get(epicId) : epics.get(epicId);
+                    epic.addSubtasks(added);
+                    updateEpicStatus(epic);
+                });
+                // Копии новых эпиков собираются, пока их не видят другие потоки: брать блокировку
+                // чужого эпика под блокировкой индекса времени нельзя
+                Map<Integer, Epic> addedViews = new HashMap<>();
+                addedEpics.forEach((epicId, epic) -> addedViews.put(epicId, copyOf(epic, epic.getSubtasks())));
+                epicViews.putAll(addedViews);
+                epics.putAll(addedEpics);
+                long changeVersion = changed();
+                if (events.isActive()) {
+                    for (Task task : items) {
+                        Task published = task.getType() == TaskType.EPIC ? addedViews.get(task.getId()) : task;
+                        events.publish(TaskEvent.Kind.ADDED, published, changeVersion);
+                    }
+                    for (int epicId : subtasksByEpic.keySet()) {
+                        if (addedViews.containsKey(epicId)) {
+                            events.publish(TaskEvent.Kind.EPIC_ROLLED_UP, addedViews.get(epicId), changeVersion);
+                        } else {
+                            publishEpic(TaskEvent.Kind.EPIC_ROLLED_UP, epics.get(epicId), changeVersion);
+                        }
+                    }
+                }
+                return plan.report(firstId);
+            } finally {
+                timeLock.writeLock().unlock();
+            }
+        } finally {
+            for (int stripe : stripes.descendingSet()) {
+                epicLocks[stripe].unlock();
+            }
+        }
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) {
+        Subtask subtask = subtasks.get(id);
+        if (subtask != null) {
+            addToHistory(subtask);
+        }
+        return subtask;
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        ReentrantLock lock = epicLock(subtask.getEpicId());
+        lock.lock();
+        try {
+            timeLock.writeLock().lock();
+            try {
+                if (isTaskOverlapping(subtask)) {
+                    throw new IllegalArgumentException("Подзадача перекрывается с существующей задачей.");
+                }
+                subtasks.put(subtask.getId(), subtask);
+                timeIndex.put(subtask);
+                indexStatus(subtask);
+                indexText(subtask);
+            } finally {
+                timeLock.writeLock().unlock();
+            }
+
+            Epic epic = epics.get(subtask.getEpicId());
+            if (epic != null) {
+                epic.updateSubtask(subtask);
+                updateEpicStatus(epic);
+            }
+            long changeVersion = changed();
+            events.publish(TaskEvent.Kind.UPDATED, subtask, changeVersion);
+            if (epic != null) {
+                publishEpic(TaskEvent.Kind.EPIC_ROLLED_UP, epic, changeVersion);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteSubtask(int id) {
+        Subtask subtask = subtasks.get(id);
+        if (subtask == null) {
+            return;
+        }
+
+        ReentrantLock lock = epicLock(subtask.getEpicId());
+        lock.lock();
+        try {
+            timeLock.writeLock().lock();
+            try {
+                if (subtasks.remove(id) == null) {
+                    return; // Уже удалена другим потоком
+                }
+                timeIndex.remove(id);
+                unindexStatus(id, TaskType.SUBTASK);
+                unindexText(id);
+            } finally {
+                timeLock.writeLock().unlock();
+            }
+
+            Epic epic = epics.get(subtask.getEpicId());
+            if (epic != null) {
+                epic.removeSubtask(id);
+                updateEpicStatus(epic);
+            }
+            long changeVersion = changed();
+            events.publish(TaskEvent.Kind.DELETED, subtask, changeVersion);
+            if (epic != null) {
+                publishEpic(TaskEvent.Kind.EPIC_ROLLED_UP, epic, changeVersion);
+            }
+        } finally {
+            lock.unlock();
+        }
+        removeFromHistory(id);
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return getSnapshot().getSubtasks();
+    }
+
+    // Из копии эпика: её список подзадач не меняется, блокировка нужна только при сборке копии
+    @Override
+    public List<Subtask> getSubtasksByEpicId(int epicId) {
+        Epic view = epicView(epicId);
+        return view != null ? view.getSubtasks() : Collections.emptyList();
+    }
+
+    // Вызывается под блокировкой эпика после изменения его подзадач; прежняя копия для читателей устарела
+    private void updateEpicStatus(Epic epic) {
+        epic.setStatus(epic.calculateStatus());
+        indexStatus(epic);
+        epicViews.remove(epic.getId());
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        synchronized (historyManager) {
+            return historyManager.getHistory();
+        }
+    }
+
+    @Override
+    public void clearTasks() {
+        timeLock.writeLock().lock();
+        try {
+            for (int id : tasks.keySet()) {
+                timeIndex.remove(id);
+                unindexStatus(id, TaskType.TASK);
+                unindexText(id);
+            }
+            tasks.clear();
+            events.publishCleared(TaskType.TASK, changed());
+        } finally {
+            timeLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clearEpics() {
+        for (Integer epicId : epics.keySet()) {
+            deleteEpic(epicId);
+        }
+    }
+
+    @Override
+    public void clearSubtasks() {
+        for (Epic epic : epics.values()) {
+            ReentrantLock lock = epicLock(epic.getId());
+            lock.lock();
+            try {
+                List<Subtask> removed = epic.getSubtasks();
+                timeLock.writeLock().lock();
+                try {
+                    for (Subtask subtask : removed) {
+                        subtasks.remove(subtask.getId());
+                        timeIndex.remove(subtask.getId());
+                        unindexStatus(subtask.getId(), TaskType.SUBTASK);
+                        unindexText(subtask.getId());
+                    }
+                } finally {
+                    timeLock.writeLock().unlock();
+                }
+                epic.clearSubtasks();
+                updateEpicStatus(epic);
+                // Другие эпики в это время могут меняться, поэтому вместо CLEARED — удаления по одной
+                long changeVersion = changed();
+                for (Subtask subtask : removed) {
+                    events.publish(TaskEvent.Kind.DELETED, subtask, changeVersion);
+                }
+                publishEpic(TaskEvent.Kind.EPIC_ROLLED_UP, epic, changeVersion);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(TaskStatus status, TaskType type) {
+        if (status == null || type == null) {
+            throw new IllegalArgumentException("Status and type cannot be null");
+        }
+        int[] ids;
+        synchronized (statusIndex) {
+            ids = statusIndex.ids(status, type);
+        }
+        List<Task> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Task task = type == TaskType.EPIC ? epicView(id) : type == TaskType.SUBTASK ? subtasks.get(id)
+                    : tasks.get(id);
+            if (task != null) { // Могла быть удалена после чтения индекса
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        if (query == null) {
+            throw new IllegalArgumentException("Query cannot be null");
+        }
+        int[] ids;
+        searchLock.readLock().lock();
+        try {
+            ids = searchIndex.search(query, limit);
+        } finally {
+            searchLock.readLock().unlock();
+        }
+        return findAll(ids);
+    }
+
+    @Override
+    public void addDependency(int blockerId, int blockedId) {
+        synchronized (dependencies) {
+            dependencies.addEdge(blockerId, blockedId);
+        }
+        events.publishDependency(TaskEvent.Kind.DEPENDENCY_ADDED, blockerId, findTaskOrSubtask(blockedId), changed());
+    }
+
+    @Override
+    public void removeDependency(int blockerId, int blockedId) {
+        boolean removed;
+        synchronized (dependencies) {
+            removed = dependencies.removeEdge(blockerId, blockedId);
+        }
+        if (removed) {
+            events.publishDependency(TaskEvent.Kind.DEPENDENCY_REMOVED, blockerId, findTaskOrSubtask(blockedId),
+                    changed());
+        }
+    }
+
+    @Override
+    public List<Task> getBlockers(int id) {
+        int[] ids;
+        synchronized (dependencies) {
+            ids = dependencies.blockers(id);
+        }
+        return findAll(ids);
+    }
+
+    @Override
+    public List<Task> getReadyTasks() {
+        int[] ids;
+        synchronized (dependencies) {
+            ids = dependencies.ready();
+        }
+        return findAll(ids);
+    }
+
+    // Задачи любого типа по id из индекса; удалённые после чтения индекса пропускаются
+    private List<Task> findAll(int[] ids) {
+        List<Task> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Task task = tasks.get(id);
+            if (task == null) {
+                task = epicView(id);
+            }
+            if (task == null) {
+                task = subtasks.get(id);
+            }
+            if (task != null) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public long getVersion() {
+        return version.get();
+    }
+
+    // Читатели не блокируются: срез перестраивается при первом чтении после изменения.
+    // Номер снимается до копирования, поэтому срез, собранный во время записи, сразу считается устаревшим
+    @Override
+    public TaskSnapshot getSnapshot() {
+        TaskSnapshot current = snapshot;
+        long currentVersion = version.get();
+        if (current == null || current.getVersion() != currentVersion) {
+            List<Epic> epicList = new ArrayList<>(epics.size());
+            for (int id : epics.keySet()) {
+                Epic view = epicView(id);
+                if (view != null) { // Мог быть удалён во время сборки
+                    epicList.add(view);
+                }
+            }
+            current = new TaskSnapshot(currentVersion, new ArrayList<>(tasks.values()), epicList,
+                    new ArrayList<>(subtasks.values()));
+            snapshot = current;
+        }
+        return current;
+    }
+
+    // Вызывается после изменения коллекций, чтобы срез со старым номером не мог скрыть запись.
+    // Возвращает номер внесённого изменения
+    private long changed() {
+        return version.incrementAndGet();
+    }
+
+    private Task findTaskOrSubtask(int id) {
+        Task task = tasks.get(id);
+        return task != null ? task : subtasks.get(id);
+    }
+
+    @Override
+    public void addListener(TaskEvent.Listener listener) {
+        events.addListener(listener);
+    }
+
+    @Override
+    public void removeListener(TaskEvent.Listener listener) {
+        events.removeListener(listener);
+    }
+
+    @Override
+    public void addBatchListener(TaskEvent.BatchListener listener) {
+        events.addBatchListener(listener);
+    }
+
+    @Override
+    public void removeBatchListener(TaskEvent.BatchListener listener) {
+        events.removeBatchListener(listener);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        timeLock.readLock().lock();
+        try {
+            List<Task> result = new ArrayList<>(timeIndex.size());
+            timeIndex.forEachInOrder(id -> {
+                Task task = tasks.get(id);
+                result.add(task != null ? task : subtasks.get(id));
+            });
+            return result;
+        } finally {
+            timeLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getTasksInWindow(LocalDateTime from, LocalDateTime to) {
+        TimeIndex.checkWindow(from, to);
+        List<Task> result = new ArrayList<>();
+        timeLock.readLock().lock();
+        try {
+            timeIndex.forEachIntersecting(from, to, id -> {
+                Task task = tasks.get(id);
+                result.add(task != null ? task : subtasks.get(id));
+            });
+        } finally {
+            timeLock.readLock().unlock();
+        }
+        return result;
+    }
+
+    @Override
+    public TimeSlot findNextFreeSlot(Duration duration, LocalDateTime notBefore) {
+        timeLock.readLock().lock();
+        try {
+            LocalDateTime start = timeIndex.nextFreeStart(notBefore, duration);
+            return new TimeSlot(start, start.plus(duration));
+        } finally {
+            timeLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(LocalDateTime from, LocalDateTime to, Duration minDuration) {
+        timeLock.readLock().lock();
+        try {
+            return timeIndex.freeSlots(from, to, minDuration);
+        } finally {
+            timeLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Page<Task> getTasksPage(String after, int limit) {
+        return pageById(tasks, after, limit);
+    }
+
+    @Override
+    public Page<Epic> getEpicsPage(String after, int limit) {
+        Page<Epic> page = pageById(epics, after, limit);
+        List<Epic> views = new ArrayList<>(page.getItems().size());
+        for (Epic epic : page.getItems()) {
+            Epic view = epicView(epic.getId());
+            views.add(view != null ? view : epic);
+        }
+        return new Page<>(views, page.getNextCursor());
+    }
+
+    @Override
+    public Page<Subtask> getSubtasksPage(String after, int limit) {
+        return pageById(subtasks, after, limit);
+    }
+
+    // Без блокировок: итератор tailMap видит вставки, сделанные во время чтения, но не ломается от них
+    private <T extends Task> Page<T> pageById(ConcurrentNavigableMap<Integer, T> source, String after, int limit) {
+        Page.checkLimit(limit);
+        List<T> items = new ArrayList<>();
+        Iterator<T> iterator = source.tailMap(Page.parseIdCursor(after), false).values().iterator();
+        while (items.size() < limit && iterator.hasNext()) {
+            items.add(iterator.next());
+        }
+        String next = iterator.hasNext() ? String.valueOf(items.get(items.size() - 1).getId()) : null;
+        return new Page<>(items, next);
+    }
+
+    @Override
+    public Page<Task> getPrioritizedPage(String after, int limit) {
+        Page.checkLimit(limit);
+        List<Task> items = new ArrayList<>();
+        timeLock.readLock().lock();
+        try {
+            timeIndex.forEachAfter(Page.parseTimeCursorStart(after), Page.parseTimeCursorId(after),
+                    limit == Integer.MAX_VALUE ? limit : limit + 1, id -> {
+                        Task task = tasks.get(id);
+                        items.add(task != null ? task : subtasks.get(id));
+                    });
+        } finally {
+            timeLock.readLock().unlock();
+        }
+        if (items.size() <= limit) {
+            return new Page<>(items, null);
+        }
+        items.remove(limit);
+        return new Page<>(items, Page.timeCursor(items.get(limit - 1)));
+    }
+
+    @Override
+    public void validateTaskTime(Task task) throws IllegalArgumentException {
+        timeLock.readLock().lock();
+        try {
+            if (isTaskOverlapping(task)) {
+                throw new IllegalArgumentException("Task time overlaps with existing task");
+            }
+        } finally {
+            timeLock.readLock().unlock();
+        }
+    }
+}
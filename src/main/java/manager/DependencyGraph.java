@@ -0,0 +1,234 @@
+package manager;
+
+import util.IntHashSet;
+import util.IntObjectHashMap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+
+// Граф зависимостей «blocker → blocked» между задачами и подзадачами.
+// Топологический порядок поддерживается инкрементально (алгоритм Пирса — Келли): у каждого узла
+// есть номер, и у блокирующего он меньше, чем у заблокированного. Ребро, согласованное с порядком,
+// добавляется за O(1); иначе обходятся только узлы с номерами между концами ребра, и там же
+// находится цикл. Готовые — невыполненные узлы, у которых все блокирующие выполнены; их множество
+// обновляется при каждом изменении статуса, а не пересчитывается при чтении
+class DependencyGraph {
+    private final IntObjectHashMap<Node> nodes = new IntObjectHashMap<>();
+    private final IntHashSet ready = new IntHashSet();
+    private int[] readyView; // Отсортированная копия ready, сбрасывается при изменении
+    private int nextOrder;
+
+    // Добавляет узел или обновляет его статус
+    void put(int id, boolean done) {
+        Node node = nodes.get(id);
+        if (node == null) {
+            node = new Node(id, nextOrder++);
+            node.done = done;
+            nodes.put(id, node);
+            updateReady(node);
+            return;
+        }
+        if (node.done == done) {
+            return;
+        }
+        node.done = done;
+        updateReady(node);
+        if (node.dependents != null) {
+            int delta = done ? -1 : 1;
+            node.dependents.forEach(dependentId -> {
+                Node dependent = nodes.get(dependentId);
+                dependent.pending += delta;
+                updateReady(dependent);
+            });
+        }
+    }
+
+    // Удаляет узел вместе с его рёбрами; удалённый блокирующий больше никого не держит
+    void remove(int id) {
+        Node node = nodes.remove(id);
+        if (node == null) {
+            return;
+        }
+        if (node.blockers != null) {
+            node.blockers.forEach(blockerId -> nodes.get(blockerId).dependents.remove(id));
+        }
+        if (node.dependents != null) {
+            node.dependents.forEach(dependentId -> {
+                Node dependent = nodes.get(dependentId);
+                dependent.blockers.remove(id);
+                if (!node.done) {
+                    dependent.pending--;
+                    updateReady(dependent);
+                }
+            });
+        }
+        if (ready.remove(id)) {
+            readyView = null;
+        }
+    }
+
+    // Добавляет ребро; повторное добавление ничего не меняет
+    void addEdge(int blockerId, int blockedId) {
+        if (blockerId == blockedId) {
+            throw new IllegalArgumentException("Task cannot block itself: " + blockerId);
+        }
+        Node blocker = existing(blockerId);
+        Node blocked = existing(blockedId);
+        if (blocker.dependents != null && blocker.dependents.contains(blockedId)) {
+            return;
+        }
+        if (blocker.order > blocked.order) {
+            reorder(blocker, blocked);
+        }
+        if (blocker.dependents == null) {
+            blocker.dependents = new IntHashSet(4);
+        }
+        if (blocked.blockers == null) {
+            blocked.blockers = new IntHashSet(4);
+        }
+        blocker.dependents.add(blockedId);
+        blocked.blockers.add(blockerId);
+        if (!blocker.done) {
+            blocked.pending++;
+            updateReady(blocked);
+        }
+    }
+
+    boolean removeEdge(int blockerId, int blockedId) {
+        Node blocker = nodes.get(blockerId);
+        Node blocked = nodes.get(blockedId);
+        if (blocker == null || blocked == null || blocker.dependents == null
+                || !blocker.dependents.remove(blockedId)) {
+            return false;
+        }
+        blocked.blockers.remove(blockerId);
+        if (!blocker.done) {
+            blocked.pending--;
+            updateReady(blocked);
+        }
+        return true;
+    }
+
+    // Id блокирующих узла по возрастанию
+    int[] blockers(int id) {
+        Node node = existing(id);
+        if (node.blockers == null) {
+            return new int[0];
+        }
+        int[] result = node.blockers.toArray();
+        Arrays.sort(result);
+        return result;
+    }
+
+    // Id готовых узлов по возрастанию; один и тот же массив до следующего изменения, менять его нельзя
+    int[] ready() {
+        if (readyView == null) {
+            readyView = ready.toArray();
+            Arrays.sort(readyView);
+        }
+        return readyView;
+    }
+
+    // Номер узла в топологическом порядке: блокирующий всегда меньше заблокированного
+    int order(int id) {
+        return existing(id).order;
+    }
+
+    private Node existing(int id) {
+        Node node = nodes.get(id);
+        if (node == null) {
+            throw new IllegalArgumentException("Task or subtask with id " + id + " not found");
+        }
+        return node;
+    }
+
+    private void updateReady(Node node) {
+        boolean changed = !node.done && node.pending == 0 ? ready.add(node.id) : ready.remove(node.id);
+        if (changed) {
+            readyView = null;
+        }
+    }
+
+    // Ребро blocker → blocked противоречит порядку. Узлы, достижимые из blocked с номерами меньше
+    // номера blocker, и узлы, из которых достижим blocker, с номерами больше номера blocked, меняются
+    // местами: первые получают большие из их общих номеров. Если из blocked достижим blocker — это цикл
+    private void reorder(Node blocker, Node blocked) {
+        List<Node> forward = new ArrayList<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        IntHashSet seen = new IntHashSet();
+        stack.push(blocked);
+        seen.add(blocked.id);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            forward.add(node);
+            if (node.dependents == null) {
+                continue;
+            }
+            for (int dependentId : node.dependents.toArray()) {
+                Node dependent = nodes.get(dependentId);
+                if (dependent == blocker) {
+                    throw new IllegalArgumentException("Dependency " + blocker.id + " -> " + blocked.id
+                            + " would create a cycle");
+                }
+                if (dependent.order < blocker.order && seen.add(dependentId)) {
+                    stack.push(dependent);
+                }
+            }
+        }
+
+        List<Node> backward = new ArrayList<>();
+        stack.push(blocker);
+        seen.add(blocker.id);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            backward.add(node);
+            if (node.blockers == null) {
+                continue;
+            }
+            for (int blockerId : node.blockers.toArray()) {
+                Node previous = nodes.get(blockerId);
+                if (previous.order > blocked.order && seen.add(blockerId)) {
+                    stack.push(previous);
+                }
+            }
+        }
+
+        Comparator<Node> byOrder = Comparator.comparingInt(node -> node.order);
+        forward.sort(byOrder);
+        backward.sort(byOrder);
+        int[] orders = new int[forward.size() + backward.size()];
+        int index = 0;
+        for (Node node : backward) {
+            orders[index++] = node.order;
+        }
+        for (Node node : forward) {
+            orders[index++] = node.order;
+        }
+        Arrays.sort(orders);
+        index = 0;
+        for (Node node : backward) {
+            node.order = orders[index++];
+        }
+        for (Node node : forward) {
+            node.order = orders[index++];
+        }
+    }
+
+    private static class Node {
+        private final int id;
+        private int order;
+        private boolean done;
+        private int pending; // Невыполненные блокирующие
+        private IntHashSet blockers; // null, пока рёбер нет
+        private IntHashSet dependents;
+
+        Node(int id, int order) {
+            this.id = id;
+            this.order = order;
+        }
+    }
+}
@@ -4,139 +4,351 @@ import task.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+
+// Без наследников: конструкторы восстанавливают задачи через методы InMemoryTaskManager
+public final class FileBackedTaskManager extends InMemoryTaskManager implements AutoCloseable {
+    private static final String NEXT_ID_PREFIX = "#nextId="; // Последняя строка файла: первый невыданный id
+    private static final String DEPENDENCY_PREFIX = "#dep="; // Зависимость: id блокирующей и заблокированной
+    private static final int CHECKPOINT_MIN_RECORDS = 10_000;
+
+    // Когда записи журнала сбрасываются на диск
+    public enum Durability {
+        EVERY_WRITE, // fsync после каждой записи
+        PERIODIC,    // fsync в фоне раз в секунду: при сбое системы теряется не больше секунды изменений
+        OS_BUFFERED  // Без fsync: запись переживает падение процесса, но не сбой системы
+    }
+
+    // Формат файла задач. Читаются оба: формат определяется по первым байтам файла
+    public enum SnapshotFormat {
+        CSV,   // Текст: строка на сущность
+        BINARY // Компактный двоичный формат с контрольными суммами, быстрее при запуске (см. SnapshotCodec)
+    }
+
+    // Когда изменение в режиме журнала считается принятым
+    public enum Acknowledgement {
+        QUEUED,  // Сразу после передачи журналу; на диск запись попадёт по правилам Durability
+        DURABLE  // После сброса записи на диск; при отложенной записи изменения делят один fsync на группу
+    }
 
-public class FileBackedTaskManager extends InMemoryTaskManager {
     private final File file;
+    private final WriteAheadLog log; // null — файл задач переписывается целиком после каждого изменения
+    private final Acknowledgement acknowledgement;
+    private final SnapshotFormat format; // В каком формате файл задач переписывается
 
     public FileBackedTaskManager(File file) {
+        this(file, SnapshotFormat.CSV);
+    }
+
+    // Файл задач переписывается целиком после каждого изменения в формате format
+    public FileBackedTaskManager(File file, SnapshotFormat format) {
+        if (format == null) {
+            throw new IllegalArgumentException("Snapshot format cannot be null");
+        }
         this.file = file;
+        this.log = null;
+        this.acknowledgement = Acknowledgement.DURABLE;
+        this.format = format;
         loadFromFile(); // Загружать существующие задачи из файла при создании
+        addChangeListener(this::save); // Файл переписывается один раз на изменение, после всех его событий
     }
 
-    protected void loadFromFile() {
-        try {
-            if (file.exists() && Files.size(file.toPath()) > 0) { // Проверьте, есть ли файл и не является ли он пустым
-                List<String> lines = Files.readAllLines(file.toPath());
-                Map<Integer, Task> tempTaskMap = new HashMap<>();
-
-                for (String line : lines.subList(1, lines.size())) { //Пропустить заголовок
-                    if (!line.isEmpty()) {
-                        Task task = fromString(line);
-                        tempTaskMap.put(task.getId(), task); // Сохранить в мапу
-                    }
-                }
-                // Добавляйте задачи только в том случае, если они еще не существуют
-                for (Task task : tempTaskMap.values()) {
-                    if (task.getType() == TaskType.EPIC) {
-                        addEpic((Epic) task);
-                    } else if (task.getType() == TaskType.SUBTASK) {
-                        addSubtask((Subtask) task);
-                    } else {
-                        addTask(task);
-                    }
-                }
+    // Режим журнала: каждое изменение дописывается одной строкой в файл <file>.wal, а файл задач
+    // переписывается только в контрольной точке, когда журнал становится длиннее самого файла.
+    // При запуске читается файл задач и повторяются записи журнала после него. Контрольные точки пишут
+    // файл задач в том формате, в котором он уже записан (новый файл — CSV)
+    public FileBackedTaskManager(File file, Durability durability) {
+        this(file, durability, Duration.ZERO, 0, Acknowledgement.QUEUED);
+    }
+
+    // Режим журнала с отложенной записью: изменение не ждёт диска, а встаёт в очередь на queueCapacity
+    // записей; фоновый писатель сбрасывает всё, что пришло за commitWindow, одной записью. Когда очередь
+    // полна, изменения ждут места в ней. queueCapacity 0 — записи пишутся сразу в потоке изменения
+    public FileBackedTaskManager(File file, Durability durability, Duration commitWindow, int queueCapacity,
+                                 Acknowledgement acknowledgement) {
+        if (durability == null || acknowledgement == null) {
+            throw new IllegalArgumentException("Durability and acknowledgement cannot be null");
+        }
+        if (commitWindow == null || commitWindow.isNegative()) {
+            throw new IllegalArgumentException("Commit window must not be negative");
+        }
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("Queue capacity must not be negative: " + queueCapacity);
+        }
+        this.file = file;
+        this.acknowledgement = acknowledgement;
+        byte[] content = readFile();
+        this.format = content != null && SnapshotCodec.isBinary(content) ? SnapshotFormat.BINARY : SnapshotFormat.CSV;
+        long generation = 0;
+        if (content != null) {
+            StoredBoard board = parse(content);
+            restoreBoard(board);
+            generation = board.generation;
+        }
+        this.log = WriteAheadLog.open(logPath(file), durability, generation, commitWindow, queueCapacity);
+        for (String record : log.takeRecovered()) {
+            replay(record);
+        }
+        addListener(this::append); // Каждое событие — запись журнала
+        addChangeListener(this::save); // Контрольная точка и сброс на диск — в конце изменения
+    }
+
+    static Path logPath(File file) {
+        return file.toPath().resolveSibling(file.getName() + ".wal");
+    }
 
-                updateNextTaskId(); // Проверяем на корректность следующий ID
+    // Содержимое файла задач; null, если файла нет или он пуст
+    private byte[] readFile() {
+        try {
+            if (!file.exists() || Files.size(file.toPath()) == 0) {
+                return null;
             }
+            return Files.readAllBytes(file.toPath());
         } catch (IOException e) {
             throw new ManagerSaveException("Error loading tasks", e);
         }
     }
 
-    private void updateNextTaskId() {
+    // Файл задач в любом из форматов
+    static StoredBoard parse(byte[] content) {
+        if (SnapshotCodec.isBinary(content)) {
+            return SnapshotCodec.decode(content);
+        }
+        return parseCsv(new String(content, StandardCharsets.UTF_8).lines().collect(Collectors.toList()));
     }
-    // Другие методы остаются неизменными...
 
-    @Override
-    public Task addTask(Task task) {
-        Task addedTask = super.addTask(task);
-        save(); // Сохранить состояние после добавления
-        return addedTask;
+    private static StoredBoard parseCsv(List<String> lines) {
+        StoredBoard board = new StoredBoard(lines.size());
+        for (String line : lines.subList(Math.min(1, lines.size()), lines.size())) { // Пропустить заголовок
+            if (line.startsWith(NEXT_ID_PREFIX)) {
+                board.nextId = Integer.parseInt(line.substring(NEXT_ID_PREFIX.length()));
+            } else if (line.startsWith(WriteAheadLog.GENERATION_PREFIX)) {
+                board.generation = Long.parseLong(line.substring(WriteAheadLog.GENERATION_PREFIX.length()));
+            } else if (line.startsWith(DEPENDENCY_PREFIX)) {
+                String[] ids = line.substring(DEPENDENCY_PREFIX.length()).split(",");
+                board.addDependency(Integer.parseInt(ids[0]), Integer.parseInt(ids[1]));
+            } else if (!line.isEmpty()) {
+                board.entities.add(fromString(line));
+            }
+        }
+        return board;
     }
 
-    @Override
-    public Epic addEpic(Epic epic) {
-        Epic addedEpic = super.addEpic(epic);
-        save(); // Сохранить состояние после добавления
-        return addedEpic;
+    // Сущности с сохранёнными id одним пакетом: без проверки пересечений, событий и save()
+    private void restoreBoard(StoredBoard board) {
+        restoreAll(board.entities);
+        for (int i = 0; i < board.dependencies.size(); i += 2) {
+            restoreDependency(board.dependencies.get(i), board.dependencies.get(i + 1));
+        }
+        updateNextTaskId(board.nextId);
     }
 
-    @Override
-    public Subtask addSubtask(Subtask subtask) {
-        Subtask addedSubtask = super.addSubtask(subtask);
-        save(); // Сохранить состояние после добавления
-        return addedSubtask;
+    // Запись журнала: U — сущность целиком (добавление или изменение), D — удаление по id,
+    // C — очистка типа, B и R — добавление и удаление зависимости
+    private void append(TaskEvent event) {
+        switch (event.getKind()) {
+            case ADDED:
+            case UPDATED:
+                log.append("U," + toString(event.getTask()));
+                break;
+            case DELETED:
+                log.append("D," + event.getId());
+                break;
+            case CLEARED:
+                log.append("C," + event.getType());
+                break;
+            case DEPENDENCY_ADDED:
+                log.append("B," + event.getBlockerId() + "," + event.getId());
+                break;
+            case DEPENDENCY_REMOVED:
+                log.append("R," + event.getBlockerId() + "," + event.getId());
+                break;
+            default:
+                break; // Пересчёт эпика при повторе записей выполняется сам
+        }
     }
 
-    @Override
-    public void updateTask(Task task) {
-        super.updateTask(task);
-        save(); // Сохранить состояние после обновления
+    private void replay(String record) {
+        String body = record.substring(2);
+        switch (record.charAt(0)) {
+            case 'U':
+                restore(fromString(body));
+                break;
+            case 'D':
+                int id = Integer.parseInt(body);
+                if (tasks.containsKey(id)) {
+                    deleteTask(id);
+                } else if (epics.containsKey(id)) {
+                    deleteEpic(id);
+                } else {
+                    deleteSubtask(id);
+                }
+                break;
+            case 'C':
+                switch (TaskType.valueOf(body)) {
+                    case TASK:
+                        clearTasks();
+                        break;
+                    case EPIC:
+                        clearEpics();
+                        break;
+                    default:
+                        clearSubtasks();
+                }
+                break;
+            case 'B':
+            case 'R':
+                String[] ids = body.split(",");
+                if (record.charAt(0) == 'B') {
+                    restoreDependency(Integer.parseInt(ids[0]), Integer.parseInt(ids[1]));
+                } else {
+                    removeDependency(Integer.parseInt(ids[0]), Integer.parseInt(ids[1]));
+                }
+                break;
+            default:
+                throw new ManagerSaveException("Unknown write-ahead log record: " + record);
+        }
     }
 
-    @Override
-    public void updateEpic(Epic epic) {
-        super.updateEpic(epic);
-        save(); // Сохранить состояние после обновления
+    // Загрузка ничего не пишет на диск: файл уже содержит то, что в нём восстановлено
+    protected void loadFromFile() {
+        byte[] content = readFile(); // Проверьте, есть ли файл и не является ли он пустым
+        if (content != null) {
+            restoreBoard(parse(content));
+        }
     }
 
-    @Override
-    public void updateSubtask(Subtask subtask) {
-        super.updateSubtask(subtask);
-        save(); // Сохранить состояние после обновления
+    // Сохранённая отметка следующего id учитывает и удалённые задачи,
+    // поэтому их id не будут выданы повторно; перебирать записи для этого не нужно
+    private void updateNextTaskId(int persistedNextId) {
+        idAllocator.advanceTo(persistedNextId - 1);
     }
 
-    @Override
-    public void deleteTask(int id) {
-        super.deleteTask(id);
-        save(); // Сохранить состояние после удаления
+    // Метод сохранения всех задач, эпопей и подзадач в файл. Вызывается в конце каждого изменения
+    protected void save() {
+        if (log != null) {
+            // Изменение уже в журнале; файл задач переписывается, только когда журнал его перерос
+            int entities = tasks.size() + epics.size() + subtasks.size();
+            if (log.getRecords() >= Math.max(CHECKPOINT_MIN_RECORDS, entities)) {
+                checkpoint();
+            }
+            if (acknowledgement == Acknowledgement.DURABLE) {
+                log.flush();
+            }
+            return;
+        }
+        try {
+            Files.write(file.toPath(), encode(currentBoard(0)), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при сохранении задач", e);
+        }
     }
 
-    @Override
-    public void deleteEpic(int id) {
-        super.deleteEpic(id);
-        save(); // Сохранить состояние после удаления
+    // Контрольная точка режима журнала: содержимое файла задач следующего поколения собирается сразу,
+    // а пишется журналом (при отложенной записи — после всех прежних записей): рядом, со сбросом на диск
+    // и атомарной подменой прежнего файла, после чего журнал начинается заново. Если сбой случится между
+    // подменой и очисткой журнала, журнал прежнего поколения при запуске будет пропущен
+    public void checkpoint() {
+        if (log == null) {
+            save();
+            return;
+        }
+        long generation = log.getGeneration() + 1;
+        byte[] content = encode(currentBoard(generation));
+        log.checkpoint(generation, () -> replaceFile(file.toPath(), content));
     }
 
-    @Override
-    public void deleteSubtask(int id) {
-        super.deleteSubtask(id);
-        save(); // Сохранить состояние после удаления
+    // Запись рядом, сброс на диск и атомарная подмена: файл задач либо прежний, либо новый целиком
+    static void replaceFile(Path target, byte[] content) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
     }
 
-    // Метод сохранения всех задач, эпопей и подзадач в файл
-    protected void save() {
-        StringBuilder sb = new StringBuilder();
-        sb.append("id,type,name,status,description,duration,startTime,epic\n");
+    // Ждёт, пока все принятые изменения окажутся на диске; в прежнем режиме файл и так уже записан
+    public void flush() {
+        if (log != null) {
+            log.flush();
+        }
+    }
 
-        for (Epic epic : getAllEpics()) {
-            sb.append(toString(epic)).append("\n");
+    // Дописывает очередь и закрывает журнал, предварительно сбросив его на диск; в прежнем режиме ничего не делает
+    @Override
+    public void close() {
+        if (log != null) {
+            log.close();
         }
+    }
 
-        for (Subtask subtask : getAllSubtasks()) {
-            sb.append(toString(subtask)).append("\n");
+    private byte[] encode(StoredBoard board) {
+        if (format == SnapshotFormat.BINARY) {
+            return SnapshotCodec.encode(board);
         }
+        return toCsv(board).getBytes(StandardCharsets.UTF_8);
+    }
 
-        for (Task task : getAllTasks()) {
-            sb.append(toString(task)).append("\n");
+    // generation — поколение журнала, к которому относится файл; 0 — файл без журнала
+    private StoredBoard currentBoard(long generation) {
+        List<Epic> allEpics = getAllEpics();
+        List<Subtask> allSubtasks = getAllSubtasks();
+        List<Task> allTasks = getAllTasks();
+        StoredBoard board = new StoredBoard(allEpics.size() + allSubtasks.size() + allTasks.size());
+        board.entities.addAll(allEpics);
+        board.entities.addAll(allSubtasks);
+        board.entities.addAll(allTasks);
+        addDependencies(board, allSubtasks);
+        addDependencies(board, allTasks);
+        board.generation = generation;
+        board.nextId = idAllocator.peekNext();
+        return board;
+    }
+
+    private void addDependencies(StoredBoard board, List<? extends Task> blocked) {
+        for (Task task : blocked) {
+            for (Task blocker : getBlockers(task.getId())) {
+                board.addDependency(blocker.getId(), task.getId());
+            }
         }
+    }
 
-        try {
-            Files.writeString(file.toPath(), sb.toString(), StandardOpenOption.CREATE);
-        } catch (IOException e) {
-            throw new ManagerSaveException("Ошибка при сохранении задач", e);
+    static String toCsv(StoredBoard board) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("id,type,name,status,description,duration,startTime,epic\n");
+        for (Task task : board.entities) {
+            sb.append(toString(task)).append("\n");
+        }
+        for (int i = 0; i < board.dependencies.size(); i += 2) {
+            sb.append(DEPENDENCY_PREFIX).append(board.dependencies.get(i)).append(',')
+                    .append(board.dependencies.get(i + 1)).append("\n");
+        }
+        if (board.generation > 0) {
+            sb.append(WriteAheadLog.GENERATION_PREFIX).append(board.generation).append("\n");
         }
+        sb.append(NEXT_ID_PREFIX).append(board.nextId).append("\n");
+        return sb.toString();
     }
 
     // Преобразуйте задачу в строковое представление CSV
-    private String toString(Task task) {
+    private static String toString(Task task) {
         if (task.getType() == TaskType.SUBTASK) {
             return String.format("%d,%s,%s,%s,%s,%d,%s,%d", task.getId(), TaskType.SUBTASK,
                     task.getName(), task.getStatus(), task.getDescription(),
@@ -147,14 +359,31 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
                     task.getName(), task.getStatus(), task.getDescription(),
                     task.getDuration().toMinutes(), task.getStartTime());
         } else {
-            return String.format("%d,%s,%s,%s,%s,%d,%s,", task.getId(), TaskType.TASK,
+            String line = String.format("%d,%s,%s,%s,%s,%d,%s,", task.getId(), TaskType.TASK,
                     task.getName(), task.getStatus(), task.getDescription(),
                     task.getDuration().toMinutes(), task.getStartTime());
+            return task instanceof RecurringTask ? line + recurrenceToString((RecurringTask) task) : line;
         }
     }
 
+    // Правило серии после колонки эпика: шаг в минутах, конец серии и исключения вида "исходное>новое;исходное>"
+    // (пустое новое начало — вхождение пропущено)
+    private static String recurrenceToString(RecurringTask task) {
+        StringBuilder exceptions = new StringBuilder();
+        for (Map.Entry<LocalDateTime, LocalDateTime> exception : task.getExceptions().entrySet()) {
+            if (exceptions.length() > 0) {
+                exceptions.append(';');
+            }
+            exceptions.append(exception.getKey()).append('>');
+            if (exception.getValue() != null) {
+                exceptions.append(exception.getValue());
+            }
+        }
+        return String.format(",%d,%s,%s", task.getEvery().toMinutes(), task.getUntil(), exceptions);
+    }
+
     // Создайте экземпляр задачи из строки CSV
-    private Task fromString(String value) {
+    private static Task fromString(String value) {
         String[] parts = value.split(",");
         int id = Integer.parseInt(parts[0]);
         TaskType type = TaskType.valueOf(parts[1]);
@@ -169,6 +398,9 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
 
         switch (type) {
             case TASK:
+                if (parts.length > 8) {
+                    return recurringFromString(parts, id, name, description, status, duration, startTime);
+                }
                 Task task = new Task(name, description);
                 task.setId(id);
                 task.setStatus(status);
@@ -195,6 +427,26 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         }
     }
 
+    private static RecurringTask recurringFromString(String[] parts, int id, String name, String description,
+                                              TaskStatus status, Duration duration, LocalDateTime startTime) {
+        Duration every = Duration.ofMinutes(Long.parseLong(parts[8]));
+        LocalDateTime until = parts[9].equals("null") ? null : LocalDateTime.parse(parts[9]);
+        RecurringTask task = new RecurringTask(name, description, status, duration, startTime, every, until);
+        task.setId(id);
+        if (parts.length > 10) { // split отбрасывает пустую последнюю колонку, если исключений нет
+            for (String exception : parts[10].split(";")) {
+                int separator = exception.indexOf('>');
+                LocalDateTime occurrence = LocalDateTime.parse(exception.substring(0, separator));
+                if (separator == exception.length() - 1) {
+                    task.skipOccurrence(occurrence);
+                } else {
+                    task.moveOccurrence(occurrence, LocalDateTime.parse(exception.substring(separator + 1)));
+                }
+            }
+        }
+        return task;
+    }
+
     public static void main(String[] args) throws IOException {
         File tempFile = File.createTempFile("задачи", ".csv");
         tempFile.deleteOnExit(); // Убедитесь, что он будет удален после завершения работы программы
@@ -5,6 +5,8 @@ import com.sun.net.httpserver.HttpServer;
 import history.HistoryHandler;
 import task.EpicHandler;
 import task.PrioritizedHandler;
+import task.SearchHandler;
+import task.SlotsHandler;
 import task.SubtaskHandler;
 import task.TaskHandler;
 
@@ -64,6 +66,8 @@ public class HttpTaskServer {
         httpServer.createContext("/tasks/epic", new EpicHandler(taskManager));
         httpServer.createContext("/tasks/history", new HistoryHandler(taskManager));
         httpServer.createContext("/tasks/prioritized", new PrioritizedHandler(taskManager));
+        httpServer.createContext("/tasks/slots", new SlotsHandler(taskManager));
+        httpServer.createContext("/tasks/search", new SearchHandler(taskManager));
     }
 
     public void start() {
@@ -92,7 +96,7 @@ public class HttpTaskServer {
             }
 
             // Создаем и запускаем HttpTaskServer
-            TaskManager taskManager = Managers.getDefault();
+            TaskManager taskManager = Managers.getDefault(); // Повторяющиеся задачи и планировщик есть только здесь
             HttpTaskServer server = new HttpTaskServer(taskManager);
 
             // Добавляем shutdown hook для корректного завершения сервера
@@ -0,0 +1,59 @@
+package manager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Выдача идентификаторов задач. Общий счётчик хранит первый ещё не выданный id;
+// пакетные загрузчики резервируют сразу целый диапазон, а пишущие потоки
+// берут id из собственного блока и обращаются к счётчику раз в blockSize выдач
+public class IdAllocator {
+    private static final int DEFAULT_BLOCK_SIZE = 64;
+
+    private final AtomicInteger nextId;
+    private final int blockSize;
+    private final ThreadLocal<int[]> localBlock = ThreadLocal.withInitial(() -> new int[2]); // [next, end)
+
+    public IdAllocator() {
+        this(1, DEFAULT_BLOCK_SIZE);
+    }
+
+    public IdAllocator(int firstId, int blockSize) {
+        if (firstId < 1 || blockSize < 1) {
+            throw new IllegalArgumentException("First id and block size must be positive");
+        }
+        this.nextId = new AtomicInteger(firstId);
+        this.blockSize = blockSize;
+    }
+
+    // Следующий id по порядку из общего счётчика
+    public int next() {
+        return nextId.getAndIncrement();
+    }
+
+    // Следующий id из блока текущего потока; порядок id между потоками не гарантируется
+    public int nextLocal() {
+        int[] block = localBlock.get();
+        if (block[0] >= block[1]) {
+            block[0] = reserve(blockSize);
+            block[1] = block[0] + blockSize;
+        }
+        return block[0]++;
+    }
+
+    // Резервирует count идущих подряд id и возвращает первый из них
+    public int reserve(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count must not be negative: " + count);
+        }
+        return nextId.getAndAdd(count);
+    }
+
+    // Гарантирует, что id usedId и меньшие больше не будут выданы
+    public void advanceTo(int usedId) {
+        nextId.accumulateAndGet(usedId + 1, Math::max);
+    }
+
+    // Первый id, который ещё не выдавался; его сохраняют вместе с задачами
+    public int peekNext() {
+        return nextId.get();
+    }
+}
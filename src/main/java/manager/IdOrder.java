@@ -0,0 +1,45 @@
+package manager;
+
+import util.IntArrayList;
+
+// Id одного вида сущностей по возрастанию — основа курсоров постраничного чтения.
+// Новые id почти всегда больше прежних, поэтому добавление обычно сводится к записи в конец
+class IdOrder {
+    private final IntArrayList ids = new IntArrayList();
+
+    void add(int id) {
+        if (ids.isEmpty() || ids.get(ids.size() - 1) < id) {
+            ids.add(id);
+            return;
+        }
+        int position = ids.binarySearch(id);
+        if (position < 0) {
+            ids.insert(-position - 1, id);
+        }
+    }
+
+    void remove(int id) {
+        int position = ids.binarySearch(id);
+        if (position >= 0) {
+            ids.removeAt(position);
+        }
+    }
+
+    void clear() {
+        ids.clear();
+    }
+
+    int size() {
+        return ids.size();
+    }
+
+    int get(int position) {
+        return ids.get(position);
+    }
+
+    // Позиция первого id, большего afterId
+    int firstAfter(int afterId) {
+        int position = ids.binarySearch(afterId);
+        return position >= 0 ? position + 1 : -position - 1;
+    }
+}
@@ -0,0 +1,80 @@
+package manager;
+
+import task.Task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Результат пакетного импорта: по одной записи на каждый элемент входной коллекции, в том же порядке.
+// Импорт атомарный: если отклонён хотя бы один элемент, остальные помечаются NOT_APPLIED и не добавляются
+public class ImportReport {
+    public enum Outcome {
+        ACCEPTED,    // Элемент добавлен и получил id
+        REJECTED,    // Элемент не прошёл проверку, причина в reason
+        NOT_APPLIED  // Элемент корректен, но пакет отклонён из-за других элементов
+    }
+
+    public static class Item {
+        private final int index;
+        private final Task task;
+        private final Outcome outcome;
+        private final int id;
+        private final String reason;
+
+        Item(int index, Task task, Outcome outcome, int id, String reason) {
+            this.index = index;
+            this.task = task;
+            this.outcome = outcome;
+            this.id = id;
+            this.reason = reason;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public Task getTask() {
+            return task;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        // Выданный id; 0, если элемент не добавлен
+        public int getId() {
+            return id;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+    }
+
+    private final List<Item> items;
+    private final boolean accepted;
+
+    ImportReport(List<Item> items, boolean accepted) {
+        this.items = Collections.unmodifiableList(new ArrayList<>(items));
+        this.accepted = accepted;
+    }
+
+    public boolean isAccepted() {
+        return accepted;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public List<Item> getRejected() {
+        List<Item> rejected = new ArrayList<>();
+        for (Item item : items) {
+            if (item.outcome == Outcome.REJECTED) {
+                rejected.add(item);
+            }
+        }
+        return rejected;
+    }
+}
@@ -2,21 +2,51 @@ package manager;
 
 import history.HistoryManager;
 import task.Epic;
+import task.RecurringTask;
 import task.Subtask;
 import task.Task;
 import task.TaskStatus;
+import task.TaskType;
+import util.EpochNanos;
+import util.IntArrayList;
+import util.IntHashSet;
+import util.IntObjectHashMap;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
 
 public class InMemoryTaskManager implements TaskManager {
-    protected int nextTaskId = 1;
-    protected final Map<Integer, Task> tasks = new HashMap<>();
-    protected final Map<Integer, Epic> epics = new HashMap<>();
-    protected final Map<Integer, Subtask> subtasks = new HashMap<>();
+    protected final IdAllocator idAllocator = new IdAllocator();
+    protected final IntObjectHashMap<Task> tasks = new IntObjectHashMap<>();
+    protected final IntObjectHashMap<Epic> epics = new IntObjectHashMap<>();
+    protected final IntObjectHashMap<Subtask> subtasks = new IntObjectHashMap<>();
     private final HistoryManager historyManager = Managers.getDefaultHistory();
-    private final Set<Task> prioritizedTasks = new HashSet<>();
+    private final TimeIndex timeIndex = new TimeIndex();
+    private final RecurrenceIndex recurrences = new RecurrenceIndex(); // Повторяющиеся задачи, вне timeIndex
+    private final StatusIndex statusIndex = new StatusIndex();
+    private final SearchIndex searchIndex = new SearchIndex();
+    private final DependencyGraph dependencies = new DependencyGraph();
+    private final IdOrder taskOrder = new IdOrder();
+    private final IdOrder epicOrder = new IdOrder();
+    private final IdOrder subtaskOrder = new IdOrder();
+    private final SlotCalendar slotCalendar; // null — календарный индекс не используется
+    private final TaskEventBus events = new TaskEventBus();
+    private long version; // Номер последнего изменения
+    private TaskSnapshot snapshot; // Последний построенный срез, может отставать от version
+    private List<Task> readyTasks; // Последний список getReadyTasks и версия, для которой он собран
+    private long readyTasksVersion;
+
+    public InMemoryTaskManager() {
+        this.slotCalendar = null;
+    }
+
+    // Менеджер с календарным индексом: проверки пересечений для задач, выровненных по слотам,
+    // сводятся к нескольким битовым операциям
+    public InMemoryTaskManager(Duration slot) {
+        this.slotCalendar = new SlotCalendar(slot);
+    }
 
     // Проверьте, не перекрываются ли два временных интервала
     private boolean isOverlapping(LocalDateTime start1, LocalDateTime end1, LocalDateTime start2, LocalDateTime end2) {
@@ -25,24 +55,58 @@ public class InMemoryTaskManager implements TaskManager {
 
     // Проверьте, не пересекается ли новая задача с существующими задачами или подзадачами
     private boolean isTaskOverlapping(Task newTask) {
+        if (newTask instanceof RecurringTask) {
+            return isSeriesOverlapping(RecurrenceIndex.series((RecurringTask) newTask));
+        }
         if (newTask.getStartTime() == null || newTask.getDuration() == null) {
             return false;
         }
+        // Вхождения серий разворачиваются только в окне самой задачи
+        if (!recurrences.isEmpty()
+                && recurrences.overlaps(newTask.getStartNanos(), newTask.getEndNanos(), newTask.getId())) {
+            return true;
+        }
+
+        // Саму задачу исключаем, чтобы обновление не конфликтовало с её прежним интервалом
+        if (slotCalendar != null) {
+            int verdict = slotCalendar.check(newTask.getStartTime(), newTask.getDuration(), newTask.getId());
+            if (verdict != SlotCalendar.UNKNOWN) {
+                return verdict == SlotCalendar.CONFLICT;
+            }
+        }
+        return timeIndex.overlaps(newTask.getStartNanos(), newTask.getEndNanos(), newTask.getId());
+    }
 
-        LocalDateTime newStart = newTask.getStartTime();
-        LocalDateTime newEnd = newTask.getEndTime();
+    // Серия проверяется против других серий и против обычных задач, попадающих во время её действия.
+    // Перенесённое вхождение может лежать и вне [first, reach), поэтому каждое проверяется отдельно
+    private boolean isSeriesOverlapping(RecurrenceIndex.Series series) {
+        return recurrences.overlaps(series)
+                || timeIndex.anyIntersecting(series.first, series.reach(), series.id, series::overlaps)
+                || series.anyMoved(start -> timeIndex.overlaps(start, start + series.length, series.id));
+    }
 
-        return prioritizedTasks.stream()
-                .filter(task -> task.getId() != newTask.getId()) // Исключаем саму задачу при обновлении
-                .filter(task -> task.getStartTime() != null && task.getDuration() != null)
-                .anyMatch(existingTask -> {
-                    LocalDateTime existingStart = existingTask.getStartTime();
-                    LocalDateTime existingEnd = existingTask.getEndTime();
+    private void indexTime(Task task) {
+        if (task instanceof RecurringTask) {
+            timeIndex.remove(task.getId());
+            if (slotCalendar != null) {
+                slotCalendar.remove(task.getId());
+            }
+            recurrences.put(RecurrenceIndex.series((RecurringTask) task));
+            return;
+        }
+        recurrences.remove(task.getId());
+        timeIndex.put(task);
+        if (slotCalendar != null) {
+            slotCalendar.put(task);
+        }
+    }
 
-                    // Проверяем пересечение интервалов
-                    return !(newEnd.isEqual(existingStart) || newEnd.isBefore(existingStart) ||
-                            newStart.isEqual(existingEnd) || newStart.isAfter(existingEnd));
-                });
+    private void unindexTime(int id) {
+        timeIndex.remove(id);
+        recurrences.remove(id);
+        if (slotCalendar != null) {
+            slotCalendar.remove(id);
+        }
     }
 
     @Override
@@ -50,15 +114,20 @@ public class InMemoryTaskManager implements TaskManager {
         if (task == null) return null;
 
         // Проверяем пересечение только если у задачи есть время
-        if (task.getStartTime() != null && isTaskOverlapping(task)) {
+        if (isTaskOverlapping(task)) {
             throw new IllegalArgumentException("Task overlaps with existing task.");
         }
 
-        task.setId(nextTaskId++);
+        task.setId(idAllocator.next());
         tasks.put(task.getId(), task);
-        if (task.getStartTime() != null) {
-            prioritizedTasks.add(task);
-        }
+        taskOrder.add(task.getId());
+        indexTime(task);
+        statusIndex.put(task);
+        searchIndex.put(task);
+        dependencies.put(task.getId(), task.getStatus() == TaskStatus.DONE);
+        changed();
+        publish(TaskEvent.Kind.ADDED, task);
+        events.publishChangeEnd();
         return task;
     }
 
@@ -84,28 +153,41 @@ public class InMemoryTaskManager implements TaskManager {
         }
 
         // Проверяем пересечение по времени
-        if (task.getStartTime() != null && isTaskOverlapping(task)) {
+        if (isTaskOverlapping(task)) {
             throw new IllegalArgumentException("Task time overlaps with existing task");
         }
 
         tasks.put(task.getId(), task);
-        prioritizedTasks.remove(existingTask);
-        prioritizedTasks.add(task);
+        taskOrder.add(task.getId());
+        indexTime(task);
+        statusIndex.put(task);
+        searchIndex.put(task);
+        dependencies.put(task.getId(), task.getStatus() == TaskStatus.DONE);
+        changed();
+        publish(TaskEvent.Kind.UPDATED, task);
+        events.publishChangeEnd();
     }
 
     @Override
     public void deleteTask(int id) {
         Task task = tasks.get(id);
         if (task != null) {
-            prioritizedTasks.remove(task);
+            unindexTime(id);
             tasks.remove(id);
+            taskOrder.remove(id);
+            statusIndex.remove(id, TaskType.TASK);
+            searchIndex.remove(id);
+            dependencies.remove(id);
             historyManager.remove(id);
+            changed();
+            publish(TaskEvent.Kind.DELETED, task);
+            events.publishChangeEnd();
         }
     }
 
     @Override
     public List<Task> getAllTasks() {
-        return new ArrayList<>(tasks.values());
+        return getSnapshot().getTasks();
     }
 
     // Методы для эпиков
@@ -117,22 +199,26 @@ public class InMemoryTaskManager implements TaskManager {
         }
 
         // Проверяем пересечения для всех подзадач эпика
-        if (epic.getSubtasks() != null) {
-            for (Subtask subtask : epic.getSubtasks()) {
-                if (subtask.getStartTime() != null && isTaskOverlapping(subtask)) {
-                    throw new IllegalArgumentException("Task time overlaps with existing task");
-                }
+        List<Subtask> initialSubtasks = epic.getSubtasks();
+        for (Subtask subtask : initialSubtasks) {
+            if (subtask.getStartTime() != null && isTaskOverlapping(subtask)) {
+                throw new IllegalArgumentException("Task time overlaps with existing task");
             }
         }
 
-        epic.setId(nextTaskId++);
+        epic.setId(idAllocator.next());
+        epic.clearSubtasks(); // Подзадачи попадут в эпик заново через addSubtask
         epics.put(epic.getId(), epic);
+        epicOrder.add(epic.getId());
+        statusIndex.put(epic);
+        searchIndex.put(epic);
+        changed();
+        publish(TaskEvent.Kind.ADDED, epic);
+        events.publishChangeEnd();
 
         // Добавляем подзадачи, если они есть
-        if (epic.getSubtasks() != null) {
-            for (Subtask subtask : epic.getSubtasks()) {
-                addSubtask(subtask);
-            }
+        for (Subtask subtask : initialSubtasks) {
+            addSubtask(subtask);
         }
 
         return epic;
@@ -149,24 +235,39 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void updateEpic(Epic epic) {
+        // Подзадачи хранятся в своих записях: у обновлённого эпика они те же, статус и время считаются по ним
+        Epic existing = epics.get(epic.getId());
+        epic.setSubtasks(existing != null ? existing.getSubtasks() : null);
         epics.put(epic.getId(), epic);
+        epicOrder.add(epic.getId());
+        updateEpicStatus(epic);
+        searchIndex.put(epic);
+        changed();
+        publish(TaskEvent.Kind.UPDATED, epic);
+        events.publishChangeEnd();
     }
 
     @Override
     public void deleteEpic(int id) {
         // Удаление подзадач, связанных с эпиком
         Epic removedEpic = epics.remove(id);
+        epicOrder.remove(id);
         if (removedEpic != null) {
+            statusIndex.remove(id, TaskType.EPIC);
+            searchIndex.remove(id);
             for (Subtask subtask : removedEpic.getSubtasks()) {
                 deleteSubtask(subtask.getId());
             }
+            changed();
+            publish(TaskEvent.Kind.DELETED, removedEpic);
+            events.publishChangeEnd();
         }
         historyManager.remove(id); // Теперь используется в deleteEpic
     }
 
     @Override
     public List<Epic> getAllEpics() {
-        return new ArrayList<>(epics.values());
+        return getSnapshot().getEpics();
     }
 
     // Методы для подзадач
@@ -188,14 +289,81 @@ public class InMemoryTaskManager implements TaskManager {
             throw new IllegalArgumentException("Task time overlaps with existing task");
         }
 
-        subtask.setId(nextTaskId++);
+        subtask.setId(idAllocator.next());
         subtasks.put(subtask.getId(), subtask);
+        subtaskOrder.add(subtask.getId());
         epic.addSubtask(subtask);
-        prioritizedTasks.add(subtask);
-        updateEpicStatus(subtask.getEpicId());
+        indexTime(subtask);
+        statusIndex.put(subtask);
+        searchIndex.put(subtask);
+        dependencies.put(subtask.getId(), subtask.getStatus() == TaskStatus.DONE);
+        updateEpicStatus(epic);
+        changed();
+        publish(TaskEvent.Kind.ADDED, subtask);
+        publish(TaskEvent.Kind.EPIC_ROLLED_UP, epic);
+        events.publishChangeEnd();
         return subtask;
     }
 
+    @Override
+    public ImportReport addAll(Collection<? extends Task> batch) {
+        BatchImport plan = BatchImport.plan(batch, epics::containsKey, this::isTaskOverlapping);
+        if (!plan.isValid()) {
+            return plan.report(0);
+        }
+
+        List<Task> items = plan.getItems();
+        int firstId = idAllocator.reserve(items.size());
+        IntObjectHashMap<List<Subtask>> subtasksByEpic = new IntObjectHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            Task task = items.get(i);
+            task.setId(firstId + i);
+            statusIndex.put(task);
+            searchIndex.put(task);
+            if (task.getType() != TaskType.EPIC) {
+                dependencies.put(task.getId(), task.getStatus() == TaskStatus.DONE);
+            }
+            switch (task.getType()) {
+                case EPIC:
+                    epics.put(task.getId(), (Epic) task);
+                    epicOrder.add(task.getId());
+                    break;
+                case SUBTASK:
+                    Subtask subtask = (Subtask) task;
+                    subtasks.put(subtask.getId(), subtask);
+                    subtaskOrder.add(subtask.getId());
+                    indexTime(subtask);
+                    List<Subtask> added = subtasksByEpic.get(subtask.getEpicId());
+                    if (added == null) {
+                        added = new ArrayList<>();
+                        subtasksByEpic.put(subtask.getEpicId(), added);
+                    }
+                    added.add(subtask);
+                    break;
+                default:
+                    tasks.put(task.getId(), task);
+                    taskOrder.add(task.getId());
+                    indexTime(task);
+            }
+        }
+
+        // Агрегаты каждого эпика пересчитываются один раз на пакет
+        subtasksByEpic.forEachKey(epicId -> {
+            Epic epic = epics.get(epicId);
+            epic.addSubtasks(subtasksByEpic.get(epicId));
+            updateEpicStatus(epic);
+        });
+        changed();
+        if (events.isActive()) {
+            for (Task task : items) {
+                publish(TaskEvent.Kind.ADDED, task);
+            }
+            subtasksByEpic.forEachKey(epicId -> publish(TaskEvent.Kind.EPIC_ROLLED_UP, epics.get(epicId)));
+        }
+        events.publishChangeEnd();
+        return plan.report(firstId);
+    }
+
     @Override
     public Subtask getSubtaskById(int id) {
         Subtask subtask = subtasks.get(id);
@@ -211,18 +379,51 @@ public class InMemoryTaskManager implements TaskManager {
             throw new IllegalArgumentException("Подзадача перекрывается с существующей задачей.");
         }
         subtasks.put(subtask.getId(), subtask);
-        updateEpicStatus(subtask.getEpicId());
+        subtaskOrder.add(subtask.getId());
+        indexTime(subtask);
+        statusIndex.put(subtask);
+        searchIndex.put(subtask);
+        dependencies.put(subtask.getId(), subtask.getStatus() == TaskStatus.DONE);
+        Epic epic = epics.get(subtask.getEpicId());
+        if (epic != null) {
+            epic.updateSubtask(subtask);
+            updateEpicStatus(epic);
+        }
+        changed();
+        publish(TaskEvent.Kind.UPDATED, subtask);
+        if (epic != null) {
+            publish(TaskEvent.Kind.EPIC_ROLLED_UP, epic);
+        }
+        events.publishChangeEnd();
     }
 
     @Override
     public void deleteSubtask(int id) {
-        subtasks.remove(id);
-        historyManager.remove(id); // Теперь используется в deleteSubtask
+        Subtask subtask = subtasks.remove(id);
+        if (subtask != null) { // Id задачи или эпика не должен задевать их индексы и историю
+            subtaskOrder.remove(id);
+            unindexTime(id);
+            statusIndex.remove(id, TaskType.SUBTASK);
+            searchIndex.remove(id);
+            dependencies.remove(id);
+            Epic epic = epics.get(subtask.getEpicId());
+            if (epic != null) {
+                epic.removeSubtask(id);
+                updateEpicStatus(epic);
+            }
+            changed();
+            publish(TaskEvent.Kind.DELETED, subtask);
+            if (epic != null) {
+                publish(TaskEvent.Kind.EPIC_ROLLED_UP, epic);
+            }
+            events.publishChangeEnd();
+            historyManager.remove(id); // Теперь используется в deleteSubtask
+        }
     }
 
     @Override
     public List<Subtask> getAllSubtasks() {
-        return new ArrayList<>(subtasks.values());
+        return getSnapshot().getSubtasks();
     }
 
     // Метод для получения списка подзадач для заданного эпика
@@ -231,15 +432,161 @@ public class InMemoryTaskManager implements TaskManager {
         return epics.get(epicId).getSubtasks();
     }
 
-    // Методы для обновления статуса эпика
-    private void updateEpicStatus(int epicId) {
-        Epic epic = epics.get(epicId);
-        if (epic.getSubtasks().isEmpty()) {
-            epic.setStatus(TaskStatus.NEW);
-        } else if (epic.getSubtasks().stream().allMatch(subtask -> subtask.getStatus() == TaskStatus.DONE)) {
-            epic.setStatus(TaskStatus.DONE);
+    // Методы для обновления статуса эпика: счётчики подзадач ведёт сам эпик, пересчёт за O(1)
+    private void updateEpicStatus(Epic epic) {
+        epic.setStatus(epic.calculateStatus());
+        statusIndex.put(epic);
+    }
+
+    // Восстановление сохранённой сущности с её id: без проверки пересечений, событий и выдачи нового id.
+    // Сущность с тем же id заменяется, поэтому повтор одной и той же записи ничего не портит
+    protected void restore(Task task) {
+        idAllocator.advanceTo(task.getId());
+        switch (task.getType()) {
+            case EPIC:
+                restoreEpic((Epic) task);
+                break;
+            case SUBTASK:
+                restoreSubtask((Subtask) task);
+                break;
+            default:
+                tasks.put(task.getId(), task);
+                taskOrder.add(task.getId());
+                indexTime(task);
+                statusIndex.put(task);
+                searchIndex.put(task);
+                dependencies.put(task.getId(), task.getStatus() == TaskStatus.DONE);
+        }
+        changed();
+    }
+
+    // Восстановление сохранённой зависимости: как addDependency, но без событий
+    protected void restoreDependency(int blockerId, int blockedId) {
+        dependencies.addEdge(blockerId, blockedId);
+        changed();
+    }
+
+    // Подзадачи хранятся не в записи эпика, а в своих записях, поэтому у заменяемого эпика они сохраняются
+    private void restoreEpic(Epic epic) {
+        Epic existing = epics.get(epic.getId());
+        epic.setSubtasks(existing != null ? existing.getSubtasks() : null);
+        epics.put(epic.getId(), epic);
+        epicOrder.add(epic.getId());
+        searchIndex.put(epic);
+        updateEpicStatus(epic);
+    }
+
+    private void restoreSubtask(Subtask subtask) {
+        Epic epic = epics.get(subtask.getEpicId());
+        if (epic == null) {
+            throw new IllegalArgumentException("Epic with ID " + subtask.getEpicId() + " does not exist");
+        }
+        Subtask existing = subtasks.get(subtask.getId());
+        if (existing != null && existing.getEpicId() != subtask.getEpicId()) {
+            Epic previous = epics.get(existing.getEpicId());
+            if (previous != null) {
+                previous.removeSubtask(subtask.getId());
+                updateEpicStatus(previous);
+            }
+            existing = null;
+        }
+        subtasks.put(subtask.getId(), subtask);
+        subtaskOrder.add(subtask.getId());
+        if (existing != null) {
+            epic.updateSubtask(subtask);
         } else {
-            epic.setStatus(TaskStatus.IN_PROGRESS);
+            epic.addSubtask(subtask);
+        }
+        indexTime(subtask);
+        statusIndex.put(subtask);
+        searchIndex.put(subtask);
+        dependencies.put(subtask.getId(), subtask.getStatus() == TaskStatus.DONE);
+        updateEpicStatus(epic);
+    }
+
+    // Пакетное восстановление файла задач с сохранёнными id в пустой менеджер, порядок сущностей любой.
+    // Подзадачи передаются эпику одним пакетом, индекс времени строится сразу целиком, а статусы эпиков
+    // пересчитываются один раз в конце. В непустой менеджер сущности восстанавливаются по одной
+    protected void restoreAll(Collection<? extends Task> entities) {
+        if (!tasks.isEmpty() || !epics.isEmpty() || !subtasks.isEmpty()) {
+            entities.forEach(this::restore);
+            return;
+        }
+        IntObjectHashMap<List<Subtask>> subtasksByEpic = new IntObjectHashMap<>();
+        IntArrayList timed = new IntArrayList(entities.size());
+        for (Task task : entities) {
+            int id = task.getId();
+            if (tasks.containsKey(id) || epics.containsKey(id) || subtasks.containsKey(id)) {
+                throw new IllegalArgumentException("Duplicate task ID: " + id);
+            }
+            idAllocator.advanceTo(id);
+            switch (task.getType()) {
+                case EPIC:
+                    epics.put(id, (Epic) task);
+                    break;
+                case SUBTASK:
+                    Subtask subtask = (Subtask) task;
+                    subtasks.put(id, subtask);
+                    List<Subtask> siblings = subtasksByEpic.get(subtask.getEpicId());
+                    if (siblings == null) {
+                        siblings = new ArrayList<>();
+                        subtasksByEpic.put(subtask.getEpicId(), siblings);
+                    }
+                    siblings.add(subtask);
+                    break;
+                default:
+                    tasks.put(id, task);
+            }
+            if (task.getType() != TaskType.EPIC) { // Время эпика вычисляется из подзадач
+                if (task instanceof RecurringTask || slotCalendar != null) {
+                    indexTime(task);
+                } else if (task.getStartTime() != null) {
+                    timed.add(id);
+                }
+                statusIndex.put(task);
+                dependencies.put(id, task.getStatus() == TaskStatus.DONE);
+            }
+            searchIndex.put(task);
+        }
+        subtasksByEpic.forEachKey(epicId -> {
+            if (!epics.containsKey(epicId)) {
+                throw new IllegalArgumentException("Epic with ID " + epicId + " does not exist");
+            }
+        });
+        indexTimes(timed);
+        fillOrder(taskOrder, tasks);
+        fillOrder(subtaskOrder, subtasks);
+        fillOrder(epicOrder, epics);
+        epics.forEachValue(epic -> {
+            List<Subtask> children = subtasksByEpic.get(epic.getId());
+            epic.setSubtasks(null);
+            if (children != null) {
+                epic.addSubtasks(children);
+            }
+            updateEpicStatus(epic);
+        });
+        changed();
+    }
+
+    private void indexTimes(IntArrayList ids) {
+        int[] timedIds = ids.toArray();
+        long[] starts = new long[timedIds.length];
+        long[] ends = new long[timedIds.length];
+        for (int i = 0; i < timedIds.length; i++) {
+            Task task = tasks.containsKey(timedIds[i]) ? tasks.get(timedIds[i]) : subtasks.get(timedIds[i]);
+            starts[i] = task.getStartNanos();
+            ends[i] = task.getEndNanos();
+        }
+        timeIndex.putAll(timedIds, starts, ends);
+    }
+
+    private static void fillOrder(IdOrder order, IntObjectHashMap<?> entities) {
+        int[] ids = new int[entities.size()];
+        int[] position = {0};
+        entities.forEachKey(id -> ids[position[0]++] = id);
+        Arrays.sort(ids);
+        for (int id : ids) {
+            order.add(id);
         }
     }
 
@@ -251,49 +598,403 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void clearTasks() {
-        tasks.values().forEach(prioritizedTasks::remove);
+        tasks.forEachKey(this::unindexTime);
+        tasks.forEachKey(searchIndex::remove);
+        tasks.forEachKey(dependencies::remove);
         tasks.clear();
+        taskOrder.clear();
+        statusIndex.clear(TaskType.TASK);
+        changed();
+        events.publishCleared(TaskType.TASK, version);
+        events.publishChangeEnd();
     }
 
     @Override
     public void clearEpics() {
-        for (Epic epic : epics.values()) {
-            epic.getSubtasks().forEach(prioritizedTasks::remove);
-        }
+        subtasks.forEachKey(this::unindexTime);
+        subtasks.forEachKey(searchIndex::remove);
+        subtasks.forEachKey(dependencies::remove);
+        epics.forEachKey(searchIndex::remove);
         epics.clear();
+        epicOrder.clear();
         subtasks.clear();
+        subtaskOrder.clear();
+        statusIndex.clear(TaskType.EPIC);
+        statusIndex.clear(TaskType.SUBTASK);
+        changed();
+        events.publishCleared(TaskType.SUBTASK, version);
+        events.publishCleared(TaskType.EPIC, version);
+        events.publishChangeEnd();
     }
 
     @Override
     public void clearSubtasks() {
-        subtasks.values().forEach(prioritizedTasks::remove);
+        subtasks.forEachKey(this::unindexTime);
+        subtasks.forEachKey(searchIndex::remove);
+        subtasks.forEachKey(dependencies::remove);
         subtasks.clear();
-        for (Epic epic : epics.values()) {
-            epic.getSubtasks().clear();
-            updateEpicStatus(epic.getId());
+        subtaskOrder.clear();
+        statusIndex.clear(TaskType.SUBTASK);
+        epics.forEachValue(epic -> {
+            epic.clearSubtasks();
+            updateEpicStatus(epic);
+        });
+        changed();
+        events.publishCleared(TaskType.SUBTASK, version);
+        if (events.isActive()) {
+            epics.forEachValue(epic -> publish(TaskEvent.Kind.EPIC_ROLLED_UP, epic));
+        }
+        events.publishChangeEnd();
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(TaskStatus status, TaskType type) {
+        if (status == null || type == null) {
+            throw new IllegalArgumentException("Status and type cannot be null");
+        }
+        int[] ids = statusIndex.ids(status, type);
+        List<Task> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            switch (type) {
+                case EPIC:
+                    result.add(epics.get(id));
+                    break;
+                case SUBTASK:
+                    result.add(subtasks.get(id));
+                    break;
+                default:
+                    result.add(tasks.get(id));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        if (query == null) {
+            throw new IllegalArgumentException("Query cannot be null");
+        }
+        int[] ids = searchIndex.search(query, limit);
+        List<Task> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(findAnyType(id));
+        }
+        return result;
+    }
+
+    @Override
+    public void addDependency(int blockerId, int blockedId) {
+        dependencies.addEdge(blockerId, blockedId);
+        changed();
+        events.publishDependency(TaskEvent.Kind.DEPENDENCY_ADDED, blockerId, findAnyType(blockedId), version);
+        events.publishChangeEnd();
+    }
+
+    @Override
+    public void removeDependency(int blockerId, int blockedId) {
+        if (dependencies.removeEdge(blockerId, blockedId)) {
+            changed();
+            events.publishDependency(TaskEvent.Kind.DEPENDENCY_REMOVED, blockerId, findAnyType(blockedId), version);
+            events.publishChangeEnd();
+        }
+    }
+
+    @Override
+    public List<Task> getBlockers(int id) {
+        int[] ids = dependencies.blockers(id);
+        List<Task> result = new ArrayList<>(ids.length);
+        for (int blockerId : ids) {
+            result.add(findAnyType(blockerId));
+        }
+        return result;
+    }
+
+    // Готовые id граф держит актуальными сам; список задач собирается заново только после изменений
+    @Override
+    public List<Task> getReadyTasks() {
+        List<Task> current = readyTasks;
+        if (current == null || readyTasksVersion != version) {
+            int[] ids = dependencies.ready();
+            List<Task> result = new ArrayList<>(ids.length);
+            for (int id : ids) {
+                result.add(findAnyType(id));
+            }
+            current = Collections.unmodifiableList(result);
+            readyTasks = current;
+            readyTasksVersion = version;
+        }
+        return current;
+    }
+
+    private Task findAnyType(int id) {
+        Task task = tasks.get(id);
+        if (task != null) {
+            return task;
+        }
+        Epic epic = epics.get(id);
+        return epic != null ? epic : subtasks.get(id);
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    // Срез строится при первом чтении после изменения и дальше отдаётся без копирования.
+    // Списки идут по возрастанию id, как и страницы, а не в порядке ячеек хеш-таблиц
+    @Override
+    public TaskSnapshot getSnapshot() {
+        TaskSnapshot current = snapshot;
+        if (current == null || current.getVersion() != version) {
+            current = new TaskSnapshot(version, inOrder(taskOrder, tasks), inOrder(epicOrder, epics),
+                    inOrder(subtaskOrder, subtasks));
+            snapshot = current;
+        }
+        return current;
+    }
+
+    private static <T> List<T> inOrder(IdOrder order, IntObjectHashMap<T> entities) {
+        List<T> result = new ArrayList<>(order.size());
+        for (int i = 0; i < order.size(); i++) {
+            result.add(entities.get(order.get(i)));
         }
+        return result;
+    }
+
+    // Отмечает изменение содержимого менеджера; прежний срез становится устаревшим
+    protected void changed() {
+        version++;
+    }
+
+    private void publish(TaskEvent.Kind kind, Task task) {
+        events.publish(kind, task, version);
+    }
+
+    @Override
+    public void addListener(TaskEvent.Listener listener) {
+        events.addListener(listener);
+    }
+
+    @Override
+    public void removeListener(TaskEvent.Listener listener) {
+        events.removeListener(listener);
+    }
+
+    // Вызывается один раз в конце каждого изменения, после всех его событий (см. TaskEventBus)
+    void addChangeListener(Runnable listener) {
+        events.addChangeListener(listener);
+    }
+
+    @Override
+    public void addBatchListener(TaskEvent.BatchListener listener) {
+        events.addBatchListener(listener);
+    }
+
+    @Override
+    public void removeBatchListener(TaskEvent.BatchListener listener) {
+        events.removeBatchListener(listener);
     }
 
     @Override
     public List<Task> getPrioritizedTasks() {
+        // Индекс уже упорядочен по (startTime, id), поэтому достаточно линейного обхода
+        List<Task> result = new ArrayList<>(timeIndex.size());
+        timeIndex.forEachInOrder(id -> {
+            Task task = tasks.get(id);
+            result.add(task != null ? task : subtasks.get(id));
+        });
+        // Серия стоит в списке один раз, по своему первому вхождению
+        return recurrences.isEmpty() ? result : mergeSeries(result, recurrences.inOrder(), Integer.MAX_VALUE);
+    }
+
+    // Слияние списка, упорядоченного по (startTime, id), с сериями в том же порядке; не более limit элементов
+    private List<Task> mergeSeries(List<Task> ordered, RecurrenceIndex.Series[] series, int limit) {
+        List<Task> result = new ArrayList<>(Math.min(limit, ordered.size() + series.length));
+        int next = 0;
+        for (Task task : ordered) {
+            long start = task.getStartNanos();
+            while (next < series.length && result.size() < limit && (series[next].first < start
+                    || (series[next].first == start && series[next].id < task.getId()))) {
+                result.add(tasks.get(series[next++].id));
+            }
+            if (result.size() == limit) {
+                return result;
+            }
+            result.add(task);
+        }
+        while (next < series.length && result.size() < limit) {
+            result.add(tasks.get(series[next++].id));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> getTasksInWindow(LocalDateTime from, LocalDateTime to) {
+        TimeIndex.checkWindow(from, to);
         List<Task> result = new ArrayList<>();
-        result.addAll(tasks.values());
-        result.addAll(subtasks.values());
-
-        return result.stream()
-                .filter(task -> task.getStartTime() != null)
-                .sorted((t1, t2) -> {
-                    if (t1.getStartTime() == null && t2.getStartTime() == null) {
-                        return Integer.compare(t1.getId(), t2.getId());
-                    }
-                    if (t1.getStartTime() == null) return 1;
-                    if (t2.getStartTime() == null) return -1;
-                    int timeCompare = t1.getStartTime().compareTo(t2.getStartTime());
-                    return timeCompare != 0 ? timeCompare : Integer.compare(t1.getId(), t2.getId());
-                })
-                .collect(Collectors.toList());
+        timeIndex.forEachIntersecting(from, to, id -> {
+            Task task = tasks.get(id);
+            result.add(task != null ? task : subtasks.get(id));
+        });
+        if (!recurrences.isEmpty()) {
+            // Вхождения серий разворачиваются только внутри окна, каждое — отдельной задачей с id серии
+            recurrences.forEachOccurrence(EpochNanos.clamp(from), EpochNanos.clamp(to), (id, start, end) ->
+                    result.add(((RecurringTask) tasks.get(id)).occurrenceAt(EpochNanos.toLocalDateTime(start))));
+            result.sort(Comparator.comparing(Task::getStartTime).thenComparingInt(Task::getId));
+        }
+        return result;
+    }
+
+    @Override
+    public TimeSlot findNextFreeSlot(Duration duration, LocalDateTime notBefore) {
+        LocalDateTime start = timeIndex.nextFreeStart(notBefore, duration);
+        if (!recurrences.isEmpty()) {
+            long bound = EpochNanos.clamp(start);
+            long candidate = nextFreeStart(bound, EpochNanos.length(duration));
+            if (candidate != bound) {
+                start = EpochNanos.toLocalDateTime(candidate);
+            }
+        }
+        return new TimeSlot(start, start.plus(duration));
+    }
+
+    // Самое раннее начало не раньше notBefore, свободное и в индексе интервалов, и от вхождений серий
+    private long nextFreeStart(long notBefore, long length) {
+        long candidate = timeIndex.nextFreeStart(notBefore, length);
+        while (!recurrences.isEmpty()) {
+            long blockedUntil = recurrences.conflictEnd(candidate, EpochNanos.plus(candidate, length));
+            if (blockedUntil == RecurrenceIndex.NO_CONFLICT) {
+                break;
+            }
+            candidate = timeIndex.nextFreeStart(blockedUntil, length);
+        }
+        return candidate;
+    }
+
+    // Предварительный план для задач и подзадач без времени начала: каждой подбирается самое раннее свободное
+    // время не раньше notBefore и окончания её блокирующих. deadlines (может быть null) — крайние сроки
+    // окончания по id. Менеджер не меняется; большие пакеты считаются в общем пуле fork-join
+    public SchedulePlan planSchedule(List<Integer> ids, LocalDateTime notBefore, Map<Integer, LocalDateTime> deadlines) {
+        List<SchedulePlan.Item> items = AutoScheduler.plan(ids, notBefore, deadlines, id -> {
+            Task task = tasks.get(id);
+            return task != null ? task : subtasks.get(id);
+        }, dependencies::blockers, this::nextFreeStart, ForkJoinPool.commonPool());
+        return new SchedulePlan(this, version, items);
+    }
+
+    // Применяет план целиком: план должен быть полным и составленным для текущего состояния менеджера,
+    // тогда найденные интервалы гарантированно ни с чем не пересекаются
+    public void commitSchedule(SchedulePlan plan) {
+        if (plan == null) {
+            throw new IllegalArgumentException("Schedule plan cannot be null");
+        }
+        if (plan.getOwner() != this || plan.getVersion() != version) {
+            throw new IllegalArgumentException("Schedule plan is out of date");
+        }
+        if (!plan.isComplete()) {
+            throw new IllegalArgumentException("Schedule plan has rejected tasks");
+        }
+        for (SchedulePlan.Item item : plan.getItems()) {
+            Task task = tasks.get(item.getId());
+            if (task != null) {
+                task.setStartTime(item.getStart());
+                indexTime(task);
+                continue;
+            }
+            Subtask subtask = subtasks.get(item.getId());
+            subtask.setStartTime(item.getStart());
+            indexTime(subtask);
+            Epic epic = epics.get(subtask.getEpicId());
+            if (epic != null) {
+                epic.updateSubtask(subtask);
+            }
+        }
+        changed();
+        if (events.isActive()) {
+            IntHashSet rolledUp = new IntHashSet();
+            for (SchedulePlan.Item item : plan.getItems()) {
+                Task task = findAnyType(item.getId());
+                publish(TaskEvent.Kind.UPDATED, task);
+                if (task.getType() == TaskType.SUBTASK && rolledUp.add(((Subtask) task).getEpicId())) {
+                    publish(TaskEvent.Kind.EPIC_ROLLED_UP, epics.get(((Subtask) task).getEpicId()));
+                }
+            }
+        }
+        events.publishChangeEnd();
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(LocalDateTime from, LocalDateTime to, Duration minDuration) {
+        if (recurrences.isEmpty()) {
+            return timeIndex.freeSlots(from, to, minDuration);
+        }
+        List<TimeSlot> slots = timeIndex.freeSlots(from, to, Duration.ZERO);
+        return recurrences.subtractFrom(slots, EpochNanos.clamp(from), EpochNanos.clamp(to),
+                EpochNanos.length(minDuration));
+    }
+
+    @Override
+    public Page<Task> getTasksPage(String after, int limit) {
+        return pageById(taskOrder, tasks, after, limit);
+    }
+
+    @Override
+    public Page<Epic> getEpicsPage(String after, int limit) {
+        return pageById(epicOrder, epics, after, limit);
+    }
+
+    @Override
+    public Page<Subtask> getSubtasksPage(String after, int limit) {
+        return pageById(subtaskOrder, subtasks, after, limit);
+    }
+
+    // Страница берётся прямо из упорядоченных id: двоичный поиск курсора и limit чтений из таблицы
+    private <T extends Task> Page<T> pageById(IdOrder order, IntObjectHashMap<T> source, String after, int limit) {
+        Page.checkLimit(limit);
+        int from = order.firstAfter(Page.parseIdCursor(after));
+        int to = (int) Math.min(order.size(), (long) from + limit);
+        List<T> items = new ArrayList<>(Math.max(to - from, 0));
+        for (int position = from; position < to; position++) {
+            items.add(source.get(order.get(position)));
+        }
+        String next = to < order.size() ? String.valueOf(order.get(to - 1)) : null;
+        return new Page<>(items, next);
+    }
+
+    @Override
+    public Page<Task> getPrioritizedPage(String after, int limit) {
+        Page.checkLimit(limit);
+        List<Task> indexed = new ArrayList<>();
+        // Запрашиваем на один элемент больше, чтобы узнать, есть ли следующая страница
+        int fetch = limit == Integer.MAX_VALUE ? limit : limit + 1;
+        timeIndex.forEachAfter(Page.parseTimeCursorStart(after), Page.parseTimeCursorId(after), fetch, id -> {
+            Task task = tasks.get(id);
+            indexed.add(task != null ? task : subtasks.get(id));
+        });
+        List<Task> items = recurrences.isEmpty() ? indexed : mergeSeries(indexed, seriesAfter(after), fetch);
+        if (items.size() <= limit) {
+            return new Page<>(items, null);
+        }
+        items.remove(limit);
+        return new Page<>(items, Page.timeCursor(items.get(limit - 1)));
     }
 
+    // Серии, идущие в порядке (startTime, id) строго после курсора страницы
+    private RecurrenceIndex.Series[] seriesAfter(String after) {
+        RecurrenceIndex.Series[] series = recurrences.inOrder();
+        LocalDateTime cursorStart = Page.parseTimeCursorStart(after);
+        if (cursorStart == null) {
+            return series;
+        }
+        long start = EpochNanos.clamp(cursorStart);
+        int id = Page.parseTimeCursorId(after);
+        int first = 0;
+        while (first < series.length && (series[first].first < start
+                || (series[first].first == start && series[first].id <= id))) {
+            first++;
+        }
+        return Arrays.copyOfRange(series, first, series.length);
+    }
 
     @Override
     public void validateTaskTime(Task task) throws IllegalArgumentException {
@@ -3,6 +3,9 @@ package manager;
 import history.HistoryManager;
 import history.InMemoryHistoryManager;
 
+import java.io.File;
+import java.time.Duration;
+
 public class Managers {
     private static InMemoryTaskManager taskManager;
 
@@ -10,6 +13,26 @@ public class Managers {
         return new InMemoryTaskManager(); // Создает и возвращает новый экземпляр InMemoryTaskManager
     }
 
+    // Менеджер с календарным индексом занятости; slot — шаг сетки, например 15 минут
+    public static TaskManager getWithSlotCalendar(Duration slot) {
+        return new InMemoryTaskManager(slot);
+    }
+
+    // Потокобезопасный менеджер для HTTP-сервера с пулом потоков
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager();
+    }
+
+    // Менеджер для очень больших досок: данные хранятся вне кучи, объекты создаются при чтении
+    public static TaskManager getColumnar() {
+        return new ColumnarTaskManager();
+    }
+
+    // Та же доска из двоичного файла задач: строки читаются из файла по мере обращения
+    public static TaskManager getColumnar(File snapshot) {
+        return new ColumnarTaskManager(snapshot);
+    }
+
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager(); // Возвращает новый экземпляр InMemoryHistoryManager
     }
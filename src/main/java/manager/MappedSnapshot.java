@@ -0,0 +1,91 @@
+package manager;
+
+import util.IntArrayList;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+// Двоичный файл задач (SnapshotCodec), отображённый в память. При открытии проверяются контрольные
+// суммы всех блоков, поля сущностей без строк отдаются читателю, а от таблицы строк запоминаются только
+// смещения: сами строки декодируются из отображения при каждом обращении. Отображение живёт, пока на объект есть ссылки, и видит прежнее
+// содержимое, даже если файл тем временем атомарно заменён новым
+final class MappedSnapshot {
+    private final ByteBuffer content;
+    private int[] stringOffsets = new int[0];
+    private int stringCount;
+    private final IntArrayList dependencies = new IntArrayList(); // Пары «блокирующая, заблокированная»
+    private int nextId = 1;
+
+    private MappedSnapshot(ByteBuffer content, Consumer<SnapshotCodec.Record> entities) {
+        this.content = content;
+        SnapshotCodec.read(content, new SnapshotCodec.Visitor() {
+            private final SnapshotCodec.Record record = new SnapshotCodec.Record();
+
+            @Override
+            public void meta(int persistedNextId, long generation, int entityCount, int strings) {
+                nextId = persistedNextId;
+                stringOffsets = new int[strings];
+            }
+
+            @Override
+            public void string(SnapshotCodec.Input block) {
+                if (stringCount == stringOffsets.length) {
+                    throw new ManagerSaveException("Task snapshot has more strings than declared");
+                }
+                stringOffsets[stringCount++] = block.position();
+                block.skipString();
+            }
+
+            @Override
+            public void entity(SnapshotCodec.Input block) {
+                SnapshotCodec.readRecord(block, record);
+                if (record.isRecurring()) {
+                    throw new ManagerSaveException("Recurring tasks are not supported by this manager");
+                }
+                entities.accept(record);
+            }
+
+            @Override
+            public void dependency(int blockerId, int blockedId) {
+                dependencies.add(blockerId);
+                dependencies.add(blockedId);
+            }
+        });
+    }
+
+    // entities получает поля каждой сущности в порядке файла (эпики раньше своих подзадач);
+    // объект Record один на весь обход
+    static MappedSnapshot open(File file, Consumer<SnapshotCodec.Record> entities) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new ManagerSaveException("Task snapshot is too large to map: " + channel.size() + " bytes");
+            }
+            return new MappedSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), entities);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error loading tasks", e);
+        }
+    }
+
+    IntArrayList getDependencies() {
+        return dependencies;
+    }
+
+    int getNextId() {
+        return nextId;
+    }
+
+    // Строка по ссылке из Record: номер в таблице плюс один, 0 — null
+    String string(int ref) {
+        if (ref == 0) {
+            return null;
+        }
+        if (ref < 0 || ref > stringCount) {
+            throw new ManagerSaveException("Task snapshot refers to a missing string: " + ref);
+        }
+        return new SnapshotCodec.Input(content, stringOffsets[ref - 1], content.limit()).readString();
+    }
+}
@@ -0,0 +1,77 @@
+package manager;
+
+import task.Task;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.List;
+
+// Страница списка и курсор следующей страницы (null, если страница последняя).
+// Курсор указывает на последний отданный элемент, а не на позицию, поэтому вставки
+// и удаления между запросами не приводят к пропускам и повторам
+public class Page<T> {
+    private static final char TIME_CURSOR_SEPARATOR = '_';
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    Page(List<T> items, String nextCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+
+    static void checkLimit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+    }
+
+    // Курсор списков по id — сам id; отсутствие курсора означает начало списка
+    static int parseIdCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(cursor);
+        } catch (NumberFormatException exception) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    // Курсор списка по приоритету — время начала и id: "2024-05-01T09:00_17"
+    static String timeCursor(Task task) {
+        return task.getStartTime().toString() + TIME_CURSOR_SEPARATOR + task.getId();
+    }
+
+    static LocalDateTime parseTimeCursorStart(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        int separator = cursor.lastIndexOf(TIME_CURSOR_SEPARATOR);
+        try {
+            return LocalDateTime.parse(cursor.substring(0, Math.max(separator, 0)));
+        } catch (DateTimeParseException exception) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    static int parseTimeCursorId(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0;
+        }
+        return parseIdCursor(cursor.substring(cursor.lastIndexOf(TIME_CURSOR_SEPARATOR) + 1));
+    }
+}
@@ -0,0 +1,346 @@
+package manager;
+
+import task.RecurringTask;
+import util.EpochNanos;
+import util.IntObjectHashMap;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongPredicate;
+
+// Серии повторяющихся задач. Вхождения не хранятся: для окна запроса номера вхождений вычисляются
+// делением по шагу серии, поэтому проверка пересечения стоит O(log исключений) на серию при любой
+// длине серии. Пропущенные и перенесённые вхождения лежат в отсортированных массивах серии
+class RecurrenceIndex {
+    static final long NO_CONFLICT = Long.MIN_VALUE; // conflictEnd: в окне нет вхождений
+
+    private final IntObjectHashMap<Series> seriesById = new IntObjectHashMap<>();
+    private Series[] ordered; // По (first, id); null — пересобрать при следующем чтении
+
+    @FunctionalInterface
+    interface OccurrenceConsumer {
+        void accept(int id, long start, long end);
+    }
+
+    // Проверяет правило задачи и переводит его в наносекунды
+    static Series series(RecurringTask task) {
+        if (task.getStartTime() == null) {
+            throw new IllegalArgumentException("Recurring task must have a start time");
+        }
+        if (task.getDuration() == null || task.getDuration().isZero() || task.getDuration().isNegative()) {
+            throw new IllegalArgumentException("Recurring task duration must be positive");
+        }
+        if (task.getEvery() == null || task.getEvery().compareTo(task.getDuration()) < 0) {
+            throw new IllegalArgumentException("Recurrence step must not be shorter than the duration");
+        }
+        if (task.getUntil() != null && !task.getUntil().isAfter(task.getStartTime())) {
+            throw new IllegalArgumentException("Recurrence end must be after the start time");
+        }
+        long first = EpochNanos.of(task.getStartTime());
+        long length = EpochNanos.length(task.getDuration());
+        long step = EpochNanos.length(task.getEvery());
+        long until = task.getUntil() != null ? EpochNanos.clamp(task.getUntil()) : Long.MAX_VALUE;
+        if (EpochNanos.plus(first, length) == Long.MAX_VALUE) {
+            throw new IllegalArgumentException("End time is out of supported range: " + task.getStartTime());
+        }
+
+        long[] removed = new long[task.getExceptions().size()];
+        long[] moved = new long[removed.length];
+        int movedCount = 0;
+        int index = 0;
+        for (Map.Entry<LocalDateTime, LocalDateTime> exception : task.getExceptions().entrySet()) {
+            if (!task.isOccurrenceStart(exception.getKey())) { // Правило могли поменять после исключения
+                throw new IllegalArgumentException("Not an occurrence of the series: " + exception.getKey());
+            }
+            removed[index++] = EpochNanos.of(exception.getKey()); // Ключи TreeMap уже по возрастанию
+            if (exception.getValue() != null) {
+                long start = EpochNanos.of(exception.getValue());
+                if (EpochNanos.plus(start, length) == Long.MAX_VALUE) {
+                    throw new IllegalArgumentException("End time is out of supported range: " + exception.getValue());
+                }
+                moved[movedCount++] = start;
+            }
+        }
+        moved = Arrays.copyOf(moved, movedCount);
+        Arrays.sort(moved);
+        Series series = new Series(task.getId(), first, length, step, until, removed, moved);
+        for (int i = 0; i < moved.length; i++) {
+            if ((i > 0 && moved[i - 1] + length > moved[i]) || series.overlapsRegular(moved[i], moved[i] + length)) {
+                throw new IllegalArgumentException("Moved occurrence overlaps the series: "
+                        + EpochNanos.toLocalDateTime(moved[i]));
+            }
+        }
+        return series;
+    }
+
+    void put(Series series) {
+        seriesById.put(series.id, series);
+        ordered = null;
+    }
+
+    void remove(int id) {
+        if (seriesById.remove(id) != null) {
+            ordered = null;
+        }
+    }
+
+    void clear() {
+        seriesById.clear();
+        ordered = null;
+    }
+
+    boolean isEmpty() {
+        return seriesById.isEmpty();
+    }
+
+    // Пересекает ли [start, end) вхождение какой-либо серии, кроме серии excludeId
+    boolean overlaps(long start, long end, int excludeId) {
+        boolean[] found = new boolean[1];
+        seriesById.forEachValue(series -> {
+            if (!found[0] && series.id != excludeId && series.overlaps(start, end)) {
+                found[0] = true;
+            }
+        });
+        return found[0];
+    }
+
+    // Пересекается ли серия с другими сериями индекса
+    boolean overlaps(Series series) {
+        boolean[] found = new boolean[1];
+        seriesById.forEachValue(other -> {
+            if (!found[0] && other.id != series.id && series.overlaps(other)) {
+                found[0] = true;
+            }
+        });
+        return found[0];
+    }
+
+    // Самое позднее окончание вхождений, пересекающих [start, end); NO_CONFLICT, если таких нет
+    long conflictEnd(long start, long end) {
+        long[] latest = {NO_CONFLICT};
+        seriesById.forEachValue(series -> latest[0] = Math.max(latest[0], series.conflictEnd(start, end)));
+        return latest[0];
+    }
+
+    // Вхождения всех серий, пересекающие окно [from, to); порядок между сериями не определён
+    void forEachOccurrence(long from, long to, OccurrenceConsumer action) {
+        seriesById.forEachValue(series -> series.forEachOccurrence(from, to, action));
+    }
+
+    // Свободные промежутки индекса интервалов за вычетом вхождений; короче minLength отбрасываются
+    List<TimeSlot> subtractFrom(List<TimeSlot> slots, long from, long to, long minLength) {
+        List<long[]> busy = new ArrayList<>();
+        forEachOccurrence(from, to, (id, start, end) -> busy.add(new long[]{start, end}));
+        busy.sort(Comparator.comparingLong(interval -> interval[0])); // Вхождения не пересекаются друг с другом
+        List<TimeSlot> result = new ArrayList<>();
+        int next = 0;
+        for (TimeSlot slot : slots) {
+            long slotEnd = EpochNanos.clamp(slot.getEnd());
+            long cursor = EpochNanos.clamp(slot.getStart());
+            LocalDateTime cursorTime = slot.getStart();
+            while (next < busy.size() && busy.get(next)[1] <= cursor) {
+                next++;
+            }
+            for (int i = next; i < busy.size() && busy.get(i)[0] < slotEnd; i++) {
+                long[] interval = busy.get(i);
+                if (interval[0] > cursor) {
+                    addSlot(result, cursor, cursorTime, interval[0], null, minLength);
+                }
+                if (interval[1] > cursor) {
+                    cursor = interval[1];
+                    cursorTime = null;
+                }
+            }
+            if (cursor < slotEnd) {
+                addSlot(result, cursor, cursorTime, slotEnd, slot.getEnd(), minLength);
+            }
+        }
+        return result;
+    }
+
+    private static void addSlot(List<TimeSlot> slots, long start, LocalDateTime startTime,
+                                long end, LocalDateTime endTime, long minLength) {
+        if (EpochNanos.plus(start, minLength) <= end) {
+            slots.add(new TimeSlot(startTime != null ? startTime : EpochNanos.toLocalDateTime(start),
+                    endTime != null ? endTime : EpochNanos.toLocalDateTime(end)));
+        }
+    }
+
+    // Серии в порядке (начало первого вхождения, id) — так серия стоит в списке по приоритету
+    Series[] inOrder() {
+        if (ordered == null) {
+            List<Series> all = new ArrayList<>(seriesById.size());
+            seriesById.forEachValue(all::add);
+            all.sort(Comparator.comparingLong((Series series) -> series.first).thenComparingInt(series -> series.id));
+            ordered = all.toArray(new Series[0]);
+        }
+        return ordered;
+    }
+
+    static final class Series {
+        final int id;
+        final long first;
+        final long length;
+        private final long step;
+        private final long until; // Вхождения начинаются раньше until; Long.MAX_VALUE — без конца
+        private final long[] removed; // Исходные начала пропущенных и перенесённых вхождений
+        private final long[] moved; // Новые начала перенесённых вхождений
+
+        private Series(int id, long first, long length, long step, long until, long[] removed, long[] moved) {
+            this.id = id;
+            this.first = first;
+            this.length = length;
+            this.step = step;
+            this.until = until;
+            this.removed = removed;
+            this.moved = moved;
+        }
+
+        // Граница, раньше которой заканчиваются все вхождения по правилу; Long.MAX_VALUE — серия без конца
+        long reach() {
+            return EpochNanos.plus(until, length);
+        }
+
+        private long startOf(long k) {
+            return first + k * step;
+        }
+
+        // Первый номер вхождения, заканчивающегося позже from
+        private long firstIndex(long from) {
+            long offset = EpochNanos.plus(EpochNanos.plus(from, -length), -first);
+            return offset < 0 ? 0 : Math.floorDiv(offset, step) + 1;
+        }
+
+        // Последний номер вхождения, начинающегося раньше to; -1, если таких нет
+        private long lastIndex(long to) {
+            long bound = Math.min(to, until);
+            if (bound <= first) {
+                return -1;
+            }
+            long offset = EpochNanos.plus(bound, -first);
+            return (offset - 1) / step;
+        }
+
+        // Вхождения по правилу (без перенесённых), пересекающие [start, end)
+        boolean overlapsRegular(long start, long end) {
+            long from = firstIndex(start);
+            long to = lastIndex(end);
+            if (to < from) {
+                return false;
+            }
+            return to - from + 1 > countRemoved(startOf(from), startOf(to));
+        }
+
+        boolean overlaps(long start, long end) {
+            return overlapsRegular(start, end) || movedConflictEnd(start, end) != NO_CONFLICT;
+        }
+
+        long conflictEnd(long start, long end) {
+            long latest = movedConflictEnd(start, end);
+            long from = firstIndex(start);
+            for (long k = lastIndex(end); k >= from; k--) {
+                long occurrence = startOf(k);
+                if (Arrays.binarySearch(removed, occurrence) < 0) {
+                    return Math.max(latest, occurrence + length);
+                }
+            }
+            return latest;
+        }
+
+        // Перенесённые вхождения начинаются в moved[i] и не пересекаются, поэтому окончания тоже по возрастанию
+        private long movedConflictEnd(long start, long end) {
+            int last = upperBound(moved, end - 1) - 1; // Последнее начинающееся раньше end
+            return last >= 0 && moved[last] + length > start ? moved[last] + length : NO_CONFLICT;
+        }
+
+        // Есть ли перенесённое вхождение, для начала которого test вернёт true
+        boolean anyMoved(LongPredicate test) {
+            for (long start : moved) {
+                if (test.test(start)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void forEachOccurrence(long from, long to, OccurrenceConsumer action) {
+            long last = lastIndex(to);
+            for (long k = firstIndex(from); k <= last; k++) {
+                long occurrence = startOf(k);
+                if (Arrays.binarySearch(removed, occurrence) < 0) {
+                    action.accept(id, occurrence, occurrence + length);
+                }
+            }
+            for (long start : moved) {
+                if (start < to && start + length > from) {
+                    action.accept(id, start, start + length);
+                }
+            }
+        }
+
+        // Пересечение двух серий. Для двух бесконечных серий разности начал вхождений — все числа
+        // вида (first - other.first) + m * НОД шагов, и пересечение ищется без перебора; пропуски
+        // здесь не учитываются, поэтому ответ осторожный. Иначе перебираются вхождения конечной серии
+        boolean overlaps(Series other) {
+            for (long start : moved) {
+                if (other.overlaps(start, start + length)) {
+                    return true;
+                }
+            }
+            for (long start : other.moved) {
+                if (overlapsRegular(start, start + other.length)) {
+                    return true;
+                }
+            }
+            if (until == Long.MAX_VALUE && other.until == Long.MAX_VALUE) {
+                long gcd = gcd(step, other.step);
+                long residue = Math.floorMod(first - other.first, gcd); // Ближайшие разности: residue и residue - gcd
+                return residue < other.length || gcd - residue < length;
+            }
+            Series bounded = other.until == Long.MAX_VALUE || (until != Long.MAX_VALUE
+                    && lastIndex(until) <= other.lastIndex(other.until)) ? this : other;
+            Series rest = bounded == this ? other : this;
+            long last = bounded.lastIndex(rest.until); // Только вхождения, пока идёт вторая серия
+            for (long k = bounded.firstIndex(rest.first); k <= last; k++) {
+                long occurrence = bounded.startOf(k);
+                if (Arrays.binarySearch(bounded.removed, occurrence) < 0
+                        && rest.overlapsRegular(occurrence, occurrence + bounded.length)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private int countRemoved(long from, long to) {
+            return upperBound(removed, to) - upperBound(removed, from - 1);
+        }
+
+        // Число элементов отсортированного массива, не больших value
+        private static int upperBound(long[] values, long value) {
+            int low = 0;
+            int high = values.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (values[middle] <= value) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private static long gcd(long a, long b) {
+            while (b != 0) {
+                long remainder = a % b;
+                a = b;
+                b = remainder;
+            }
+            return a;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package manager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Предварительный план автоматического расписания: по одной записи на каждый id запроса, в том же порядке.
+// План ничего не меняет в менеджере. Применяется целиком через commitSchedule и только если с момента
+// планирования менеджер не менялся и все задачи получили время
+public class SchedulePlan {
+    public enum Outcome {
+        SCHEDULED, // Задаче подобрано время начала
+        REJECTED   // Задачу поставить нельзя, причина в reason
+    }
+
+    public static class Item {
+        private final int id;
+        private final Outcome outcome;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final String reason;
+
+        Item(int id, Outcome outcome, LocalDateTime start, LocalDateTime end, String reason) {
+            this.id = id;
+            this.outcome = outcome;
+            this.start = start;
+            this.end = end;
+            this.reason = reason;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        // Подобранное время начала; null, если задача не поставлена
+        public LocalDateTime getStart() {
+            return start;
+        }
+
+        public LocalDateTime getEnd() {
+            return end;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+    }
+
+    private final Object owner; // Менеджер, для которого составлен план
+    private final long version; // Номер изменения менеджера на момент планирования
+    private final List<Item> items;
+    private final boolean complete;
+
+    SchedulePlan(Object owner, long version, List<Item> items) {
+        this.owner = owner;
+        this.version = version;
+        this.items = Collections.unmodifiableList(new ArrayList<>(items));
+        boolean allScheduled = true;
+        for (Item item : items) {
+            allScheduled &= item.outcome == Outcome.SCHEDULED;
+        }
+        this.complete = allScheduled;
+    }
+
+    Object getOwner() {
+        return owner;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    // Все задачи получили время, план можно применить
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public List<Item> getRejected() {
+        List<Item> rejected = new ArrayList<>();
+        for (Item item : items) {
+            if (item.outcome == Outcome.REJECTED) {
+                rejected.add(item);
+            }
+        }
+        return rejected;
+    }
+}
@@ -0,0 +1,188 @@
+package manager;
+
+import task.Task;
+import util.IntIntHashMap;
+import util.IntObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Consumer;
+
+// Инвертированный индекс по названию и описанию: для каждого слова — id задач и вес вхождений.
+// Слова разбиваются по всему, что не буква и не цифра (кириллица тоже буквы), приводятся к нижнему
+// регистру, «ё» считается за «е». Вхождение в название весит вдвое больше. Ранжирование — BM25
+class SearchIndex {
+    private static final int NAME_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final Map<String, IntIntHashMap> postings = new HashMap<>();
+    private final IntObjectHashMap<Document> documents = new IntObjectHashMap<>();
+    private long totalLength;
+
+    // Индексирует задачу заново: прежние слова задачи удаляются
+    void put(Task task) {
+        remove(task.getId());
+        Map<String, Integer> weights = new HashMap<>();
+        int length = addTerms(task.getName(), NAME_WEIGHT, weights)
+                + addTerms(task.getDescription(), DESCRIPTION_WEIGHT, weights);
+        if (weights.isEmpty()) {
+            return;
+        }
+        String[] terms = new String[weights.size()];
+        int index = 0;
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new IntIntHashMap(4))
+                    .put(task.getId(), entry.getValue());
+            terms[index++] = entry.getKey();
+        }
+        documents.put(task.getId(), new Document(terms, length));
+        totalLength += length;
+    }
+
+    void remove(int id) {
+        Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        for (String term : document.terms) {
+            IntIntHashMap ids = postings.get(term);
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= document.length;
+    }
+
+    int size() {
+        return documents.size();
+    }
+
+    // Id не более чем limit самых релевантных задач: сначала с большим весом, при равенстве — с меньшим id
+    int[] search(String query, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+        Set<String> terms = new LinkedHashSet<>();
+        tokenize(query, terms::add);
+        if (terms.isEmpty() || documents.isEmpty()) {
+            return new int[0];
+        }
+
+        // Веса копятся в плоских массивах, номер строки документа ищется по id
+        IntIntHashMap rowById = new IntIntHashMap();
+        int[] rowIds = new int[16];
+        double[] rowScores = new double[16];
+        int rows = 0;
+        double averageLength = (double) totalLength / documents.size();
+        for (String term : terms) {
+            IntIntHashMap ids = postings.get(term);
+            if (ids == null) {
+                continue;
+            }
+            double idf = Math.log(1 + (documents.size() - ids.size() + 0.5) / (ids.size() + 0.5));
+            Scorer scorer = new Scorer(rowById, rowIds, rowScores, rows, idf, averageLength);
+            ids.forEach(scorer);
+            rowIds = scorer.rowIds;
+            rowScores = scorer.rowScores;
+            rows = scorer.rows;
+        }
+
+        // Куча из limit лучших строк; в вершине — худшая из них
+        double[] scores = rowScores;
+        int[] ids = rowIds;
+        PriorityQueue<Integer> best = new PriorityQueue<>(Math.min(limit, rows) + 1, (a, b) -> {
+            int byScore = Double.compare(scores[a], scores[b]);
+            return byScore != 0 ? byScore : Integer.compare(ids[b], ids[a]);
+        });
+        for (int row = 0; row < rows; row++) {
+            best.add(row);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        int[] result = new int[best.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = ids[best.poll()];
+        }
+        return result;
+    }
+
+    private int addTerms(String text, int weight, Map<String, Integer> weights) {
+        List<String> terms = new ArrayList<>();
+        tokenize(text, terms::add);
+        for (String term : terms) {
+            weights.merge(term, weight, Integer::sum);
+        }
+        return terms.size() * weight;
+    }
+
+    static void tokenize(String text, Consumer<String> sink) {
+        if (text == null) {
+            return;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                sink.accept(text.substring(start, i).toLowerCase(Locale.ROOT).replace('ё', 'е'));
+                start = -1;
+            }
+        }
+    }
+
+    private class Scorer implements IntIntHashMap.EntryConsumer {
+        private final IntIntHashMap rowById;
+        private final double idf;
+        private final double averageLength;
+        private int[] rowIds;
+        private double[] rowScores;
+        private int rows;
+
+        Scorer(IntIntHashMap rowById, int[] rowIds, double[] rowScores, int rows, double idf, double averageLength) {
+            this.rowById = rowById;
+            this.rowIds = rowIds;
+            this.rowScores = rowScores;
+            this.rows = rows;
+            this.idf = idf;
+            this.averageLength = averageLength;
+        }
+
+        @Override
+        public void accept(int id, int weight) {
+            int row = rowById.get(id, -1);
+            if (row < 0) {
+                if (rows == rowIds.length) {
+                    rowIds = Arrays.copyOf(rowIds, rows * 2);
+                    rowScores = Arrays.copyOf(rowScores, rows * 2);
+                }
+                row = rows++;
+                rowById.put(id, row);
+                rowIds[row] = id;
+            }
+            double lengthNorm = 1 - B + B * documents.get(id).length / averageLength;
+            rowScores[row] += idf * weight * (K1 + 1) / (weight + K1 * lengthNorm);
+        }
+    }
+
+    private static class Document {
+        private final String[] terms; // Различные слова задачи
+        private final int length;     // Сумма весов всех вхождений
+
+        Document(String[] terms, int length) {
+            this.terms = terms;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package manager;
+
+import task.Task;
+import util.IntObjectHashMap;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+
+// Календарь занятости с фиксированным шагом: на каждый день — битовая карта слотов.
+// Дни создаются лениво, поэтому разреженный календарь на много лет почти ничего не стоит
+class SlotCalendar {
+    static final int FREE = 0;
+    static final int CONFLICT = 1;
+    static final int UNKNOWN = 2; // Нужна точная проверка по TimeIndex
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final long slotSeconds;
+    private final int slotsPerDay;
+    private final int wordsPerDay;
+    private final Map<Long, Day> days = new HashMap<>();
+    private final IntObjectHashMap<Entry> entries = new IntObjectHashMap<>();
+
+    SlotCalendar(Duration slot) {
+        if (slot == null || slot.isNegative() || slot.isZero() || slot.toSecondsPart() != 0
+                || slot.toNanosPart() != 0 || MINUTES_PER_DAY % slot.toMinutes() != 0) {
+            throw new IllegalArgumentException("Slot must be a whole number of minutes dividing a day: " + slot);
+        }
+        this.slotSeconds = slot.getSeconds();
+        this.slotsPerDay = (int) (MINUTES_PER_DAY / slot.toMinutes());
+        this.wordsPerDay = (slotsPerDay + 63) / 64;
+    }
+
+    // Отмечает интервал задачи; выровненные по слотам задачи занимают биты,
+    // остальные (в том числе нулевой длины) помечают затронутые слоты как «неточные»
+    void put(Task task) {
+        remove(task.getId());
+        if (task.getStartTime() == null || task.getDuration() == null) {
+            return;
+        }
+        long startSecond = task.getStartTime().toEpochSecond(ZoneOffset.UTC);
+        long firstSlot = Math.floorDiv(startSecond, slotSeconds);
+        Entry entry;
+        if (!task.getDuration().isZero() && isAligned(task.getStartTime(), task.getDuration())) {
+            entry = new Entry(firstSlot, task.getDuration().getSeconds() / slotSeconds, false);
+            mark(entry, true);
+        } else {
+            long lastSlot = firstSlot;
+            if (!task.getDuration().isZero()) {
+                LocalDateTime end = task.getEndTime();
+                long endSecond = end.toEpochSecond(ZoneOffset.UTC);
+                // Слот, в котором заканчивается задача, задевается, только если конец лежит внутри него
+                lastSlot = Math.floorDiv(endSecond, slotSeconds);
+                if (Math.floorMod(endSecond, slotSeconds) == 0 && end.getNano() == 0) {
+                    lastSlot--;
+                }
+                lastSlot = Math.max(lastSlot, firstSlot);
+            }
+            entry = new Entry(firstSlot, lastSlot - firstSlot + 1, true);
+            mark(entry, true);
+        }
+        entries.put(task.getId(), entry);
+    }
+
+    void remove(int id) {
+        Entry entry = entries.remove(id);
+        if (entry != null) {
+            mark(entry, false);
+        }
+    }
+
+    void clear() {
+        days.clear();
+        entries.clear();
+    }
+
+    // Быстрая проверка пересечения [start, start + duration) с занятыми слотами, кроме слотов excludeId
+    int check(LocalDateTime start, Duration duration, int excludeId) {
+        if (!isAligned(start, duration) || duration.isZero()) {
+            return UNKNOWN;
+        }
+        long firstSlot = Math.floorDiv(start.toEpochSecond(ZoneOffset.UTC), slotSeconds);
+        long slotCount = duration.getSeconds() / slotSeconds;
+        Entry excluded = entries.get(excludeId);
+        boolean uncertain = false;
+
+        long slot = firstSlot;
+        long endSlot = firstSlot + slotCount;
+        while (slot < endSlot) {
+            long dayIndex = Math.floorDiv(slot, slotsPerDay);
+            int from = (int) (slot - dayIndex * slotsPerDay);
+            int to = (int) Math.min(slotsPerDay, endSlot - dayIndex * slotsPerDay);
+            Day day = days.get(dayIndex);
+            if (day != null) {
+                for (int word = from >>> 6; word <= (to - 1) >>> 6; word++) {
+                    long busy = day.occupied[word] & wordMask(word, from, to);
+                    if (busy != 0 && excluded != null && !excluded.fuzzy) {
+                        busy &= ~entryMask(excluded, dayIndex, word);
+                    }
+                    if (busy != 0) {
+                        return CONFLICT;
+                    }
+                }
+                if (day.fuzzy != null) {
+                    for (int i = from; i < to && !uncertain; i++) {
+                        uncertain = day.fuzzy[i] > 0;
+                    }
+                }
+            }
+            slot = (dayIndex + 1) * slotsPerDay;
+        }
+        return uncertain ? UNKNOWN : FREE;
+    }
+
+    private boolean isAligned(LocalDateTime start, Duration duration) {
+        return start.getNano() == 0 && duration.getNano() == 0 && !duration.isNegative()
+                && Math.floorMod(start.toEpochSecond(ZoneOffset.UTC), slotSeconds) == 0
+                && duration.getSeconds() % slotSeconds == 0;
+    }
+
+    private void mark(Entry entry, boolean set) {
+        long slot = entry.firstSlot;
+        long endSlot = entry.firstSlot + entry.slotCount;
+        while (slot < endSlot) {
+            long dayIndex = Math.floorDiv(slot, slotsPerDay);
+            int from = (int) (slot - dayIndex * slotsPerDay);
+            int to = (int) Math.min(slotsPerDay, endSlot - dayIndex * slotsPerDay);
+            Day day = days.computeIfAbsent(dayIndex, index -> new Day(wordsPerDay));
+            if (entry.fuzzy) {
+                if (day.fuzzy == null) {
+                    day.fuzzy = new int[slotsPerDay];
+                }
+                for (int i = from; i < to; i++) {
+                    day.fuzzy[i] += set ? 1 : -1;
+                }
+            } else {
+                for (int word = from >>> 6; word <= (to - 1) >>> 6; word++) {
+                    if (set) {
+                        day.occupied[word] |= wordMask(word, from, to);
+                    } else {
+                        day.occupied[word] &= ~wordMask(word, from, to);
+                    }
+                }
+            }
+            if (!set && day.isEmpty()) {
+                days.remove(dayIndex);
+            }
+            slot = (dayIndex + 1) * slotsPerDay;
+        }
+    }
+
+    private long entryMask(Entry entry, long dayIndex, int word) {
+        long dayStart = dayIndex * slotsPerDay;
+        long from = Math.max(entry.firstSlot, dayStart) - dayStart;
+        long to = Math.min(entry.firstSlot + entry.slotCount, dayStart + slotsPerDay) - dayStart;
+        if (from >= to) {
+            return 0;
+        }
+        return wordMask(word, (int) from, (int) to);
+    }
+
+    // Маска битов слова word, попадающих в диапазон слотов [from, to)
+    private static long wordMask(int word, int from, int to) {
+        int lo = Math.max(from - (word << 6), 0);
+        int hi = Math.min(to - (word << 6), 64);
+        if (lo >= hi) {
+            return 0;
+        }
+        long upper = hi == 64 ? -1L : (1L << hi) - 1;
+        return upper & (-1L << lo);
+    }
+
+    private static class Day {
+        private final long[] occupied;
+        private int[] fuzzy; // Счётчики невыровненных задач по слотам, создаются при первой такой задаче
+
+        Day(int words) {
+            this.occupied = new long[words];
+        }
+
+        boolean isEmpty() {
+            for (long word : occupied) {
+                if (word != 0) {
+                    return false;
+                }
+            }
+            if (fuzzy != null) {
+                for (int count : fuzzy) {
+                    if (count != 0) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    private static class Entry {
+        private final long firstSlot;
+        private final long slotCount;
+        private final boolean fuzzy;
+
+        Entry(long firstSlot, long slotCount, boolean fuzzy) {
+            this.firstSlot = firstSlot;
+            this.slotCount = slotCount;
+            this.fuzzy = fuzzy;
+        }
+    }
+}
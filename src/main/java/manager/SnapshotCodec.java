@@ -0,0 +1,671 @@
+package manager;
+
+import task.Epic;
+import task.RecurringTask;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+import task.TaskType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+// Двоичный формат файла задач. Заголовок: "KNBN", версия формата (2 байта), 2 байта резерва.
+// Дальше блоки [вид 1 байт][длина содержимого 4 байта][содержимое][CRC32C содержимого 4 байта]:
+// META — следующий id, поколение журнала и размеры; STRINGS — таблица строк [длина][байты UTF-8] со сквозной
+// нумерацией по всем блокам; ENTITIES — сущности в порядке файла; DEPENDENCIES — пары id; END — конец файла.
+// Файл без END записан не до конца. Блоки неизвестного вида пропускаются, поэтому новые данные можно
+// добавлять, не поднимая версию.
+// Целые — varint по 7 бит (со знаком — zigzag). Время — минуты от эпохи (UTC), длительность — минуты;
+// остаток в наносекундах пишется, только если у сущности есть время не на границе минуты (флаг PRECISE)
+final class SnapshotCodec {
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 8;
+    private static final byte[] MAGIC = {'K', 'N', 'B', 'N'};
+    private static final int BLOCK_BYTES = 1 << 16; // Блок закрывается, когда содержимое дорастает до этого размера
+
+    private static final int END = 0;
+    private static final int META = 1;
+    private static final int STRINGS = 2;
+    private static final int ENTITIES = 3;
+    private static final int DEPENDENCIES = 4;
+
+    // Первый байт сущности
+    private static final int TYPE_MASK = 0x03;   // 0 — задача, 1 — эпик, 2 — подзадача
+    private static final int STATUS_SHIFT = 2;   // 2 бита: порядковый номер TaskStatus
+    private static final int HAS_START = 1 << 4;
+    private static final int RECURRING = 1 << 5; // Дальше правило серии: шаг, конец серии, исключения
+    private static final int PRECISE = 1 << 6;
+    private static final int HAS_UNTIL = 1 << 7;
+
+    private static final long NANOS_PER_MINUTE = 60_000_000_000L;
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private SnapshotCodec() {
+    }
+
+    static boolean isBinary(byte[] content) {
+        return content.length >= MAGIC.length
+                && Arrays.equals(content, 0, MAGIC.length, MAGIC, 0, MAGIC.length);
+    }
+
+    static byte[] encode(StoredBoard board) {
+        // Сущности пишутся первыми, чтобы собрать таблицу строк, но в файле идут после неё
+        Map<String, Integer> stringIds = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        Output entities = new Output();
+        entities.openBlock(ENTITIES);
+        for (Task task : board.entities) {
+            writeEntity(entities, task, stringIds, strings);
+            entities.splitIfFull(ENTITIES);
+        }
+        entities.closeBlock();
+
+        Output out = new Output();
+        out.writeBytes(MAGIC, 0, MAGIC.length);
+        out.writeByte(VERSION >>> 8);
+        out.writeByte(VERSION);
+        out.writeByte(0);
+        out.writeByte(0);
+        out.openBlock(META);
+        out.writeVarint(board.nextId);
+        out.writeVarlong(board.generation);
+        out.writeVarint(board.entities.size());
+        out.writeVarint(strings.size());
+        out.writeVarint(board.dependencies.size() / 2);
+        out.closeBlock();
+        out.openBlock(STRINGS);
+        for (String value : strings) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeVarint(bytes.length);
+            out.writeBytes(bytes, 0, bytes.length);
+            out.splitIfFull(STRINGS);
+        }
+        out.closeBlock();
+        out.writeBytes(entities.buffer, 0, entities.size);
+        out.openBlock(DEPENDENCIES);
+        for (int i = 0; i < board.dependencies.size(); i += 2) {
+            out.writeVarint(board.dependencies.get(i));
+            out.writeVarint(board.dependencies.get(i + 1));
+            out.splitIfFull(DEPENDENCIES);
+        }
+        out.closeBlock();
+        out.openBlock(END);
+        out.closeBlock();
+        return Arrays.copyOf(out.buffer, out.size);
+    }
+
+    // Обходчик файла: получает содержимое блоков по мере чтения, каждый блок уже проверен.
+    // string и entity должны прочитать ровно одну запись из block
+    interface Visitor {
+        void meta(int nextId, long generation, int entityCount, int stringCount);
+
+        void string(Input block);
+
+        void entity(Input block);
+
+        void dependency(int blockerId, int blockedId);
+    }
+
+    static StoredBoard decode(byte[] content) {
+        BoardReader reader = new BoardReader();
+        read(ByteBuffer.wrap(content), reader);
+        return reader.board;
+    }
+
+    static void read(ByteBuffer content, Visitor visitor) {
+        checkHeader(content);
+        boolean started = false;
+        int position = HEADER_BYTES;
+        while (true) {
+            Input block = openBlock(content, position);
+            int kind = content.get(position);
+            position = block.limit + Integer.BYTES;
+            if (kind == END) {
+                break;
+            }
+            if (kind != META && !started) {
+                throw new ManagerSaveException("Task snapshot has no header block");
+            }
+            switch (kind) {
+                case META:
+                    started = true;
+                    visitor.meta(block.readVarint(), block.readVarlong(), block.readVarint(), block.readVarint());
+                    break;
+                case STRINGS:
+                    while (block.hasRemaining()) {
+                        visitor.string(block);
+                    }
+                    break;
+                case ENTITIES:
+                    while (block.hasRemaining()) {
+                        visitor.entity(block);
+                    }
+                    break;
+                case DEPENDENCIES:
+                    while (block.hasRemaining()) {
+                        visitor.dependency(block.readVarint(), block.readVarint());
+                    }
+                    break;
+                default:
+                    break; // Данные более новой версии, которые этой не нужны
+            }
+        }
+        if (!started) {
+            throw new ManagerSaveException("Task snapshot has no header block");
+        }
+    }
+
+    private static void checkHeader(ByteBuffer content) {
+        if (content.limit() < HEADER_BYTES) {
+            throw new ManagerSaveException("Not a binary task snapshot");
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (content.get(i) != MAGIC[i]) {
+                throw new ManagerSaveException("Not a binary task snapshot");
+            }
+        }
+        int version = content.getShort(MAGIC.length) & 0xFFFF;
+        if (version > VERSION) {
+            throw new ManagerSaveException("Unsupported task snapshot version: " + version);
+        }
+    }
+
+    // Проверяет длину и контрольную сумму блока, который начинается в position; возвращает его содержимое
+    private static Input openBlock(ByteBuffer content, int position) {
+        if (position > content.limit() - 1 - Integer.BYTES) {
+            throw new ManagerSaveException("Task snapshot is truncated at offset " + position);
+        }
+        int length = content.getInt(position + 1);
+        int start = position + 1 + Integer.BYTES;
+        if (length < 0 || length > content.limit() - start - Integer.BYTES) {
+            throw new ManagerSaveException("Task snapshot is truncated at offset " + position);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(content.duplicate().limit(start + length).position(start));
+        if ((int) crc.getValue() != content.getInt(start + length)) {
+            throw new ManagerSaveException("Task snapshot block at offset " + position + " is corrupted");
+        }
+        return new Input(content, start, start + length);
+    }
+
+    private static void writeEntity(Output out, Task task, Map<String, Integer> stringIds, List<String> strings) {
+        RecurringTask series = task instanceof RecurringTask ? (RecurringTask) task : null;
+        boolean precise = needsPrecision(task, series);
+        int flags = typeCode(task.getType()) | task.getStatus().ordinal() << STATUS_SHIFT;
+        if (task.getStartTime() != null) {
+            flags |= HAS_START;
+        }
+        if (series != null) {
+            flags |= RECURRING;
+            if (series.getUntil() != null) {
+                flags |= HAS_UNTIL;
+            }
+        }
+        if (precise) {
+            flags |= PRECISE;
+        }
+        out.writeByte(flags);
+        out.writeVarint(task.getId());
+        out.writeVarint(stringRef(task.getName(), stringIds, strings));
+        out.writeVarint(stringRef(task.getDescription(), stringIds, strings));
+        writeDuration(out, task.getDuration(), precise);
+        if (task.getStartTime() != null) {
+            writeTime(out, task.getStartTime(), precise);
+        }
+        if (task.getType() == TaskType.SUBTASK) {
+            out.writeVarint(((Subtask) task).getEpicId());
+        }
+        if (series != null) {
+            writeDuration(out, series.getEvery(), precise);
+            if (series.getUntil() != null) {
+                writeTime(out, series.getUntil(), precise);
+            }
+            out.writeVarint(series.getExceptions().size());
+            for (Map.Entry<LocalDateTime, LocalDateTime> exception : series.getExceptions().entrySet()) {
+                writeTime(out, exception.getKey(), precise);
+                if (exception.getValue() == null) {
+                    out.writeByte(0); // Вхождение пропущено
+                } else {
+                    out.writeByte(1);
+                    writeTime(out, exception.getValue(), precise);
+                }
+            }
+        }
+    }
+
+    // Поля сущности до правила серии, без строк: имя и описание — номера строк в таблице плюс один (0 — null).
+    // Время хранится так же, как в файле, чтобы читателю не приходилось создавать LocalDateTime и Duration
+    static final class Record {
+        private int flags;
+        private int id;
+        private int name;
+        private int description;
+        private long durationMinutes;
+        private long durationExtra; // Наносекунды сверх целых минут
+        private long startMinutes;
+        private long startExtra;
+        private int epicId;
+
+        int id() {
+            return id;
+        }
+
+        int name() {
+            return name;
+        }
+
+        int description() {
+            return description;
+        }
+
+        TaskType type() {
+            switch (flags & TYPE_MASK) {
+                case 1:
+                    return TaskType.EPIC;
+                case 2:
+                    return TaskType.SUBTASK;
+                default:
+                    return TaskType.TASK;
+            }
+        }
+
+        TaskStatus status() {
+            return STATUSES[flags >>> STATUS_SHIFT & 0x03];
+        }
+
+        int epicId() {
+            return epicId;
+        }
+
+        boolean isRecurring() {
+            return (flags & RECURRING) != 0;
+        }
+
+        boolean hasStart() {
+            return (flags & HAS_START) != 0;
+        }
+
+        LocalDateTime startTime() {
+            return hasStart() ? toTime(startMinutes, startExtra) : null;
+        }
+
+        Duration duration() {
+            return toDuration(durationMinutes, durationExtra);
+        }
+
+        // EpochNanos начала; время вне диапазона — ошибка, как у EpochNanos.of
+        long startNanos() {
+            return toNanos(startMinutes, startExtra, "Time");
+        }
+
+        long durationNanos() {
+            return toNanos(durationMinutes, durationExtra, "Duration");
+        }
+
+        private static long toNanos(long minutes, long extra, String what) {
+            try {
+                return Math.addExact(Math.multiplyExact(minutes, NANOS_PER_MINUTE), extra);
+            } catch (ArithmeticException exception) {
+                throw new IllegalArgumentException(what + " is out of supported range: " + minutes + " min");
+            }
+        }
+    }
+
+    // Читает поля сущности; правило серии (isRecurring) остаётся непрочитанным
+    static void readRecord(Input in, Record record) {
+        int flags = in.readByte();
+        boolean precise = (flags & PRECISE) != 0;
+        record.flags = flags;
+        record.id = in.readVarint();
+        record.name = in.readVarint();
+        record.description = in.readVarint();
+        record.durationMinutes = unzigzag(in.readVarlong());
+        record.durationExtra = readExtra(in, precise);
+        if ((flags & HAS_START) != 0) {
+            record.startMinutes = unzigzag(in.readVarlong());
+            record.startExtra = readExtra(in, precise);
+        }
+        record.epicId = (flags & TYPE_MASK) == 2 ? in.readVarint() : 0;
+    }
+
+    // Декодирование файла целиком в объекты
+    private static final class BoardReader implements Visitor {
+        private final Record record = new Record();
+        private StoredBoard board;
+        private String[] strings;
+        private int stringCount;
+
+        @Override
+        public void meta(int nextId, long generation, int entityCount, int stringCount) {
+            board = new StoredBoard(entityCount);
+            board.nextId = nextId;
+            board.generation = generation;
+            strings = new String[stringCount];
+        }
+
+        @Override
+        public void string(Input block) {
+            if (stringCount == strings.length) {
+                throw new ManagerSaveException("Task snapshot has more strings than declared");
+            }
+            strings[stringCount++] = block.readString();
+        }
+
+        @Override
+        public void entity(Input block) {
+            readRecord(block, record);
+            String name = stringAt(strings, record.name);
+            String description = stringAt(strings, record.description);
+            Task task;
+            switch (record.type()) {
+                case EPIC:
+                    task = new Epic(name, description);
+                    break;
+                case SUBTASK:
+                    task = new Subtask(name, description, record.epicId);
+                    break;
+                default:
+                    if (record.isRecurring()) {
+                        task = readSeries(block, record, name, description);
+                        task.setId(record.id);
+                        board.entities.add(task);
+                        return;
+                    }
+                    task = new Task(name, description);
+            }
+            task.setId(record.id);
+            task.setStatus(record.status());
+            task.setDuration(record.duration());
+            task.setStartTime(record.startTime());
+            board.entities.add(task);
+        }
+
+        @Override
+        public void dependency(int blockerId, int blockedId) {
+            board.addDependency(blockerId, blockedId);
+        }
+    }
+
+    private static RecurringTask readSeries(Input in, Record record, String name, String description) {
+        boolean precise = (record.flags & PRECISE) != 0;
+        Duration every = readDuration(in, precise);
+        LocalDateTime until = (record.flags & HAS_UNTIL) != 0 ? readTime(in, precise) : null;
+        RecurringTask series = new RecurringTask(name, description, record.status(), record.duration(),
+                record.startTime(), every, until);
+        for (int i = in.readVarint(); i > 0; i--) {
+            LocalDateTime occurrence = readTime(in, precise);
+            if (in.readByte() == 0) {
+                series.skipOccurrence(occurrence);
+            } else {
+                series.moveOccurrence(occurrence, readTime(in, precise));
+            }
+        }
+        return series;
+    }
+
+    private static int typeCode(TaskType type) {
+        switch (type) {
+            case EPIC:
+                return 1;
+            case SUBTASK:
+                return 2;
+            default:
+                return 0;
+        }
+    }
+
+    // 0 — null, иначе номер строки в таблице плюс один
+    private static int stringRef(String value, Map<String, Integer> stringIds, List<String> strings) {
+        if (value == null) {
+            return 0;
+        }
+        Integer existing = stringIds.putIfAbsent(value, strings.size() + 1);
+        if (existing != null) {
+            return existing;
+        }
+        strings.add(value);
+        return strings.size();
+    }
+
+    private static String stringAt(String[] strings, int ref) {
+        if (ref < 0 || ref > strings.length) {
+            throw new ManagerSaveException("Task snapshot refers to a missing string: " + ref);
+        }
+        return ref == 0 ? null : strings[ref - 1];
+    }
+
+    private static boolean needsPrecision(Task task, RecurringTask series) {
+        if (remainder(task.getDuration()) != 0 || remainder(task.getStartTime()) != 0) {
+            return true;
+        }
+        if (series == null) {
+            return false;
+        }
+        if (remainder(series.getEvery()) != 0 || remainder(series.getUntil()) != 0) {
+            return true;
+        }
+        for (Map.Entry<LocalDateTime, LocalDateTime> exception : series.getExceptions().entrySet()) {
+            if (remainder(exception.getKey()) != 0 || remainder(exception.getValue()) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Наносекунды сверх целых минут; для null — 0
+    private static long remainder(LocalDateTime time) {
+        return time == null ? 0 : time.getSecond() * 1_000_000_000L + time.getNano();
+    }
+
+    private static long remainder(Duration duration) {
+        return duration == null ? 0 : Math.floorMod(duration.getSeconds(), 60) * 1_000_000_000L + duration.getNano();
+    }
+
+    private static void writeTime(Output out, LocalDateTime time, boolean precise) {
+        out.writeVarlong(zigzag(Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60)));
+        if (precise) {
+            out.writeVarlong(remainder(time));
+        }
+    }
+
+    private static LocalDateTime readTime(Input in, boolean precise) {
+        long minutes = unzigzag(in.readVarlong());
+        return toTime(minutes, readExtra(in, precise));
+    }
+
+    private static LocalDateTime toTime(long minutes, long extra) {
+        return LocalDateTime.ofEpochSecond(minutes * 60 + extra / 1_000_000_000L, (int) (extra % 1_000_000_000L),
+                ZoneOffset.UTC);
+    }
+
+    // Доля минуты в наносекундах, если у сущности есть время не на границе минуты
+    private static long readExtra(Input in, boolean precise) {
+        if (!precise) {
+            return 0;
+        }
+        long extra = in.readVarlong();
+        if (extra >= NANOS_PER_MINUTE) {
+            throw new ManagerSaveException("Task snapshot has a malformed time");
+        }
+        return extra;
+    }
+
+    private static void writeDuration(Output out, Duration duration, boolean precise) {
+        out.writeVarlong(zigzag(Math.floorDiv(duration.getSeconds(), 60)));
+        if (precise) {
+            out.writeVarlong(remainder(duration));
+        }
+    }
+
+    private static Duration readDuration(Input in, boolean precise) {
+        long minutes = unzigzag(in.readVarlong());
+        return toDuration(minutes, readExtra(in, precise));
+    }
+
+    private static Duration toDuration(long minutes, long extra) {
+        return extra == 0 ? Duration.ofMinutes(minutes) : Duration.ofSeconds(minutes * 60, extra);
+    }
+
+    private static long zigzag(long value) {
+        return value << 1 ^ value >> 63;
+    }
+
+    private static long unzigzag(long value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    // Растущий буфер записи с блоками: длина блока дописывается при закрытии
+    private static final class Output {
+        private byte[] buffer = new byte[BLOCK_BYTES];
+        private int size;
+        private int blockStart = -1; // Первый байт содержимого открытого блока
+
+        void openBlock(int kind) {
+            writeByte(kind);
+            ensureCapacity(Integer.BYTES);
+            size += Integer.BYTES; // Место под длину
+            blockStart = size;
+        }
+
+        void closeBlock() {
+            int length = size - blockStart;
+            writeInt(blockStart - Integer.BYTES, length);
+            CRC32C crc = new CRC32C();
+            crc.update(buffer, blockStart, length);
+            ensureCapacity(Integer.BYTES);
+            writeInt(size, (int) crc.getValue());
+            size += Integer.BYTES;
+            blockStart = -1;
+        }
+
+        // Граница блока — только между записями, чтобы запись читалась из одного блока
+        void splitIfFull(int kind) {
+            if (size - blockStart >= BLOCK_BYTES) {
+                closeBlock();
+                openBlock(kind);
+            }
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[size++] = (byte) value;
+        }
+
+        void writeBytes(byte[] bytes, int offset, int length) {
+            ensureCapacity(length);
+            System.arraycopy(bytes, offset, buffer, size, length);
+            size += length;
+        }
+
+        void writeVarint(int value) {
+            writeVarlong(value & 0xFFFFFFFFL);
+        }
+
+        void writeVarlong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) (value & 0x7F | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        private void writeInt(int position, int value) {
+            buffer[position] = (byte) (value >>> 24);
+            buffer[position + 1] = (byte) (value >>> 16);
+            buffer[position + 2] = (byte) (value >>> 8);
+            buffer[position + 3] = (byte) value;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(size + extra, buffer.length * 2));
+            }
+        }
+    }
+
+    // Чтение содержимого одного блока; выход за его конец — повреждённый файл
+    static final class Input {
+        private final ByteBuffer content;
+        private final int limit;
+        private int position;
+
+        Input(ByteBuffer content, int position, int limit) {
+            this.content = content;
+            this.position = position;
+            this.limit = limit;
+        }
+
+        boolean hasRemaining() {
+            return position < limit;
+        }
+
+        int position() {
+            return position;
+        }
+
+        int readByte() {
+            if (position >= limit) {
+                throw new ManagerSaveException("Task snapshot record overruns its block");
+            }
+            return content.get(position++) & 0xFF;
+        }
+
+        int readVarint() {
+            long value = readVarlong();
+            if (value >>> 32 != 0) {
+                throw new ManagerSaveException("Task snapshot has a malformed number");
+            }
+            return (int) value;
+        }
+
+        long readVarlong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int next = readByte();
+                value |= (long) (next & 0x7F) << shift;
+                if (next < 0x80) {
+                    return value;
+                }
+            }
+            throw new ManagerSaveException("Task snapshot has a malformed number");
+        }
+
+        String readString() {
+            int length = stringLength();
+            String value;
+            if (content.hasArray()) {
+                value = new String(content.array(), content.arrayOffset() + position, length, StandardCharsets.UTF_8);
+            } else {
+                byte[] bytes = new byte[length];
+                content.get(position, bytes);
+                value = new String(bytes, StandardCharsets.UTF_8);
+            }
+            position += length;
+            return value;
+        }
+
+        void skipString() {
+            int length = stringLength(); // До сложения: длина сдвигает position
+            position += length;
+        }
+
+        private int stringLength() {
+            int length = readVarint();
+            if (length < 0 || length > limit - position) {
+                throw new ManagerSaveException("Task snapshot record overruns its block");
+            }
+            return length;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package manager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Перевод файла задач из CSV в двоичный формат с сохранением id, зависимостей и поколения журнала.
+// Без второго аргумента файл заменяется на месте: его журнал <файл>.wal остаётся действительным.
+// Журнал не переносится в файл с другим именем, поэтому в новый файл попадает только сам CSV
+public final class SnapshotConverter {
+
+    private SnapshotConverter() {
+    }
+
+    public static void convert(Path csv, Path binary) throws IOException {
+        byte[] content = Files.readAllBytes(csv);
+        if (SnapshotCodec.isBinary(content)) {
+            throw new IllegalArgumentException("File is already in binary format: " + csv);
+        }
+        FileBackedTaskManager.replaceFile(binary, SnapshotCodec.encode(FileBackedTaskManager.parse(content)));
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.out.println("Использование: SnapshotConverter <файл.csv> [двоичный файл]");
+            return;
+        }
+        Path csv = Path.of(args[0]);
+        Path binary = args.length == 2 ? Path.of(args[1]) : csv;
+        convert(csv, binary);
+        System.out.println("Файл задач переведён в двоичный формат: " + binary);
+    }
+}
@@ -0,0 +1,58 @@
+package manager;
+
+import task.Task;
+import task.TaskStatus;
+import task.TaskType;
+import util.IntHashSet;
+
+import java.util.Arrays;
+
+// Вторичный индекс: множества id по типу и статусу. Отражает статусы на момент последней записи в менеджер
+class StatusIndex {
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private final IntHashSet[][] ids = new IntHashSet[TaskType.values().length][STATUSES.length];
+
+    StatusIndex() {
+        for (IntHashSet[] byStatus : ids) {
+            for (int i = 0; i < byStatus.length; i++) {
+                byStatus[i] = new IntHashSet();
+            }
+        }
+    }
+
+    // Переносит id в множество текущего статуса; задача без статуса из индекса убирается
+    void put(Task task) {
+        put(task.getId(), task.getType(), task.getStatus());
+    }
+
+    void put(int id, TaskType type, TaskStatus current) {
+        IntHashSet[] byStatus = ids[type.ordinal()];
+        for (TaskStatus status : STATUSES) {
+            if (status == current) {
+                byStatus[status.ordinal()].add(id);
+            } else {
+                byStatus[status.ordinal()].remove(id);
+            }
+        }
+    }
+
+    void remove(int id, TaskType type) {
+        for (IntHashSet set : ids[type.ordinal()]) {
+            set.remove(id);
+        }
+    }
+
+    void clear(TaskType type) {
+        for (IntHashSet set : ids[type.ordinal()]) {
+            set.clear();
+        }
+    }
+
+    // Id в порядке возрастания, то есть в порядке создания
+    int[] ids(TaskStatus status, TaskType type) {
+        int[] result = ids[type.ordinal()][status.ordinal()].toArray();
+        Arrays.sort(result);
+        return result;
+    }
+}
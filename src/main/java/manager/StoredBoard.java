@@ -0,0 +1,26 @@
+package manager;
+
+import task.Task;
+import util.IntArrayList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Содержимое файла задач независимо от формата: сущности с их id (эпики раньше своих подзадач),
+// зависимости парами «блокирующая, заблокированная», первый невыданный id и поколение журнала
+final class StoredBoard {
+    final List<Task> entities;
+    final IntArrayList dependencies;
+    int nextId = 1;
+    long generation; // 0 — файл без журнала
+
+    StoredBoard(int expectedEntities) {
+        this.entities = new ArrayList<>(expectedEntities);
+        this.dependencies = new IntArrayList();
+    }
+
+    void addDependency(int blockerId, int blockedId) {
+        dependencies.add(blockerId);
+        dependencies.add(blockedId);
+    }
+}
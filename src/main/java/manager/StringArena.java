@@ -0,0 +1,83 @@
+package manager;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Строки вне кучи: запись [длина int][байты UTF-8] в сегментах по SEGMENT_BYTES.
+// Ссылка на строку — номер сегмента в старших 32 битах и смещение в младших.
+// Место удалённых строк не переиспользуется, а копится как мусор до уплотнения.
+// Ссылки меньше NULL указывают не в арену, а в таблицу строк отображённого файла задач (MappedSnapshot)
+final class StringArena {
+    static final long NULL = -1; // Ссылка на null
+    private static final int SEGMENT_BYTES = 1 << 20;
+
+    private final List<ByteBuffer> segments = new ArrayList<>();
+    private ByteBuffer current; // position — первый свободный байт последнего сегмента
+    private long liveBytes;
+    private long garbageBytes;
+
+    long put(String value) {
+        if (value == null) {
+            return NULL;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int size = Integer.BYTES + bytes.length;
+        if (current == null || current.remaining() < size) {
+            current = ByteBuffer.allocateDirect(Math.max(SEGMENT_BYTES, size)); // Длинная строка — в свой сегмент
+            segments.add(current);
+        }
+        int offset = current.position();
+        current.putInt(bytes.length).put(bytes);
+        liveBytes += size;
+        return ((long) (segments.size() - 1) << 32) | offset;
+    }
+
+    // Ссылка на строку таблицы файла по номеру из SnapshotCodec.Record (0 — null)
+    static long mapped(int stringRef) {
+        return NULL - stringRef;
+    }
+
+    static boolean isMapped(long ref) {
+        return ref < NULL;
+    }
+
+    static int mappedIndex(long ref) {
+        return (int) (NULL - ref);
+    }
+
+    String get(long ref) {
+        if (ref == NULL) {
+            return null;
+        }
+        ByteBuffer segment = segments.get((int) (ref >>> 32));
+        int offset = (int) ref;
+        byte[] bytes = new byte[segment.getInt(offset)];
+        segment.get(offset + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Помечает строку удалённой; сама ссылка после этого недействительна
+    void release(long ref) {
+        if (ref <= NULL) {
+            return; // Строки файла места в арене не занимают
+        }
+        int size = Integer.BYTES + segments.get((int) (ref >>> 32)).getInt((int) ref);
+        liveBytes -= size;
+        garbageBytes += size;
+    }
+
+    // Уплотнять стоит, когда мусора больше, чем живых строк, и он занимает хотя бы сегмент
+    boolean needsCompaction() {
+        return garbageBytes >= SEGMENT_BYTES && garbageBytes > liveBytes;
+    }
+
+    long capacityBytes() {
+        long capacity = 0;
+        for (ByteBuffer segment : segments) {
+            capacity += segment.capacity();
+        }
+        return capacity;
+    }
+}
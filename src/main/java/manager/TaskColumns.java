@@ -0,0 +1,211 @@
+package manager;
+
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+import task.TaskType;
+import util.EpochNanos;
+import util.IntArrayList;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Duration;
+import java.util.Arrays;
+
+// Поля сущностей фиксированной ширины, каждое в своём столбце вне кучи. Строка таблицы — одна
+// задача, эпик или подзадача. Память выделяется сегментами по SEGMENT_ROWS строк, поэтому рост
+// не копирует уже записанные данные; освобождённые строки переиспользуются
+final class TaskColumns {
+    private static final int SEGMENT_SHIFT = 16;
+    private static final int SEGMENT_ROWS = 1 << SEGMENT_SHIFT;
+    private static final int ROW_MASK = SEGMENT_ROWS - 1;
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final byte NO_STATUS = -1;
+    private static final byte HAS_START = 1;
+    private static final byte HAS_DURATION = 2;
+
+    private final Column ids = new Column(Integer.BYTES);
+    private final Column types = new Column(Byte.BYTES);
+    private final Column statuses = new Column(Byte.BYTES);
+    private final Column flags = new Column(Byte.BYTES);
+    private final Column epicIds = new Column(Integer.BYTES);
+    private final Column starts = new Column(Long.BYTES); // EpochNanos
+    private final Column durations = new Column(Long.BYTES); // Наносекунды
+    private final Column names = new Column(Long.BYTES); // Ссылки StringArena
+    private final Column descriptions = new Column(Long.BYTES);
+    private final Column[] all = {ids, types, statuses, flags, epicIds, starts, durations, names, descriptions};
+    private final IntArrayList freeRows = new IntArrayList();
+    private int rowCount; // Строк выделено за всё время, включая освобождённые
+
+    int allocate() {
+        if (!freeRows.isEmpty()) {
+            return freeRows.removeAt(freeRows.size() - 1);
+        }
+        if ((rowCount & ROW_MASK) == 0) {
+            for (Column column : all) {
+                column.addSegment();
+            }
+        }
+        return rowCount++;
+    }
+
+    void free(int row) {
+        freeRows.add(row);
+    }
+
+    // Помещается ли время задачи в столбцы; вызывается до любых изменений, чтобы ошибка ничего не испортила
+    static void checkFits(Task task) {
+        if (task.getStartTime() != null) {
+            EpochNanos.of(task.getStartTime());
+        }
+        if (task.getDuration() != null) {
+            toNanos(task.getDuration());
+        }
+    }
+
+    void write(int row, Task task, long nameRef, long descriptionRef) {
+        long start = task.getStartTime() != null ? EpochNanos.of(task.getStartTime()) : 0;
+        long duration = task.getDuration() != null ? toNanos(task.getDuration()) : 0;
+        byte rowFlags = (byte) ((task.getStartTime() != null ? HAS_START : 0)
+                | (task.getDuration() != null ? HAS_DURATION : 0));
+        write(row, task.getId(), task.getType(), task.getStatus(),
+                task instanceof Subtask ? ((Subtask) task).getEpicId() : 0, rowFlags, start, duration);
+        setStrings(row, nameRef, descriptionRef);
+    }
+
+    // Запись из файла задач без объекта: продолжительность у сохранённых сущностей есть всегда
+    void write(int row, int id, TaskType type, TaskStatus status, int epicId, boolean hasStart, long start,
+               long duration, long nameRef, long descriptionRef) {
+        write(row, id, type, status, epicId, (byte) ((hasStart ? HAS_START : 0) | HAS_DURATION), start, duration);
+        setStrings(row, nameRef, descriptionRef);
+    }
+
+    private void write(int row, int id, TaskType type, TaskStatus status, int epicId, byte rowFlags, long start,
+                       long duration) {
+        ids.putInt(row, id);
+        types.putByte(row, (byte) type.ordinal());
+        setStatus(row, status);
+        flags.putByte(row, rowFlags);
+        epicIds.putInt(row, epicId);
+        starts.putLong(row, start);
+        durations.putLong(row, duration);
+    }
+
+    void setStatus(int row, TaskStatus status) {
+        statuses.putByte(row, status != null ? (byte) status.ordinal() : NO_STATUS);
+    }
+
+    void setStrings(int row, long nameRef, long descriptionRef) {
+        names.putLong(row, nameRef);
+        descriptions.putLong(row, descriptionRef);
+    }
+
+    int id(int row) {
+        return ids.getInt(row);
+    }
+
+    TaskType type(int row) {
+        return TYPES[types.getByte(row)];
+    }
+
+    TaskStatus status(int row) {
+        byte status = statuses.getByte(row);
+        return status != NO_STATUS ? STATUSES[status] : null;
+    }
+
+    int epicId(int row) {
+        return epicIds.getInt(row);
+    }
+
+    boolean hasStart(int row) {
+        return (flags.getByte(row) & HAS_START) != 0;
+    }
+
+    long start(int row) {
+        return starts.getLong(row);
+    }
+
+    boolean hasDuration(int row) {
+        return (flags.getByte(row) & HAS_DURATION) != 0;
+    }
+
+    long duration(int row) {
+        return durations.getLong(row);
+    }
+
+    long nameRef(int row) {
+        return names.getLong(row);
+    }
+
+    long descriptionRef(int row) {
+        return descriptions.getLong(row);
+    }
+
+    long capacityBytes() {
+        long capacity = 0;
+        for (Column column : all) {
+            capacity += column.capacityBytes();
+        }
+        return capacity;
+    }
+
+    private static long toNanos(Duration duration) {
+        try {
+            return duration.toNanos();
+        } catch (ArithmeticException exception) {
+            throw new IllegalArgumentException("Duration is out of supported range: " + duration);
+        }
+    }
+
+    private static final class Column {
+        private final int width;
+        private ByteBuffer[] segments = new ByteBuffer[0];
+
+        Column(int width) {
+            this.width = width;
+        }
+
+        void addSegment() {
+            segments = Arrays.copyOf(segments, segments.length + 1);
+            segments[segments.length - 1] = ByteBuffer.allocateDirect(SEGMENT_ROWS * width)
+                    .order(ByteOrder.nativeOrder());
+        }
+
+        long capacityBytes() {
+            return (long) segments.length * SEGMENT_ROWS * width;
+        }
+
+        private ByteBuffer segment(int row) {
+            return segments[row >>> SEGMENT_SHIFT];
+        }
+
+        private int offset(int row) {
+            return (row & ROW_MASK) * width;
+        }
+
+        byte getByte(int row) {
+            return segment(row).get(offset(row));
+        }
+
+        void putByte(int row, byte value) {
+            segment(row).put(offset(row), value);
+        }
+
+        int getInt(int row) {
+            return segment(row).getInt(offset(row));
+        }
+
+        void putInt(int row, int value) {
+            segment(row).putInt(offset(row), value);
+        }
+
+        long getLong(int row) {
+            return segment(row).getLong(offset(row));
+        }
+
+        void putLong(int row, long value) {
+            segment(row).putLong(offset(row), value);
+        }
+    }
+}
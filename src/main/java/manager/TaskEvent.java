@@ -0,0 +1,87 @@
+package manager;
+
+import task.Task;
+import task.TaskType;
+
+import java.util.List;
+
+// Изменение в менеджере. События идут в порядке изменений; version — номер изменения (getVersion),
+// которым событие внесено, поэтому потребитель может сверить себя со срезом getSnapshot
+public final class TaskEvent {
+    public enum Kind {
+        ADDED,
+        UPDATED,
+        DELETED,            // task — последнее состояние удалённой сущности
+        CLEARED,            // Удалены все сущности типа getType(); id = 0, task = null
+        EPIC_ROLLED_UP,     // Пересчитаны статус и время эпика после изменения его подзадач
+        DEPENDENCY_ADDED,   // task — заблокированная задача, getBlockerId() — блокирующая
+        DEPENDENCY_REMOVED
+    }
+
+    // Синхронный слушатель: вызывается в потоке изменения сразу после него. Исключение слушателя
+    // уходит вызывающему, но само изменение к этому моменту уже внесено
+    @FunctionalInterface
+    public interface Listener {
+        void onEvent(TaskEvent event);
+    }
+
+    // Асинхронный слушатель: события, накопившиеся за время доставки предыдущей пачки, приходят
+    // одной пачкой в фоновом потоке. Пачки одного слушателя не пересекаются и идут по порядку
+    @FunctionalInterface
+    public interface BatchListener {
+        void onEvents(List<TaskEvent> events);
+    }
+
+    private final Kind kind;
+    private final TaskType type;
+    private final int id;
+    private final int blockerId;
+    private final Task task;
+    private final long version;
+
+    TaskEvent(Kind kind, TaskType type, int id, int blockerId, Task task, long version) {
+        this.kind = kind;
+        this.type = type;
+        this.id = id;
+        this.blockerId = blockerId;
+        this.task = task;
+        this.version = version;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public TaskType getType() {
+        return type;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    // Id блокирующей задачи для событий зависимостей, иначе 0
+    public int getBlockerId() {
+        return blockerId;
+    }
+
+    // Сама сущность, а не копия: асинхронный слушатель может увидеть её уже с более поздними правками
+    public Task getTask() {
+        return task;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskEvent {" +
+                "kind= " + kind +
+                ", type= " + type +
+                ", id= " + id +
+                (blockerId != 0 ? ", blockerId= " + blockerId : "") +
+                ", version= " + version +
+                '}';
+    }
+}
@@ -0,0 +1,153 @@
+package manager;
+
+import task.Task;
+import task.TaskType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Рассылка событий менеджера. Пока подписчиков нет, publish не создаёт объектов.
+// Асинхронные слушатели разбираются общим пулом фоновых потоков: у каждого своя очередь и не больше
+// одной доставки за раз, поэтому медленный слушатель копит очередь, но не задерживает остальных
+final class TaskEventBus {
+    private static final ExecutorService DELIVERY = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "task-events");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final List<TaskEvent.Listener> listeners = new CopyOnWriteArrayList<>();
+    private final List<BatchDelivery> batchListeners = new CopyOnWriteArrayList<>();
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+    private volatile boolean active;
+
+    void addListener(TaskEvent.Listener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        listeners.add(listener);
+        active = true;
+    }
+
+    void removeListener(TaskEvent.Listener listener) {
+        listeners.remove(listener);
+        updateActive();
+    }
+
+    void addBatchListener(TaskEvent.BatchListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        batchListeners.add(new BatchDelivery(listener));
+        active = true;
+    }
+
+    // Недоставленные события снятого слушателя отбрасываются
+    void removeBatchListener(TaskEvent.BatchListener listener) {
+        for (BatchDelivery delivery : batchListeners) {
+            if (delivery.listener == listener) {
+                batchListeners.remove(delivery);
+                break;
+            }
+        }
+        updateActive();
+    }
+
+    // Слушатель конца изменения: вызывается в потоке изменения один раз, когда все его события уже
+    // разосланы. Одно изменение может дать несколько событий (пакет, очистка эпиков, план расписания)
+    void addChangeListener(Runnable listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        changeListeners.add(listener);
+    }
+
+    private void updateActive() {
+        active = !listeners.isEmpty() || !batchListeners.isEmpty();
+    }
+
+    // Есть ли подписчики: менеджер может не готовить данные для события, которое некому отдать
+    boolean isActive() {
+        return active;
+    }
+
+    void publish(TaskEvent.Kind kind, Task task, long version) {
+        if (active) {
+            publish(new TaskEvent(kind, task.getType(), task.getId(), 0, task, version));
+        }
+    }
+
+    void publishCleared(TaskType type, long version) {
+        if (active) {
+            publish(new TaskEvent(TaskEvent.Kind.CLEARED, type, 0, 0, null, version));
+        }
+    }
+
+    void publishDependency(TaskEvent.Kind kind, int blockerId, Task blocked, long version) {
+        if (active) {
+            publish(new TaskEvent(kind, blocked.getType(), blocked.getId(), blockerId, blocked, version));
+        }
+    }
+
+    void publishChangeEnd() {
+        for (Runnable listener : changeListeners) {
+            listener.run();
+        }
+    }
+
+    // Сначала события встают в асинхронные очереди, чтобы исключение синхронного слушателя их не потеряло
+    private void publish(TaskEvent event) {
+        for (BatchDelivery delivery : batchListeners) {
+            delivery.offer(event);
+        }
+        for (TaskEvent.Listener listener : listeners) {
+            listener.onEvent(event);
+        }
+    }
+
+    private final class BatchDelivery implements Runnable {
+        private final TaskEvent.BatchListener listener;
+        private final ConcurrentLinkedQueue<TaskEvent> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean(); // Доставка запущена или ждёт потока
+
+        BatchDelivery(TaskEvent.BatchListener listener) {
+            this.listener = listener;
+        }
+
+        void offer(TaskEvent event) {
+            queue.add(event);
+            if (scheduled.compareAndSet(false, true)) {
+                DELIVERY.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            List<TaskEvent> batch = new ArrayList<>();
+            for (TaskEvent event; (event = queue.poll()) != null; ) {
+                batch.add(event);
+            }
+            try {
+                if (!batch.isEmpty() && batchListeners.contains(this)) {
+                    listener.onEvents(Collections.unmodifiableList(batch));
+                }
+            } catch (RuntimeException e) {
+                // Сбой слушателя не должен останавливать доставку следующих пачек
+                Thread current = Thread.currentThread();
+                current.getUncaughtExceptionHandler().uncaughtException(current, e);
+            } finally {
+                scheduled.set(false);
+                // Событие могло встать в очередь, пока флаг ещё был поднят
+                if (!queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+                    DELIVERY.execute(this);
+                }
+            }
+        }
+    }
+}
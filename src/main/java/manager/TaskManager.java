@@ -3,7 +3,11 @@ package manager;
 import task.Epic;
 import task.Subtask;
 import task.Task;
+import task.TaskStatus;
+import task.TaskType;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.*;
 
 public interface TaskManager {
@@ -29,6 +33,9 @@ public interface TaskManager {
 
     Subtask addSubtask(Subtask subtask);
 
+    // Пакетное добавление задач, эпиков и подзадач: либо добавляется весь пакет, либо ничего
+    ImportReport addAll(Collection<? extends Task> batch);
+
     Subtask getSubtaskById(int id);
 
     void updateSubtask(Subtask subtask);
@@ -45,6 +52,24 @@ public interface TaskManager {
         return new ArrayList<>(epic.getSubtasks());
     }
 
+    // Задачи одного типа с заданным статусом в порядке создания, без перебора остальных
+    List<Task> getTasksByStatus(TaskStatus status, TaskType type);
+
+    // Поиск по словам названия и описания среди задач всех типов: не более limit, самые релевантные первыми
+    List<Task> search(String query, int limit);
+
+    // Задача или подзадача blockedId не может начаться, пока blockerId не выполнена (DONE).
+    // Зависимость, замыкающая цикл, отклоняется; эпики в зависимостях не участвуют
+    void addDependency(int blockerId, int blockedId);
+
+    void removeDependency(int blockerId, int blockedId);
+
+    // Задачи и подзадачи, блокирующие данную, в порядке id
+    List<Task> getBlockers(int id);
+
+    // Невыполненные задачи и подзадачи, у которых все блокирующие выполнены, в порядке id
+    List<Task> getReadyTasks();
+
     List<Task> getHistory();
 
     void clearTasks();
@@ -55,5 +80,40 @@ public interface TaskManager {
 
     List<Task> getPrioritizedTasks();
 
+    // Задачи и подзадачи, пересекающие окно [from, to), в порядке времени начала
+    List<Task> getTasksInWindow(LocalDateTime from, LocalDateTime to);
+
+    // Ближайший свободный промежуток длиной duration, начинающийся не раньше notBefore
+    TimeSlot findNextFreeSlot(Duration duration, LocalDateTime notBefore);
+
+    // Свободные промежутки внутри [from, to) длиной не меньше minDuration
+    List<TimeSlot> findFreeSlots(LocalDateTime from, LocalDateTime to, Duration minDuration);
+
+    // Постраничное чтение: не более limit элементов с id больше курсора after (null — с начала)
+    Page<Task> getTasksPage(String after, int limit);
+
+    Page<Epic> getEpicsPage(String after, int limit);
+
+    Page<Subtask> getSubtasksPage(String after, int limit);
+
+    // Страница списка по приоритету; курсор хранит время начала и id последней отданной задачи
+    Page<Task> getPrioritizedPage(String after, int limit);
+
+    // Номер последнего изменения: если он не изменился, повторно читать списки не нужно
+    long getVersion();
+
+    // Согласованный неизменяемый срез задач, эпиков и подзадач; списки getAll* берутся из него
+    TaskSnapshot getSnapshot();
+
     void validateTaskTime(Task task) throws IllegalArgumentException;
+
+    // Подписка на изменения (см. TaskEvent): синхронный слушатель вызывается в потоке изменения,
+    // асинхронный получает события пачками в фоновом потоке
+    void addListener(TaskEvent.Listener listener);
+
+    void removeListener(TaskEvent.Listener listener);
+
+    void addBatchListener(TaskEvent.BatchListener listener);
+
+    void removeBatchListener(TaskEvent.BatchListener listener);
 }
\ No newline at end of file
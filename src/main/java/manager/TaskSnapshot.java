@@ -0,0 +1,41 @@
+package manager;
+
+import task.Epic;
+import task.Subtask;
+import task.Task;
+
+import java.util.Collections;
+import java.util.List;
+
+// Неизменяемый срез содержимого менеджера на момент изменения с номером version.
+// Один и тот же срез отдаётся всем читателям, пока менеджер не изменится
+public final class TaskSnapshot {
+    private final long version;
+    private final List<Task> tasks;
+    private final List<Epic> epics;
+    private final List<Subtask> subtasks;
+
+    // Списки передаются во владение срезу и больше нигде не меняются
+    TaskSnapshot(long version, List<Task> tasks, List<Epic> epics, List<Subtask> subtasks) {
+        this.version = version;
+        this.tasks = Collections.unmodifiableList(tasks);
+        this.epics = Collections.unmodifiableList(epics);
+        this.subtasks = Collections.unmodifiableList(subtasks);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<Task> getTasks() {
+        return tasks;
+    }
+
+    public List<Epic> getEpics() {
+        return epics;
+    }
+
+    public List<Subtask> getSubtasks() {
+        return subtasks;
+    }
+}
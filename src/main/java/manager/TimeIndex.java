@@ -0,0 +1,419 @@
+package manager;
+
+import task.Task;
+import util.EpochNanos;
+import util.IntObjectHashMap;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+// Индекс интервалов [startTime, endTime) задач и подзадач: AVL-дерево по (startTime, id),
+// каждый узел хранит максимальное время окончания в своём поддереве. Время в узлах хранится
+// числами (EpochNanos), поэтому обход и сравнения не создают объектов; LocalDateTime
+// появляется только на входе и в результатах запросов
+class TimeIndex {
+    private final IntObjectHashMap<Node> nodesById = new IntObjectHashMap<>();
+    private Node root;
+
+    // Добавляет или переиндексирует задачу; задачи без времени начала в индекс не попадают
+    void put(Task task) {
+        if (task.getStartTime() == null) {
+            remove(task.getId());
+            return;
+        }
+        put(task.getId(), task.getStartNanos(), task.getEndNanos());
+    }
+
+    // То же по готовым EpochNanos; end — Task.NO_END, если у задачи нет продолжительности
+    void put(int id, long start, long end) {
+        remove(id);
+        Node node = new Node(id, start, end);
+        root = insert(root, node);
+        nodesById.put(node.id, node);
+    }
+
+    // Пакет интервалов: в пустой индекс — сортировкой и сборкой сбалансированного дерева за один проход,
+    // без поворотов на каждой вставке; иначе по одному
+    void putAll(int[] ids, long[] starts, long[] ends) {
+        if (root != null) {
+            for (int i = 0; i < ids.length; i++) {
+                put(ids[i], starts[i], ends[i]);
+            }
+            return;
+        }
+        Node[] nodes = new Node[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            nodes[i] = new Node(ids[i], starts[i], ends[i]);
+            nodesById.put(ids[i], nodes[i]);
+        }
+        Arrays.sort(nodes, (first, second) -> compare(first.start, first.id, second));
+        root = build(nodes, 0, nodes.length - 1);
+    }
+
+    private static Node build(Node[] nodes, int from, int to) {
+        if (from > to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        Node node = nodes[middle];
+        node.left = build(nodes, from, middle - 1);
+        node.right = build(nodes, middle + 1, to);
+        update(node);
+        return node;
+    }
+
+    void remove(int id) {
+        Node node = nodesById.remove(id);
+        if (node != null) {
+            root = delete(root, node.start, node.id);
+        }
+    }
+
+    void clear() {
+        nodesById.clear();
+        root = null;
+    }
+
+    int size() {
+        return nodesById.size();
+    }
+
+    // Обходит id задач в порядке (startTime, id) без сортировки
+    void forEachInOrder(IntConsumer action) {
+        forEachInOrder(root, action);
+    }
+
+    // Обходит не более limit id, идущих в порядке (startTime, id) строго после (start, id);
+    // start == null — с начала индекса. Стоимость O(log n + limit)
+    void forEachAfter(LocalDateTime start, int id, int limit, IntConsumer action) {
+        long after = start != null ? EpochNanos.clamp(start) : 0;
+        Deque<Node> path = new ArrayDeque<>(); // Узлы больше курсора, ближайший сверху
+        Node node = root;
+        while (node != null) {
+            if (start == null || compare(after, id, node) < 0) {
+                path.push(node);
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        for (int visited = 0; visited < limit && !path.isEmpty(); visited++) {
+            Node next = path.pop();
+            action.accept(next.id);
+            for (Node child = next.right; child != null; child = child.left) {
+                path.push(child);
+            }
+        }
+    }
+
+    // Обходит в порядке (startTime, id) задачи, пересекающие окно [from, to). Интервал пересекает окно,
+    // если начинается до to и заканчивается после from; задача нулевой длины — если её начало в окне.
+    // Поддеревья, где все задачи закончились до from или начинаются не раньше to, не посещаются
+    void forEachIntersecting(LocalDateTime from, LocalDateTime to, IntConsumer action) {
+        forEachIntersecting(root, EpochNanos.clamp(from), EpochNanos.clamp(to), action);
+    }
+
+    static void checkWindow(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Window bounds cannot be null");
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Window start must not be after its end");
+        }
+    }
+
+    private void forEachIntersecting(Node node, long from, long to, IntConsumer action) {
+        if (node == null || node.maxReach < from) {
+            return;
+        }
+        forEachIntersecting(node.left, from, to, action);
+        if (node.start >= to) {
+            return;
+        }
+        if (node.end <= node.start ? node.start >= from : node.end > from) {
+            action.accept(node.id);
+        }
+        forEachIntersecting(node.right, from, to, action);
+    }
+
+    @FunctionalInterface
+    interface IntervalPredicate {
+        boolean test(long start, long end);
+    }
+
+    // Есть ли среди интервалов, пересекающих окно [from, to), кроме интервала excludeId, такой, для которого
+    // test истинен. Задачи без продолжительности ни с чем не пересекаются и не проверяются
+    boolean anyIntersecting(long from, long to, int excludeId, IntervalPredicate test) {
+        return anyIntersecting(root, from, to, excludeId, test);
+    }
+
+    private boolean anyIntersecting(Node node, long from, long to, int excludeId, IntervalPredicate test) {
+        if (node == null || node.maxReach < from) {
+            return false;
+        }
+        if (anyIntersecting(node.left, from, to, excludeId, test)) {
+            return true;
+        }
+        if (node.start >= to) {
+            return false;
+        }
+        if (node.id != excludeId && node.end != Task.NO_END && node.reach() >= from && test.test(node.start, node.end)) {
+            return true;
+        }
+        return anyIntersecting(node.right, from, to, excludeId, test);
+    }
+
+    // Самое раннее начало s >= notBefore, при котором [s, s + duration) ни с чем не пересекается.
+    // Интервалы перебираются по времени начала; каждый мешающий сдвигает кандидата на своё окончание
+    LocalDateTime nextFreeStart(LocalDateTime notBefore, Duration duration) {
+        if (notBefore == null) {
+            throw new IllegalArgumentException("Start bound cannot be null");
+        }
+        checkDuration(duration);
+        long bound = EpochNanos.clamp(notBefore);
+        long candidate = nextFreeStart(bound, EpochNanos.length(duration));
+        return candidate != bound ? EpochNanos.toLocalDateTime(candidate) : notBefore;
+    }
+
+    // То же в наносекундах; индекс только читается, поэтому вызовы из нескольких потоков безопасны,
+    // пока его никто не меняет
+    long nextFreeStart(long notBefore, long length) {
+        long candidate = notBefore;
+        Deque<Node> path = new ArrayDeque<>();
+        pushLeftReaching(path, root, candidate);
+        while (!path.isEmpty()) {
+            Node node = path.pop();
+            if (node.start >= EpochNanos.plus(candidate, length)) {
+                break; // Этот и все следующие интервалы начинаются после кандидата
+            }
+            if (node.end != Task.NO_END && node.reach() > candidate) {
+                candidate = node.reach();
+            }
+            pushLeftReaching(path, node.right, candidate);
+        }
+        return candidate;
+    }
+
+    // Свободные промежутки внутри [from, to) длиной не меньше minDuration. Задача нулевой длины
+    // делит промежуток: новая задача не может её накрыть
+    List<TimeSlot> freeSlots(LocalDateTime from, LocalDateTime to, Duration minDuration) {
+        checkWindow(from, to);
+        checkDuration(minDuration);
+        long minLength = EpochNanos.length(minDuration);
+        long end = EpochNanos.clamp(to);
+        List<TimeSlot> slots = new ArrayList<>();
+        long cursor = EpochNanos.clamp(from);
+        LocalDateTime cursorTime = from; // Граница окна отдаётся как есть, без обратного пересчёта
+        Deque<Node> path = new ArrayDeque<>();
+        pushLeftReaching(path, root, cursor);
+        while (!path.isEmpty()) {
+            Node node = path.pop();
+            if (node.start >= end) {
+                break;
+            }
+            if (node.end != Task.NO_END && node.reach() > cursor) {
+                if (node.start > cursor) {
+                    addSlot(slots, cursor, cursorTime, node.start, null, minLength);
+                }
+                cursor = node.reach();
+                cursorTime = null;
+            }
+            pushLeftReaching(path, node.right, cursor);
+        }
+        if (cursor < end) {
+            addSlot(slots, cursor, cursorTime, end, to, minLength);
+        }
+        return slots;
+    }
+
+    private static void checkDuration(Duration duration) {
+        if (duration == null || duration.isNegative()) {
+            throw new IllegalArgumentException("Duration must not be null or negative");
+        }
+    }
+
+    // startTime и endTime — те же моменты в виде LocalDateTime, если они уже есть, иначе null
+    private static void addSlot(List<TimeSlot> slots, long start, LocalDateTime startTime,
+                                long end, LocalDateTime endTime, long minLength) {
+        if (end > start && EpochNanos.plus(start, minLength) <= end) {
+            slots.add(new TimeSlot(startTime != null ? startTime : EpochNanos.toLocalDateTime(start),
+                    endTime != null ? endTime : EpochNanos.toLocalDateTime(end)));
+        }
+    }
+
+    // Кладёт в стек левую ветвь, не спускаясь в поддеревья, где всё закончилось не позже threshold
+    private static void pushLeftReaching(Deque<Node> path, Node node, long threshold) {
+        while (node != null && node.maxReach > threshold) {
+            path.push(node);
+            node = node.left;
+        }
+    }
+
+    private void forEachInOrder(Node node, IntConsumer action) {
+        if (node == null) {
+            return;
+        }
+        forEachInOrder(node.left, action);
+        action.accept(node.id);
+        forEachInOrder(node.right, action);
+    }
+
+    // Есть ли в индексе интервал, пересекающийся с [start, end), кроме интервала задачи excludeId
+    boolean overlaps(long start, long end, int excludeId) {
+        return overlaps(root, start, end, excludeId);
+    }
+
+    private boolean overlaps(Node node, long start, long end, int excludeId) {
+        if (node == null || node.maxEnd <= start) {
+            return false; // В поддереве нет интервалов, заканчивающихся позже start
+        }
+        if (overlaps(node.left, start, end, excludeId)) {
+            return true;
+        }
+        if (node.start >= end) {
+            return false; // Узел и всё правое поддерево начинаются не раньше end
+        }
+        if (node.id != excludeId && node.end > start) {
+            return true;
+        }
+        return overlaps(node.right, start, end, excludeId);
+    }
+
+    private static int compare(long start, int id, Node node) {
+        int timeCompare = Long.compare(start, node.start);
+        return timeCompare != 0 ? timeCompare : Integer.compare(id, node.id);
+    }
+
+    private Node insert(Node node, Node newNode) {
+        if (node == null) {
+            return newNode;
+        }
+        if (compare(newNode.start, newNode.id, node) < 0) {
+            node.left = insert(node.left, newNode);
+        } else {
+            node.right = insert(node.right, newNode);
+        }
+        return balance(node);
+    }
+
+    private Node delete(Node node, long start, int id) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, id, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, start, id);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, start, id);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = deleteMin(node.right);
+            successor.left = node.left;
+            return balance(successor);
+        }
+        return balance(node);
+    }
+
+    private Node deleteMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteMin(node.left);
+        return balance(node);
+    }
+
+    private Node balance(Node node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long maxEnd = node.end;
+        long maxReach = node.reach();
+        if (node.left != null) {
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+            maxReach = Math.max(maxReach, node.left.maxReach);
+        }
+        if (node.right != null) {
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+            maxReach = Math.max(maxReach, node.right.maxReach);
+        }
+        node.maxEnd = maxEnd;
+        node.maxReach = maxReach;
+    }
+
+    private static class Node {
+        private final int id;
+        private final long start;
+        private final long end; // Task.NO_END, если у задачи нет продолжительности
+        private long maxEnd; // Task.NO_END, если в поддереве ни у кого нет окончания
+        private long maxReach; // Наибольшее из reach() в поддереве, для запросов по окну
+        private int height = 1;
+        private Node left;
+        private Node right;
+
+        Node(int id, long start, long end) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+            this.maxEnd = end;
+            this.maxReach = reach();
+        }
+
+        // Момент, до которого задача занимает время: окончание, а для задачи без длительности — начало
+        long reach() {
+            return Math.max(start, end);
+        }
+    }
+}
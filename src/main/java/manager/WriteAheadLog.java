@@ -0,0 +1,362 @@
+package manager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Журнал изменений: по одной текстовой строке на изменение, только дописывание в конец.
+// Первая строка — поколение журнала; оно совпадает с поколением файла задач, к которому журнал
+// относится. Журнал другого поколения уже учтён в файле задач и при открытии очищается.
+// Недописанная последняя строка (сбой посреди записи) отбрасывается.
+// В режиме отложенной записи записи встают в ограниченную очередь, а единственный фоновый писатель
+// собирает всё, что пришло за окно группировки, в одну запись и один fsync
+final class WriteAheadLog implements AutoCloseable {
+    static final String GENERATION_PREFIX = "#wal=";
+    private static final long SYNC_INTERVAL_MILLIS = 1000;
+    private static final Object CLOSE = new Object(); // Последний элемент очереди: писатель завершается
+
+    private final Path path;
+    private final FileBackedTaskManager.Durability durability;
+    private final FileChannel channel;
+    private final ScheduledExecutorService syncer; // null, если периодическая синхронизация не нужна
+    private final List<String> recovered;
+    private long generation;
+    private long records; // Записей после заголовка, включая ещё стоящие в очереди
+    private volatile boolean dirty; // Есть записи, ещё не сброшенные на диск
+    private volatile IOException failure; // Ошибка фоновой записи или синхронизации, отдаётся вызывающему
+
+    // Отложенная запись; null — записи пишутся сразу в потоке изменения
+    private final BlockingQueue<Object> queue;
+    private final long commitWindowNanos;
+    private final Thread writer;
+
+    // Контрольная точка в очереди: записи до неё уже учтены в новом файле задач
+    private static final class Checkpoint {
+        private final long generation;
+        private final IoAction writeSnapshot;
+
+        Checkpoint(long generation, IoAction writeSnapshot) {
+            this.generation = generation;
+            this.writeSnapshot = writeSnapshot;
+        }
+    }
+
+    @FunctionalInterface
+    interface IoAction {
+        void run() throws IOException;
+    }
+
+    private WriteAheadLog(Path path, FileBackedTaskManager.Durability durability, long generation,
+                          Duration commitWindow, int queueCapacity) throws IOException {
+        this.path = path;
+        this.durability = durability;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.recovered = readValid(generation);
+        this.generation = generation;
+        this.records = recovered.size();
+        if (durability == FileBackedTaskManager.Durability.PERIODIC) {
+            syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "wal-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            syncer.scheduleWithFixedDelay(this::syncInBackground, SYNC_INTERVAL_MILLIS, SYNC_INTERVAL_MILLIS,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            syncer = null;
+        }
+        if (queueCapacity > 0) {
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.commitWindowNanos = commitWindow.toNanos();
+            this.writer = new Thread(this::writeBehind, "wal-writer");
+            writer.setDaemon(true);
+            writer.start();
+        } else {
+            this.queue = null;
+            this.commitWindowNanos = 0;
+            this.writer = null;
+        }
+    }
+
+    // Открывает журнал к файлу задач поколения generation; записи, которые нужно повторить, — в takeRecovered.
+    // queueCapacity — сколько записей может ждать фонового писателя, прежде чем изменения начнут ждать
+    // места в очереди; 0 — без писателя, записи пишутся сразу
+    static WriteAheadLog open(Path path, FileBackedTaskManager.Durability durability, long generation,
+                              Duration commitWindow, int queueCapacity) {
+        try {
+            return new WriteAheadLog(path, durability, generation, commitWindow, queueCapacity);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error opening write-ahead log", e);
+        }
+    }
+
+    // Целые записи журнала нужного поколения. Файл обрезается по последней целой записи,
+    // а журнал другого поколения заменяется пустым
+    private List<String> readValid(long expectedGeneration) throws IOException {
+        byte[] content = Files.readAllBytes(path);
+        List<String> lines = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < content.length; i++) {
+            if (content[i] == '\n') {
+                lines.add(new String(content, start, i - start, StandardCharsets.UTF_8));
+                start = i + 1;
+            }
+        }
+        if (lines.isEmpty() || !lines.get(0).equals(GENERATION_PREFIX + expectedGeneration)) {
+            writeHeader(expectedGeneration);
+            return new ArrayList<>();
+        }
+        if (start < content.length) {
+            channel.truncate(start);
+        }
+        channel.position(start);
+        return lines.subList(1, lines.size());
+    }
+
+    private void writeHeader(long newGeneration) throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        write(GENERATION_PREFIX + newGeneration + "\n");
+        channel.force(false);
+    }
+
+    // Записи, найденные при открытии; отдаются один раз
+    List<String> takeRecovered() {
+        List<String> result = new ArrayList<>(recovered);
+        recovered.clear();
+        return result;
+    }
+
+    long getGeneration() {
+        return generation;
+    }
+
+    long getRecords() {
+        return records;
+    }
+
+    // В режиме отложенной записи возвращается, как только запись встала в очередь
+    void append(String record) {
+        checkFailure();
+        records++;
+        if (queue != null) {
+            enqueue(record);
+            return;
+        }
+        try {
+            write(record + "\n");
+            afterWrite();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error writing write-ahead log", e);
+        }
+    }
+
+    // Новый файл задач поколения newGeneration и пустой журнал к нему. writeSnapshot пишет уже готовое
+    // содержимое файла задач: при отложенной записи его выполняет писатель после всех прежних записей
+    void checkpoint(long newGeneration, IoAction writeSnapshot) {
+        checkFailure();
+        generation = newGeneration;
+        records = 0;
+        if (queue != null) {
+            enqueue(new Checkpoint(newGeneration, writeSnapshot));
+            return;
+        }
+        try {
+            writeSnapshot.run();
+            writeHeader(newGeneration);
+            dirty = false;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при сохранении задач", e);
+        }
+    }
+
+    // Ждёт, пока всё, что было передано журналу до вызова, окажется на диске
+    void flush() {
+        checkFailure();
+        if (queue == null) {
+            sync();
+            return;
+        }
+        CompletableFuture<Void> written = new CompletableFuture<>();
+        enqueue(written);
+        try {
+            written.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ManagerSaveException("Interrupted while flushing write-ahead log", e);
+        } catch (ExecutionException e) {
+            throw new ManagerSaveException("Error writing write-ahead log", e.getCause());
+        }
+    }
+
+    // Полная очередь останавливает изменения, пока писатель не освободит место
+    private void enqueue(Object item) {
+        if (!writer.isAlive()) {
+            throw new ManagerSaveException("Write-ahead log is closed");
+        }
+        try {
+            queue.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ManagerSaveException("Interrupted while queueing write-ahead log record", e);
+        }
+    }
+
+    private void checkFailure() {
+        IOException current = failure;
+        if (current != null) {
+            throw new ManagerSaveException("Error writing write-ahead log", current);
+        }
+    }
+
+    // Фоновый писатель: первая запись открывает группу, в неё попадает всё, что успело прийти за окно.
+    // Ожидающий flush закрывает группу сразу, не дожидаясь конца окна
+    private void writeBehind() {
+        List<Object> group = new ArrayList<>();
+        StringBuilder pending = new StringBuilder();
+        List<CompletableFuture<Void>> waiting = new ArrayList<>();
+        boolean closing = false;
+        while (!closing) {
+            try {
+                group.add(queue.take());
+                long deadline = System.nanoTime() + commitWindowNanos;
+                queue.drainTo(group);
+                while (!closesGroup(group.get(group.size() - 1))) {
+                    long remaining = deadline - System.nanoTime();
+                    Object next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                    queue.drainTo(group);
+                }
+            } catch (InterruptedException e) {
+                group.add(CLOSE); // Прерывание писателя считается закрытием
+            }
+            try {
+                for (Object item : group) {
+                    if (item instanceof String) {
+                        pending.append((String) item).append('\n');
+                    } else if (item instanceof Checkpoint) {
+                        // Записи до контрольной точки уже в новом файле задач
+                        pending.setLength(0);
+                        Checkpoint checkpoint = (Checkpoint) item;
+                        checkpoint.writeSnapshot.run();
+                        writeHeader(checkpoint.generation);
+                    } else if (item == CLOSE) {
+                        closing = true;
+                    } else {
+                        @SuppressWarnings("unchecked")
+                        CompletableFuture<Void> future = (CompletableFuture<Void>) item;
+                        waiting.add(future);
+                    }
+                }
+                if (pending.length() > 0) {
+                    write(pending.toString());
+                    pending.setLength(0);
+                    afterWrite();
+                }
+                if (!waiting.isEmpty()) {
+                    channel.force(false);
+                    dirty = false;
+                    waiting.forEach(future -> future.complete(null));
+                }
+            } catch (IOException e) {
+                failure = e;
+                waiting.forEach(future -> future.completeExceptionally(e));
+                closing = true;
+            }
+            group.clear();
+            waiting.clear();
+        }
+        // После сбоя или закрытия никто больше не запишет — ожидающие в очереди не должны висеть
+        for (Object item; (item = queue.poll()) != null; ) {
+            if (item instanceof CompletableFuture) {
+                ((CompletableFuture<?>) item).completeExceptionally(
+                        failure != null ? failure : new IOException("Write-ahead log is closed"));
+            }
+        }
+    }
+
+    // Ожидающий flush и закрытие не ждут конца окна группировки
+    private static boolean closesGroup(Object item) {
+        return item instanceof CompletableFuture || item == CLOSE;
+    }
+
+    private void afterWrite() throws IOException {
+        if (durability == FileBackedTaskManager.Durability.EVERY_WRITE) {
+            channel.force(false); // При отложенной записи — один fsync на группу
+        } else {
+            dirty = true;
+        }
+    }
+
+    private void write(String text) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // Сбрасывает на диск всё записанное
+    void sync() {
+        try {
+            dirty = false;
+            channel.force(false);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error syncing write-ahead log", e);
+        }
+    }
+
+    private void syncInBackground() {
+        if (!dirty) {
+            return;
+        }
+        try {
+            dirty = false;
+            channel.force(false);
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    // Дописывает очередь и закрывает файл; повторный вызов ничего не делает
+    @Override
+    public void close() {
+        if (writer != null && writer.isAlive()) {
+            try {
+                queue.put(CLOSE);
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                writer.interrupt();
+            }
+        }
+        if (syncer != null) {
+            syncer.shutdownNow();
+        }
+        try {
+            if (channel.isOpen()) {
+                channel.force(false);
+                channel.close();
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error closing write-ahead log", e);
+        }
+    }
+}
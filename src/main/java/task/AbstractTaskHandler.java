@@ -3,12 +3,20 @@ package task;
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import http.HttpStatusCode;
+import http.Pagination;
+import http.QueryParams;
 import manager.HttpTaskServer;
+import manager.Page;
 import manager.TaskManager;
+import util.EpochNanos;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 
 public abstract class AbstractTaskHandler implements HttpHandler {
     protected final TaskManager taskManager;
@@ -47,6 +55,71 @@ public abstract class AbstractTaskHandler implements HttpHandler {
 
     protected abstract void handleGet(HttpExchange exchange, String path) throws IOException;
 
+    protected QueryParams queryParams(HttpExchange exchange) {
+        return QueryParams.parse(exchange.getRequestURI().getRawQuery());
+    }
+
+    // Общая обработка GET списка: ?status= отдаёт отфильтрованный список, ?limit=&after= — одну страницу,
+    // без параметров — весь список
+    protected void sendList(HttpExchange exchange, TaskType type, Supplier<List<? extends Task>> all,
+                            BiFunction<String, Integer, Page<? extends Task>> pages) throws IOException {
+        QueryParams params = queryParams(exchange);
+        try {
+            TaskStatus status = statusFilter(params);
+            if (status != null && Pagination.isRequested(params)) {
+                throw new IllegalArgumentException("Status filter cannot be combined with pagination");
+            }
+            if (status != null) {
+                sendResponse(exchange, gson.toJson(taskManager.getTasksByStatus(status, type)),
+                        HttpStatusCode.OK.getCode());
+            } else if (Pagination.isRequested(params)) {
+                sendPage(exchange, pages.apply(Pagination.after(params), Pagination.limit(params)));
+            } else {
+                sendResponse(exchange, gson.toJson(all.get()), HttpStatusCode.OK.getCode());
+            }
+        } catch (IllegalArgumentException exception) {
+            sendResponse(exchange, "{\"error\": \"" + exception.getMessage() + "\"}",
+                    HttpStatusCode.BAD_REQUEST.getCode());
+        }
+    }
+
+    protected void sendPage(HttpExchange exchange, Page<?> page) throws IOException {
+        if (page.hasMore()) {
+            exchange.getResponseHeaders().set(Pagination.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        sendResponse(exchange, gson.toJson(page.getItems()), HttpStatusCode.OK.getCode());
+    }
+
+    // Статус из параметра ?status=; null, если параметр не передан
+    private TaskStatus statusFilter(QueryParams params) {
+        String status = params.get("status");
+        if (status == null) {
+            return null;
+        }
+        try {
+            return TaskStatus.valueOf(status.trim().toUpperCase());
+        } catch (IllegalArgumentException exception) {
+            throw new IllegalArgumentException("Invalid status: " + status);
+        }
+    }
+
+    // Отвечает 400, если начало или окончание задачи вне диапазона EpochNanos.MIN..EpochNanos.MAX;
+    // true — ответ уже отправлен
+    protected boolean rejectUnsupportedTime(HttpExchange exchange, Task task) throws IOException {
+        if (task.getStartTime() == null) {
+            return false;
+        }
+        try {
+            task.getStartNanos();
+            task.getEndNanos();
+            return false;
+        } catch (IllegalArgumentException exception) {
+            sendResponse(exchange, "{\"error\": \"Task start and end time must be between " + EpochNanos.MIN
+                    + " and " + EpochNanos.MAX + "\"}", HttpStatusCode.BAD_REQUEST.getCode());
+            return true;
+        }
+    }
+
     protected abstract void handlePost(HttpExchange exchange) throws IOException;
 
     protected abstract void handleDelete(HttpExchange exchange, String path) throws IOException;
@@ -1,53 +1,140 @@
 package task;
 
+import util.EpochNanos;
+import util.IntObjectHashMap;
+
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.TreeMap;
 
 public class Epic extends Task {
-    private final List<Subtask> subtasks = new ArrayList<>();
+    private List<Subtask> subtasks = new ArrayList<>();
+    private LocalDateTime endTime; // Время окончания самой поздней подзадачи
+    // Счётчики статусов, сумма продолжительностей и границы по времени; не сериализуются
+    // и для эпиков, созданных Gson, строятся при первом обращении
+    private transient Rollup rollup;
+    private transient List<Subtask> subtasksView; // Неизменяемая копия subtasks, сбрасывается при изменении
 
     public Epic(String name, String description) {
         super(name, description);
     }
 
     public void setSubtasks(List<Subtask> subtasks) {
-        this.subtasks.clear();
+        rollup = new Rollup();
+        subtasksView = null;
+        this.subtasks = new ArrayList<>();
         if (subtasks != null) {
-            this.subtasks.addAll(subtasks);
+            for (Subtask subtask : subtasks) {
+                this.subtasks.add(subtask);
+                rollup.add(subtask);
+            }
         }
+        updateEpicDetails();
     }
 
     public void addSubtask(Subtask subtask) {
+        rollup().add(subtask);
         subtasks.add(subtask);
+        subtasksView = null;
         updateEpicDetails(); // Продолжительность обновления и время начала при добавлении подзадачи
     }
 
+    // Добавляет несколько подзадач с одним пересчётом времени эпика
+    public void addSubtasks(Collection<Subtask> added) {
+        Rollup current = rollup();
+        for (Subtask subtask : added) {
+            current.add(subtask);
+            subtasks.add(subtask);
+        }
+        subtasksView = null;
+        updateEpicDetails();
+    }
+
     public void removeSubtask(int subtaskId) {
-        subtasks.removeIf(subtask -> subtask.getId() == subtaskId);
-        updateEpicDetails(); // Продолжительность обновления и время начала при удалении подзадачи
+        if (rollup().remove(subtaskId) != null) {
+            subtasks.removeIf(subtask -> subtask.getId() == subtaskId);
+            subtasksView = null;
+            updateEpicDetails(); // Продолжительность обновления и время начала при удалении подзадачи
+        }
+    }
+
+    public void clearSubtasks() {
+        setSubtasks(null);
     }
 
+    // Пересчитывает вклад подзадачи после изменения её статуса, времени или продолжительности
+    public void updateSubtask(Subtask subtask) {
+        Contribution previous = rollup().remove(subtask.getId());
+        if (previous == null) {
+            return;
+        }
+        if (previous.subtask != subtask) {
+            subtasks.replaceAll(existing -> existing.getId() == subtask.getId() ? subtask : existing);
+            subtasksView = null;
+        }
+        rollup.add(subtask);
+        updateEpicDetails();
+    }
+
+    // Один и тот же неизменяемый список до следующего изменения подзадач
     public List<Subtask> getSubtasks() {
-        return new ArrayList<>(subtasks);
+        if (subtasksView == null) {
+            subtasksView = List.copyOf(rollup().subtaskList());
+        }
+        return subtasksView;
     }
 
-    private void updateEpicDetails() {
-        Duration totalDuration = Duration.ZERO;
-        LocalDateTime earliestStart = null;
-
-        for (Subtask subtask : subtasks) {
-            totalDuration = totalDuration.plus(subtask.getDuration());
-            if (subtask.getStartTime() != null) {
-                if (earliestStart == null || subtask.getStartTime().isBefore(earliestStart)) {
-                    earliestStart = subtask.getStartTime();
-                }
+    // Статус по счётчикам подзадач: без подзадач — NEW, все выполнены — DONE, иначе IN_PROGRESS
+    public TaskStatus calculateStatus() {
+        Rollup current = rollup();
+        int total = current.contributions.size();
+        if (total == 0) {
+            return TaskStatus.NEW;
+        }
+        if (current.statusCounts[TaskStatus.DONE.ordinal()] == total) {
+            return TaskStatus.DONE;
+        }
+        return TaskStatus.IN_PROGRESS;
+    }
+
+    public int getSubtaskCount(TaskStatus status) {
+        return rollup().statusCounts[status.ordinal()];
+    }
+
+    @Override
+    public LocalDateTime getEndTime() {
+        rollup();
+        return endTime;
+    }
+
+    // Окончание эпика — окончание самой поздней подзадачи, а не начало плюс сумма продолжительностей
+    @Override
+    public long getEndNanos() {
+        LocalDateTime end = getEndTime();
+        return end != null ? EpochNanos.of(end) : NO_END;
+    }
+
+    private Rollup rollup() {
+        if (rollup == null) {
+            if (subtasks == null) {
+                subtasks = new ArrayList<>();
+            }
+            rollup = new Rollup();
+            for (Subtask subtask : subtasks) {
+                rollup.add(subtask);
             }
+            updateEpicDetails();
         }
+        return rollup;
+    }
 
-        setDuration(totalDuration);
-        setStartTime(earliestStart);
+    private void updateEpicDetails() {
+        setDuration(rollup.totalDuration);
+        setStartTime(rollup.starts.isEmpty() ? null : rollup.starts.firstKey());
+        endTime = rollup.ends.isEmpty() ? null : rollup.ends.lastKey();
     }
 
     @Override
@@ -55,10 +142,79 @@ public class Epic extends Task {
         return null;
     }
 
-    public void updateSubtask(Subtask subtask1) {
-    }
-
     public TaskType getType() {
         return TaskType.EPIC;
     }
-}
\ No newline at end of file
+
+    // Вклад подзадачи в агрегаты эпика на момент последнего пересчёта
+    private static class Contribution {
+        private final Subtask subtask;
+        private final TaskStatus status;
+        private final Duration duration;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+
+        Contribution(Subtask subtask) {
+            this.subtask = subtask;
+            this.status = subtask.getStatus();
+            this.duration = subtask.getDuration() != null ? subtask.getDuration() : Duration.ZERO;
+            this.start = subtask.getStartTime();
+            this.end = subtask.getEndTime();
+        }
+    }
+
+    private class Rollup {
+        private final IntObjectHashMap<Contribution> contributions = new IntObjectHashMap<>();
+        private final int[] statusCounts = new int[TaskStatus.values().length];
+        private final TreeMap<LocalDateTime, Integer> starts = new TreeMap<>();
+        private final TreeMap<LocalDateTime, Integer> ends = new TreeMap<>();
+        private Duration totalDuration = Duration.ZERO;
+
+        void add(Subtask subtask) {
+            Contribution contribution = new Contribution(subtask);
+            Contribution previous = contributions.put(subtask.getId(), contribution);
+            if (previous != null) {
+                subtract(previous);
+            }
+            if (contribution.status != null) {
+                statusCounts[contribution.status.ordinal()]++;
+            }
+            totalDuration = totalDuration.plus(contribution.duration);
+            if (contribution.start != null) {
+                starts.merge(contribution.start, 1, Integer::sum);
+            }
+            if (contribution.end != null) {
+                ends.merge(contribution.end, 1, Integer::sum);
+            }
+        }
+
+        Contribution remove(int subtaskId) {
+            Contribution contribution = contributions.remove(subtaskId);
+            if (contribution != null) {
+                subtract(contribution);
+            }
+            return contribution;
+        }
+
+        List<Subtask> subtaskList() {
+            return subtasks;
+        }
+
+        private void subtract(Contribution contribution) {
+            if (contribution.status != null) {
+                statusCounts[contribution.status.ordinal()]--;
+            }
+            totalDuration = totalDuration.minus(contribution.duration);
+            if (contribution.start != null) {
+                decrement(starts, contribution.start);
+            }
+            if (contribution.end != null) {
+                decrement(ends, contribution.end);
+            }
+        }
+
+        private void decrement(TreeMap<LocalDateTime, Integer> counts, LocalDateTime key) {
+            counts.computeIfPresent(key, (time, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+}
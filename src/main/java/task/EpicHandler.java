@@ -19,8 +19,7 @@ public class EpicHandler extends AbstractTaskHandler {
     protected void handleGet(HttpExchange exchange, String path) throws IOException {
         try {
             if (path.equals("/tasks/epic")) {
-                List<Epic> epics = taskManager.getAllEpics();
-                sendResponse(exchange, gson.toJson(epics), HttpStatusCode.OK.getCode());
+                sendList(exchange, TaskType.EPIC, taskManager::getAllEpics, taskManager::getEpicsPage);
             } else if (path.contains("/subtasks")) {
                 String[] parts = path.split("/");
                 int epicId = Integer.parseInt(parts[parts.length - 2]);
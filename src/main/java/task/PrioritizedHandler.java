@@ -4,12 +4,17 @@ import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpExchange;
 import manager.HttpTaskServer;
+import manager.Page;
 import manager.TaskManager;
 import http.HttpStatusCode;
+import http.Pagination;
+import http.QueryParams;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 public class PrioritizedHandler implements HttpHandler {
@@ -37,6 +42,27 @@ public class PrioritizedHandler implements HttpHandler {
                 return;
             }
 
+            QueryParams params = QueryParams.parse(exchange.getRequestURI().getRawQuery());
+            if (params.has("from") || params.has("to")) {
+                handleGetWindow(exchange, params);
+                return;
+            }
+            if (Pagination.isRequested(params)) {
+                Page<Task> page;
+                try {
+                    page = taskManager.getPrioritizedPage(Pagination.after(params), Pagination.limit(params));
+                } catch (IllegalArgumentException exception) {
+                    sendResponse(exchange, "{\"error\": \"" + exception.getMessage() + "\"}",
+                            HttpStatusCode.BAD_REQUEST.getCode());
+                    return;
+                }
+                if (page.hasMore()) {
+                    exchange.getResponseHeaders().set(Pagination.NEXT_CURSOR_HEADER, page.getNextCursor());
+                }
+                sendResponse(exchange, gson.toJson(page.getItems()), HttpStatusCode.OK.getCode());
+                return;
+            }
+
             List<Task> prioritizedTasks = taskManager.getPrioritizedTasks();
             sendResponse(exchange, gson.toJson(prioritizedTasks), HttpStatusCode.OK.getCode());
         } catch (Exception e) {
@@ -45,6 +71,34 @@ public class PrioritizedHandler implements HttpHandler {
         }
     }
 
+    // Задачи, пересекающие окно [from, to); оба параметра обязательны
+    private void handleGetWindow(HttpExchange exchange, QueryParams params) throws IOException {
+        List<Task> tasks;
+        try {
+            if (Pagination.isRequested(params)) {
+                throw new IllegalArgumentException("Time window cannot be combined with pagination");
+            }
+            tasks = taskManager.getTasksInWindow(parseTime(params, "from"), parseTime(params, "to"));
+        } catch (IllegalArgumentException exception) {
+            sendResponse(exchange, "{\"error\": \"" + exception.getMessage() + "\"}",
+                    HttpStatusCode.BAD_REQUEST.getCode());
+            return;
+        }
+        sendResponse(exchange, gson.toJson(tasks), HttpStatusCode.OK.getCode());
+    }
+
+    private LocalDateTime parseTime(QueryParams params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Parameter " + name + " is required");
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException exception) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+
     private void handleGetPrioritized(HttpExchange exchange) throws IOException {
         List<Task> prioritizedTasks = taskManager.getPrioritizedTasks();
         sendResponse(exchange, gson.toJson(prioritizedTasks), HttpStatusCode.OK.getCode());
@@ -0,0 +1,117 @@
+package task;
+
+import util.EpochNanos;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+// Повторяющаяся задача: одна запись на всю серию. Вхождение k начинается в startTime + k * every,
+// пока начало раньше until (null — серия без конца); сами вхождения не хранятся.
+// Исключения разреженные: исходное начало вхождения → новое начало или null, если вхождение пропущено
+public class RecurringTask extends Task {
+    private Duration every; // Шаг серии
+    private LocalDateTime until;
+    private final TreeMap<LocalDateTime, LocalDateTime> exceptions = new TreeMap<>();
+
+    public RecurringTask(String name, String description, TaskStatus status, Duration duration,
+                         LocalDateTime startTime, Duration every, LocalDateTime until) {
+        super(name, description, status, duration, startTime);
+        this.every = every;
+        this.until = until;
+    }
+
+    public Duration getEvery() {
+        return every;
+    }
+
+    public void setEvery(Duration every) {
+        this.every = every;
+    }
+
+    public LocalDateTime getUntil() {
+        return until;
+    }
+
+    public void setUntil(LocalDateTime until) {
+        this.until = until;
+    }
+
+    // Начинается ли по правилу серии вхождение в момент start (исключения не учитываются)
+    public boolean isOccurrenceStart(LocalDateTime start) {
+        if (start == null || startTime == null || every == null || every.isZero() || every.isNegative()
+                || start.isBefore(startTime) || (until != null && !start.isBefore(until))) {
+            return false;
+        }
+        long offset = EpochNanos.of(start) - EpochNanos.of(startTime); // start не раньше startTime
+        return offset >= 0 && offset % EpochNanos.length(every) == 0;
+    }
+
+    public void skipOccurrence(LocalDateTime occurrence) {
+        checkOccurrence(occurrence);
+        exceptions.put(occurrence, null);
+    }
+
+    // Переносит одно вхождение; проверка пересечений — при сохранении задачи в менеджере
+    public void moveOccurrence(LocalDateTime occurrence, LocalDateTime newStart) {
+        checkOccurrence(occurrence);
+        if (newStart == null) {
+            throw new IllegalArgumentException("New start cannot be null");
+        }
+        exceptions.put(occurrence, newStart);
+    }
+
+    public void restoreOccurrence(LocalDateTime occurrence) {
+        exceptions.remove(occurrence);
+    }
+
+    // Исключения по исходному началу вхождения; значение null — вхождение пропущено
+    public SortedMap<LocalDateTime, LocalDateTime> getExceptions() {
+        return Collections.unmodifiableSortedMap(exceptions);
+    }
+
+    // Отдельное вхождение как обычная задача с id серии
+    public Task occurrenceAt(LocalDateTime start) {
+        Task occurrence = new Task(name, description, status, duration, start);
+        occurrence.setId(id);
+        return occurrence;
+    }
+
+    private void checkOccurrence(LocalDateTime occurrence) {
+        if (!isOccurrenceStart(occurrence)) {
+            throw new IllegalArgumentException("Not an occurrence of the series: " + occurrence);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RecurringTask {" +
+                "id= " + id +
+                ", name= '" + name + '\'' +
+                ", description= " + description +
+                ", status= " + status +
+                ", duration= " + duration +
+                ", startTime= " + startTime +
+                ", every= " + every +
+                ", until= " + until +
+                ", exceptions= " + exceptions +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!super.equals(obj)) return false;
+        RecurringTask task = (RecurringTask) obj;
+        return Objects.equals(every, task.every) &&
+                Objects.equals(until, task.until) &&
+                exceptions.equals(task.exceptions);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), every, until);
+    }
+}
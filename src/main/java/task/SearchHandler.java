@@ -0,0 +1,71 @@
+package task;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import http.HttpStatusCode;
+import http.Pagination;
+import http.QueryParams;
+import manager.HttpTaskServer;
+import manager.TaskManager;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// Полнотекстовый поиск: GET /tasks/search?q=отчёт&limit=20 — задачи, эпики и подзадачи,
+// в названии или описании которых есть слова запроса, самые релевантные первыми
+public class SearchHandler implements HttpHandler {
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final TaskManager taskManager;
+    private final Gson gson;
+
+    public SearchHandler(TaskManager taskManager) {
+        this.taskManager = taskManager;
+        this.gson = HttpTaskServer.getGson();
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendResponse(exchange, "{\"error\": \"Method not allowed\"}", HttpStatusCode.METHOD_NOT_ALLOWED.getCode());
+                return;
+            }
+            if (!"/tasks/search".equals(exchange.getRequestURI().getPath())) {
+                sendResponse(exchange, "{\"error\": \"Invalid path\"}", HttpStatusCode.NOT_FOUND.getCode());
+                return;
+            }
+
+            QueryParams params = QueryParams.parse(exchange.getRequestURI().getRawQuery());
+            List<Task> found;
+            try {
+                String query = params.get("q");
+                if (query == null || query.isBlank()) {
+                    throw new IllegalArgumentException("Parameter q is required");
+                }
+                int limit = params.has("limit") ? Pagination.limit(params) : DEFAULT_LIMIT;
+                found = taskManager.search(query, limit);
+            } catch (IllegalArgumentException exception) {
+                sendResponse(exchange, "{\"error\": \"" + exception.getMessage() + "\"}",
+                        HttpStatusCode.BAD_REQUEST.getCode());
+                return;
+            }
+            sendResponse(exchange, gson.toJson(found), HttpStatusCode.OK.getCode());
+        } catch (Exception e) {
+            System.out.println("Произошла ошибка: " + e.getMessage());
+            sendResponse(exchange, "{\"error\": \"" + e.getMessage() + "\"}", HttpStatusCode.INTERNAL_SERVER_ERROR.getCode());
+        }
+    }
+
+    private void sendResponse(HttpExchange exchange, String response, int code) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+}
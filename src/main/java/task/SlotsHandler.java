@@ -0,0 +1,108 @@
+package task;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import http.HttpStatusCode;
+import http.QueryParams;
+import manager.HttpTaskServer;
+import manager.TaskManager;
+import manager.TimeSlot;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+// Поиск свободного времени:
+// GET /tasks/slots?duration=30&notBefore=2024-05-01T09:00 — ближайший свободный промежуток;
+// GET /tasks/slots?from=...&to=...&minDuration=30 — все свободные промежутки окна.
+// Продолжительности задаются в минутах, как и в JSON задач
+public class SlotsHandler implements HttpHandler {
+    private final TaskManager taskManager;
+    private final Gson gson;
+
+    public SlotsHandler(TaskManager taskManager) {
+        this.taskManager = taskManager;
+        this.gson = HttpTaskServer.getGson();
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendResponse(exchange, "{\"error\": \"Method not allowed\"}", HttpStatusCode.METHOD_NOT_ALLOWED.getCode());
+                return;
+            }
+            if (!"/tasks/slots".equals(exchange.getRequestURI().getPath())) {
+                sendResponse(exchange, "{\"error\": \"Invalid path\"}", HttpStatusCode.NOT_FOUND.getCode());
+                return;
+            }
+
+            QueryParams params = QueryParams.parse(exchange.getRequestURI().getRawQuery());
+            String response;
+            try {
+                if (params.has("from") || params.has("to")) {
+                    List<TimeSlot> slots = taskManager.findFreeSlots(parseTime(params, "from"),
+                            parseTime(params, "to"), parseMinutes(params, "minDuration", Duration.ZERO));
+                    response = gson.toJson(slots);
+                } else if (params.has("duration")) {
+                    LocalDateTime notBefore = params.has("notBefore")
+                            ? parseTime(params, "notBefore")
+                            : LocalDateTime.now();
+                    TimeSlot slot = taskManager.findNextFreeSlot(parseMinutes(params, "duration", null), notBefore);
+                    response = gson.toJson(slot);
+                } else {
+                    throw new IllegalArgumentException("Either duration or from and to must be specified");
+                }
+            } catch (IllegalArgumentException exception) {
+                sendResponse(exchange, "{\"error\": \"" + exception.getMessage() + "\"}",
+                        HttpStatusCode.BAD_REQUEST.getCode());
+                return;
+            }
+            sendResponse(exchange, response, HttpStatusCode.OK.getCode());
+        } catch (Exception e) {
+            System.out.println("Произошла ошибка: " + e.getMessage());
+            sendResponse(exchange, "{\"error\": \"" + e.getMessage() + "\"}", HttpStatusCode.INTERNAL_SERVER_ERROR.getCode());
+        }
+    }
+
+    private LocalDateTime parseTime(QueryParams params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Parameter " + name + " is required");
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException exception) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+
+    private Duration parseMinutes(QueryParams params, String name, Duration defaultValue) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            if (defaultValue == null) {
+                throw new IllegalArgumentException("Parameter " + name + " is required");
+            }
+            return defaultValue;
+        }
+        try {
+            return Duration.ofMinutes(Long.parseLong(value));
+        } catch (NumberFormatException exception) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+
+    private void sendResponse(HttpExchange exchange, String response, int code) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+}
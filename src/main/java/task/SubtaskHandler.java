@@ -17,8 +17,7 @@ public class SubtaskHandler extends AbstractTaskHandler {
     @Override
     protected void handleGet(HttpExchange exchange, String path) throws IOException {
         if (path.equals("/tasks/subtask")) {
-            List<Subtask> subtasks = taskManager.getAllSubtasks();
-            sendResponse(exchange, gson.toJson(subtasks), HttpStatusCode.OK.getCode());
+            sendList(exchange, TaskType.SUBTASK, taskManager::getAllSubtasks, taskManager::getSubtasksPage);
         } else if (path.contains("/epic/")) {
             String[] parts = path.split("/");
             int epicId = Integer.parseInt(parts[parts.length - 1]);
@@ -42,6 +41,9 @@ public class SubtaskHandler extends AbstractTaskHandler {
             InputStream inputStream = exchange.getRequestBody();
             String body = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
             Subtask subtask = gson.fromJson(body, Subtask.class);
+            if (rejectUnsupportedTime(exchange, subtask)) {
+                return;
+            }
 
             try {
                 if (subtask.getId() != 0) {
@@ -1,16 +1,22 @@
 package task;
 
+import util.EpochNanos;
+
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Objects;
 
 public class Task {
+    public static final long NO_END = Long.MIN_VALUE; // Окончание задачи без продолжительности
+
     protected int id;
     protected String name;
     protected String description;
     protected TaskStatus status;
     protected Duration duration; // Продолжительность выполнения задачи
-    protected LocalDateTime startTime; // Время начала выполнения задачи
+    // Время начала выполнения задачи. Менеджеры сравнивают время в наносекундах от эпохи (getStartNanos),
+    // поэтому начало и окончание задачи должны лежать между EpochNanos.MIN и EpochNanos.MAX (1677–2262 годы)
+    protected LocalDateTime startTime;
 
     public Task(String name, String description) {
         this.name = name;
@@ -83,6 +89,23 @@ public class Task {
         return null;
     }
 
+    // Начало в наносекундах от эпохи; для сравнений в индексах без создания объектов. Только при startTime != null
+    public long getStartNanos() {
+        return EpochNanos.of(startTime);
+    }
+
+    // Окончание в наносекундах от эпохи; NO_END, если у задачи нет продолжительности
+    public long getEndNanos() {
+        if (duration == null) {
+            return NO_END;
+        }
+        try {
+            return Math.addExact(getStartNanos(), duration.toNanos());
+        } catch (ArithmeticException exception) {
+            throw new IllegalArgumentException("End time is out of supported range: " + startTime + " + " + duration);
+        }
+    }
+
     @Override
     public String toString() {
         return "Task {" +
@@ -7,7 +7,6 @@ import manager.TaskManager;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
-import java.util.List;
 
 public class TaskHandler extends AbstractTaskHandler {
 
@@ -18,8 +17,7 @@ public class TaskHandler extends AbstractTaskHandler {
 
     protected void handleGet(HttpExchange httpExchange, String path) throws IOException {
         if (path.equals("/tasks/task")) {
-            List<Task> tasks = taskManager.getAllTasks();
-            sendResponse(httpExchange, gson.toJson(tasks), HttpStatusCode.OK);
+            sendList(httpExchange, TaskType.TASK, taskManager::getAllTasks, taskManager::getTasksPage);
         } else {
             String[] pathParts = path.split("/");
             if (pathParts.length == 4) {
@@ -50,6 +48,9 @@ public class TaskHandler extends AbstractTaskHandler {
         try {
             String body = new String(httpExchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
             Task task = gson.fromJson(body, Task.class);
+            if (rejectUnsupportedTime(httpExchange, task)) {
+                return;
+            }
 
             if (task.getId() != 0) {
                 Task existingTask = taskManager.getTaskById(task.getId());
@@ -0,0 +1,64 @@
+package util;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+// Момент времени как число наносекунд от 1970-01-01T00:00 (время считается UTC).
+// Сравнение двух таких чисел заменяет compareTo у LocalDateTime и ничего не создаёт.
+// Точно представимы моменты примерно с 1677 по 2262 год
+public final class EpochNanos {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    // Границы поддерживаемого диапазона: 1677-09-21T00:12:43.145224192 и 2262-04-11T23:47:16.854775807
+    public static final LocalDateTime MIN = toLocalDateTime(Long.MIN_VALUE);
+    public static final LocalDateTime MAX = toLocalDateTime(Long.MAX_VALUE);
+
+    private EpochNanos() {
+    }
+
+    // Точное значение; время вне поддерживаемого диапазона — ошибка
+    public static long of(LocalDateTime time) {
+        try {
+            return Math.addExact(Math.multiplyExact(time.toEpochSecond(ZoneOffset.UTC), NANOS_PER_SECOND),
+                    time.getNano());
+        } catch (ArithmeticException exception) {
+            throw new IllegalArgumentException("Time is out of supported range: " + time);
+        }
+    }
+
+    // Для границ запросов: время вне диапазона прижимается к его краю, что не меняет результата
+    public static long clamp(LocalDateTime time) {
+        long seconds = time.toEpochSecond(ZoneOffset.UTC);
+        if (seconds >= Long.MAX_VALUE / NANOS_PER_SECOND) {
+            return Long.MAX_VALUE;
+        }
+        if (seconds <= Long.MIN_VALUE / NANOS_PER_SECOND) {
+            return Long.MIN_VALUE;
+        }
+        return seconds * NANOS_PER_SECOND + time.getNano();
+    }
+
+    public static LocalDateTime toLocalDateTime(long nanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, NANOS_PER_SECOND),
+                (int) Math.floorMod(nanos, NANOS_PER_SECOND), ZoneOffset.UTC);
+    }
+
+    // Продолжительность в наносекундах; слишком длинная прижимается к Long.MAX_VALUE
+    public static long length(Duration duration) {
+        try {
+            return duration.toNanos();
+        } catch (ArithmeticException exception) {
+            return duration.isNegative() ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+    }
+
+    // Сложение без переполнения: результат прижимается к границам long
+    public static long plus(long nanos, long length) {
+        long sum = nanos + length;
+        if (((nanos ^ sum) & (length ^ sum)) < 0) {
+            return length > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,162 @@
+package util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// Множество int с открытой адресацией. Значение 0 служит маркером пустой ячейки,
+// поэтому сам ключ 0 хранится отдельным флагом
+public class IntHashSet {
+    private static final int FREE = 0;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private int[] keys;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+    private boolean containsFree;
+
+    public IntHashSet() {
+        this(16);
+    }
+
+    public IntHashSet(int expectedSize) {
+        allocate(IntObjectHashMap.tableSizeFor(expectedSize));
+    }
+
+    public boolean contains(int key) {
+        if (key == FREE) {
+            return containsFree;
+        }
+        int slot = IntObjectHashMap.hash(key) & mask;
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public boolean add(int key) {
+        if (key == FREE) {
+            if (containsFree) {
+                return false;
+            }
+            containsFree = true;
+            size++;
+            return true;
+        }
+        int slot = IntObjectHashMap.hash(key) & mask;
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        if (++size > resizeThreshold) {
+            rehash(keys.length << 1);
+        }
+        return true;
+    }
+
+    public boolean remove(int key) {
+        if (key == FREE) {
+            if (!containsFree) {
+                return false;
+            }
+            containsFree = false;
+            size--;
+            return true;
+        }
+        int slot = IntObjectHashMap.hash(key) & mask;
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                shiftBack(slot);
+                size--;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        containsFree = false;
+        size = 0;
+    }
+
+    public void forEach(IntConsumer action) {
+        if (containsFree) {
+            action.accept(FREE);
+        }
+        for (int key : keys) {
+            if (key != FREE) {
+                action.accept(key);
+            }
+        }
+    }
+
+    public int[] toArray() {
+        int[] result = new int[size];
+        int index = 0;
+        if (containsFree) {
+            result[index++] = FREE;
+        }
+        for (int key : keys) {
+            if (key != FREE) {
+                result[index++] = key;
+            }
+        }
+        return result;
+    }
+
+    private void shiftBack(int slot) {
+        int free = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (keys[next] == FREE) {
+                break;
+            }
+            int ideal = IntObjectHashMap.hash(keys[next]) & mask;
+            boolean stays = free <= next
+                    ? free < ideal && ideal <= next
+                    : free < ideal || ideal <= next;
+            if (!stays) {
+                keys[free] = keys[next];
+                free = next;
+            }
+        }
+        keys[free] = FREE;
+    }
+
+    private void rehash(int newCapacity) {
+        int[] oldKeys = keys;
+        allocate(newCapacity);
+        for (int key : oldKeys) {
+            if (key != FREE) {
+                int slot = IntObjectHashMap.hash(key) & mask;
+                while (keys[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+}
@@ -0,0 +1,143 @@
+package manager;
+
+import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.RecurringTask;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarTaskManagerTest extends TaskManagerTest<ColumnarTaskManager> {
+
+    @Override
+    protected ColumnarTaskManager createTaskManager() {
+        return (ColumnarTaskManager) Managers.getColumnar();
+    }
+
+    @Test
+    void testReadsReturnIndependentCopies() {
+        Task task = new Task("Задача 1", "Описание задачи 1");
+        task.setStartTime(LocalDateTime.of(2024, 3, 1, 9, 0, 30, 123));
+        task.setDuration(Duration.ofSeconds(90));
+        taskManager.addTask(task);
+
+        Task copy = taskManager.getTaskById(task.getId());
+        assertNotSame(task, copy);
+        assertEquals(task, copy, "Время и продолжительность сохраняются без потери точности");
+
+        copy.setName("Изменено без updateTask");
+        assertEquals("Задача 1", taskManager.getTaskById(task.getId()).getName());
+    }
+
+    @Test
+    void testNullFieldsSurviveRoundTrip() {
+        Task task = new Task(null, "Описание");
+        task.setDuration(null);
+        task.setStatus(null);
+        taskManager.addTask(task);
+
+        Task copy = taskManager.getTaskById(task.getId());
+        assertNull(copy.getName());
+        assertNull(copy.getDuration());
+        assertNull(copy.getStatus());
+    }
+
+    @Test
+    void testMaterializedEpicCarriesSubtasks() {
+        Epic epic = taskManager.addEpic(new Epic("Эпик 1", "Описание эпика 1"));
+        Subtask subtask = new Subtask("Подзадача 1", "Описание", epic.getId());
+        subtask.setStartTime(LocalDateTime.of(2024, 3, 1, 9, 0));
+        subtask.setDuration(Duration.ofMinutes(45));
+        subtask.setStatus(TaskStatus.DONE);
+        taskManager.addSubtask(subtask);
+
+        Epic copy = taskManager.getEpicById(epic.getId());
+        assertEquals(1, copy.getSubtasks().size());
+        assertEquals(TaskStatus.DONE, copy.getStatus());
+        assertEquals(LocalDateTime.of(2024, 3, 1, 9, 45), copy.getEndTime());
+        assertEquals(TaskStatus.DONE, epic.getStatus(), "Переданный эпик обновляется, как в InMemoryTaskManager");
+    }
+
+    @Test
+    void testIdOfAnotherTypeIsNotOverwritten() {
+        Task task = taskManager.addTask(new Task("Задача 1", "Описание задачи 1"));
+        Epic epic = new Epic("Эпик", "Описание");
+        epic.setId(task.getId());
+
+        assertThrows(IllegalArgumentException.class, () -> taskManager.updateEpic(epic));
+        assertEquals(task, taskManager.getTaskById(task.getId()));
+    }
+
+    @Test
+    void testStringsAreCompactedAfterChurn() {
+        Task task = taskManager.addTask(new Task("Задача", "Описание"));
+        String longDescription = "о".repeat(64 * 1024);
+        for (int i = 0; i < 64; i++) {
+            task.setDescription(longDescription + i);
+            taskManager.updateTask(task);
+        }
+
+        assertEquals(longDescription + 63, taskManager.getTaskById(task.getId()).getDescription());
+        assertTrue(taskManager.getOffHeapBytes() < 6L * 1024 * 1024, "Мусор строк уплотняется");
+    }
+
+    @Test
+    void testOpensBinarySnapshotWithIdsAndIndexes() throws IOException {
+        File file = File.createTempFile("Доска", ".bin");
+        file.deleteOnExit();
+        FileBackedTaskManager source = new FileBackedTaskManager(file, FileBackedTaskManager.SnapshotFormat.BINARY);
+        Epic epic = source.addEpic(new Epic("Эпик 1", "Описание эпика 1"));
+        Subtask subtask = new Subtask("Подзадача 1", "Отчёт по релизу", epic.getId());
+        subtask.setStartTime(LocalDateTime.of(2024, 3, 1, 9, 0));
+        subtask.setDuration(Duration.ofMinutes(45));
+        subtask.setStatus(TaskStatus.DONE);
+        subtask = source.addSubtask(subtask);
+        Task blocker = new Task("Задача 1", "Описание");
+        blocker.setStartTime(LocalDateTime.of(2024, 3, 1, 10, 0));
+        blocker.setDuration(Duration.ofMinutes(30));
+        blocker = source.addTask(blocker);
+        Task removed = source.addTask(new Task("Задача 2", "Описание задачи 2"));
+        source.addDependency(blocker.getId(), subtask.getId());
+        source.deleteTask(removed.getId());
+
+        ColumnarTaskManager opened = new ColumnarTaskManager(file);
+        assertEquals(List.of(epic), opened.getAllEpics());
+        assertEquals(List.of(subtask), opened.getAllSubtasks());
+        assertEquals(List.of(blocker), opened.getAllTasks());
+        assertEquals(TaskStatus.DONE, opened.getEpicById(epic.getId()).getStatus());
+        assertEquals(List.of(subtask, blocker), opened.getPrioritizedTasks());
+        assertEquals(List.of(blocker), opened.getBlockers(subtask.getId()));
+        assertEquals(List.of(subtask), opened.search("отчет", 10), "Поиск по строкам из файла");
+
+        blocker.setName("Переименована");
+        opened.updateTask(blocker);
+        assertEquals(List.of(blocker), opened.getAllTasks());
+        assertEquals(List.of(blocker), opened.search("переименована", 10));
+        assertTrue(opened.search("задача", 10).isEmpty(), "Прежнее название не находится");
+        assertTrue(opened.addTask(new Task("Задача 3", "Описание")).getId() > removed.getId(),
+                "Id удалённых задач не выдаются повторно");
+    }
+
+    @Test
+    void testRejectsSnapshotsItCannotOpen() throws IOException {
+        File file = File.createTempFile("Доска", ".csv");
+        file.deleteOnExit();
+        FileBackedTaskManager csv = new FileBackedTaskManager(file);
+        csv.addTask(new Task("Задача 1", "Описание задачи 1"));
+        assertThrows(ManagerSaveException.class, () -> new ColumnarTaskManager(file), "Файл в CSV");
+
+        FileBackedTaskManager binary = new FileBackedTaskManager(file, FileBackedTaskManager.SnapshotFormat.BINARY);
+        LocalDateTime start = LocalDateTime.of(2024, 3, 4, 9, 0);
+        binary.addTask(new RecurringTask("Планёрка", "Описание", TaskStatus.NEW, Duration.ofMinutes(30),
+                start, Duration.ofDays(1), null));
+        assertThrows(ManagerSaveException.class, () -> new ColumnarTaskManager(file), "Повторяющиеся задачи");
+    }
+}
@@ -0,0 +1,187 @@
+package manager;
+
+import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+    private static final int THREADS = 8;
+
+    @Override
+    protected ConcurrentTaskManager createTaskManager() {
+        return (ConcurrentTaskManager) Managers.getConcurrent();
+    }
+
+    @Test
+    void testParallelAddsGetUniqueIds() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Task>> futures = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            final int index = i;
+            futures.add(executor.submit(() -> {
+                Task task = new Task("Задача " + index, "Описание задачи " + index);
+                task.setStartTime(LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(index * 10L));
+                task.setDuration(Duration.ofMinutes(10));
+                return taskManager.addTask(task);
+            }));
+        }
+        Set<Integer> ids = new HashSet<>();
+        for (Future<Task> future : futures) {
+            ids.add(future.get().getId());
+        }
+        executor.shutdown();
+
+        assertEquals(1000, ids.size(), "Идентификаторы должны быть уникальными");
+        assertEquals(1000, taskManager.getAllTasks().size());
+        assertEquals(1000, taskManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void testOnlyOneOfOverlappingTasksIsAccepted() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS * 4; i++) {
+            futures.add(executor.submit(() -> {
+                Task task = new Task("Задача", "Описание задачи");
+                task.setStartTime(LocalDateTime.of(2024, 1, 1, 10, 0));
+                task.setDuration(Duration.ofMinutes(30));
+                start.await();
+                try {
+                    taskManager.addTask(task);
+                    accepted.incrementAndGet();
+                } catch (IllegalArgumentException ignored) {
+                    // Пересечение — ожидаемо для всех, кроме одной задачи
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(1, accepted.get());
+        assertEquals(1, taskManager.getAllTasks().size());
+    }
+
+    @Test
+    void testParallelSubtasksInDifferentEpics() throws Exception {
+        List<Epic> epicList = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            epicList.add(taskManager.addEpic(new Epic("Эпик " + i, "Описание эпика " + i)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (Epic epic : epicList) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 100; i++) {
+                    taskManager.addSubtask(new Subtask("Подзадача " + i, "Описание подзадачи", epic.getId()));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(THREADS * 100, taskManager.getAllSubtasks().size());
+        for (Epic epic : epicList) {
+            assertEquals(100, taskManager.getSubtasksByEpicId(epic.getId()).size());
+        }
+    }
+
+    @Test
+    void testUntimedAddsDoNotSurviveConcurrentClearInIndexes() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<List<Integer>>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS - 1; thread++) {
+            futures.add(executor.submit(() -> {
+                List<Integer> ids = new ArrayList<>();
+                for (int i = 0; i < 500; i++) {
+                    ids.add(taskManager.addTask(new Task("Задача " + i, "Описание задачи")).getId());
+                }
+                return ids;
+            }));
+        }
+        Future<?> clearing = executor.submit(() -> {
+            for (int i = 0; i < 200; i++) {
+                taskManager.clearTasks();
+            }
+            return null;
+        });
+        List<Integer> added = new ArrayList<>();
+        for (Future<List<Integer>> future : futures) {
+            added.addAll(future.get());
+        }
+        clearing.get();
+        executor.shutdown();
+
+        Set<Integer> present = new HashSet<>();
+        taskManager.getAllTasks().forEach(task -> present.add(task.getId()));
+        int anchor = taskManager.addTask(new Task("Задача", "Описание задачи")).getId();
+        for (int id : added) {
+            if (!present.contains(id)) {
+                assertThrows(IllegalArgumentException.class, () -> taskManager.addDependency(anchor, id),
+                        "Удалённая очисткой задача не должна оставаться в графе зависимостей");
+            }
+        }
+        assertEquals(present.size() + 1, taskManager.search("Задача", Integer.MAX_VALUE).size());
+    }
+
+    @Test
+    void testEpicReadersSeeConsistentCopiesWhileSubtasksChange() throws Exception {
+        Epic epic = taskManager.addEpic(new Epic("Эпик", "Описание эпика"));
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        Future<?> writer = executor.submit(() -> {
+            for (int i = 0; i < 2000; i++) {
+                Subtask subtask = taskManager.addSubtask(new Subtask("Подзадача " + i, "Описание", epic.getId()));
+                if (i % 2 == 0) {
+                    taskManager.deleteSubtask(subtask.getId());
+                }
+            }
+            return null;
+        });
+        List<Future<?>> readers = new ArrayList<>();
+        for (int thread = 0; thread < THREADS - 1; thread++) {
+            boolean byId = thread % 2 == 0;
+            readers.add(executor.submit(() -> {
+                while (!writer.isDone()) {
+                    Epic read = byId ? taskManager.getEpicById(epic.getId())
+                            : taskManager.getAllEpics().get(0);
+                    int counted = 0;
+                    for (TaskStatus status : TaskStatus.values()) {
+                        counted += read.getSubtaskCount(status);
+                    }
+                    assertEquals(counted, read.getSubtasks().size(), "Копия эпика не меняется у читателя");
+                    assertEquals(counted, new ArrayList<>(read.getSubtasks()).size());
+                }
+                return null;
+            }));
+        }
+        writer.get();
+        for (Future<?> reader : readers) {
+            reader.get();
+        }
+        executor.shutdown();
+
+        assertEquals(1000, taskManager.getEpicById(epic.getId()).getSubtasks().size());
+    }
+}
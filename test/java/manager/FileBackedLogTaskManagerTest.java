@@ -0,0 +1,140 @@
+package manager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileBackedLogTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
+
+    private File tempFile;
+
+    @Override
+    protected FileBackedTaskManager createTaskManager() throws IOException {
+        tempFile = File.createTempFile("Журнал задач", ".csv");
+        tempFile.deleteOnExit();
+        FileBackedTaskManager.logPath(tempFile).toFile().deleteOnExit();
+        return new FileBackedTaskManager(tempFile, FileBackedTaskManager.Durability.OS_BUFFERED);
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskManager.close();
+    }
+
+    private FileBackedTaskManager reopen() {
+        taskManager.close();
+        return new FileBackedTaskManager(tempFile, FileBackedTaskManager.Durability.EVERY_WRITE);
+    }
+
+    @Test
+    void testChangesGoToLogAndSurviveRestartWithIds() throws IOException {
+        long snapshotSize = Files.size(tempFile.toPath());
+        Task task = taskManager.addTask(new Task("Задача 1", "Описание задачи 1"));
+        Task removed = taskManager.addTask(new Task("Задача 2", "Описание задачи 2"));
+        Epic epic = taskManager.addEpic(new Epic("Эпик 1", "Описание эпика 1"));
+        Subtask subtask = taskManager.addSubtask(new Subtask("Подзадача 1", "Описание", epic.getId()));
+        subtask.setStatus(TaskStatus.DONE);
+        taskManager.updateSubtask(subtask);
+        taskManager.addDependency(task.getId(), subtask.getId());
+        taskManager.deleteTask(removed.getId());
+        assertEquals(snapshotSize, Files.size(tempFile.toPath()), "Файл задач не переписывается");
+
+        FileBackedTaskManager restored = reopen();
+        assertEquals(List.of(task), restored.getAllTasks());
+        assertEquals(List.of(subtask), restored.getAllSubtasks());
+        assertEquals(TaskStatus.DONE, restored.getEpicById(epic.getId()).getStatus(), "Статус эпика пересчитан");
+        assertEquals(List.of(task), restored.getBlockers(subtask.getId()));
+        assertTrue(restored.addTask(new Task("Задача 3", "Описание")).getId() > removed.getId(),
+                "Id удалённых задач не выдаются повторно");
+        restored.close();
+    }
+
+    @Test
+    void testCheckpointStartsNewLogGeneration() {
+        Task task = taskManager.addTask(new Task("Задача 1", "Описание задачи 1"));
+        taskManager.checkpoint();
+        Task later = taskManager.addTask(new Task("Задача 2", "Описание задачи 2"));
+        taskManager.deleteTask(task.getId());
+
+        FileBackedTaskManager restored = reopen();
+        assertEquals(List.of(later), restored.getAllTasks());
+        restored.close();
+    }
+
+    @Test
+    void testTornLastRecordIsDropped() throws IOException {
+        Task task = taskManager.addTask(new Task("Задача 1", "Описание задачи 1"));
+        taskManager.close();
+        Files.writeString(FileBackedTaskManager.logPath(tempFile), "U,99,TASK,Недописан",
+                StandardOpenOption.APPEND);
+
+        FileBackedTaskManager restored = new FileBackedTaskManager(tempFile, FileBackedTaskManager.Durability.PERIODIC);
+        assertEquals(List.of(task), restored.getAllTasks());
+        Task next = restored.addTask(new Task("Задача 2", "Описание задачи 2"));
+        restored.close();
+
+        FileBackedTaskManager again = new FileBackedTaskManager(tempFile, FileBackedTaskManager.Durability.PERIODIC);
+        assertEquals(List.of(task, next), again.getAllTasks(), "Запись после обрезанного хвоста читается");
+        again.close();
+    }
+
+    private FileBackedTaskManager writeBehind(int queueCapacity, FileBackedTaskManager.Acknowledgement ack) {
+        taskManager.close();
+        return new FileBackedTaskManager(tempFile, FileBackedTaskManager.Durability.EVERY_WRITE,
+                Duration.ofMillis(2), queueCapacity, ack);
+    }
+
+    @Test
+    void testWriteBehindFlushPersistsQueuedChanges() {
+        FileBackedTaskManager manager = writeBehind(4, FileBackedTaskManager.Acknowledgement.QUEUED);
+        List<Task> added = new ArrayList<>();
+        for (int i = 0; i < 300; i++) { // Очередь меньше пакета: изменения ждут места в ней
+            added.add(manager.addTask(new Task("Задача " + i, "Описание")));
+            if (i == 150) {
+                manager.checkpoint();
+            }
+        }
+        manager.deleteTask(added.remove(0).getId());
+        manager.flush();
+
+        FileBackedTaskManager restored = new FileBackedTaskManager(tempFile,
+                FileBackedTaskManager.Durability.OS_BUFFERED);
+        assertEquals(new HashSet<>(added), new HashSet<>(restored.getAllTasks()));
+        restored.close();
+        manager.close();
+    }
+
+    @Test
+    void testDurableAcknowledgementWaitsForDisk() throws IOException {
+        FileBackedTaskManager manager = writeBehind(64, FileBackedTaskManager.Acknowledgement.DURABLE);
+        manager.addTask(new Task("Задача 1", "Описание задачи 1"));
+        assertTrue(Files.readString(FileBackedTaskManager.logPath(tempFile)).contains("Задача 1"),
+                "Изменение принято только после записи");
+        manager.close();
+    }
+
+    @Test
+    void testWriteBehindOptionsAreValidated() {
+        taskManager.close();
+        assertThrows(IllegalArgumentException.class, () -> new FileBackedTaskManager(tempFile,
+                FileBackedTaskManager.Durability.PERIODIC, Duration.ofMillis(-1), 16,
+                FileBackedTaskManager.Acknowledgement.QUEUED));
+        assertThrows(IllegalArgumentException.class, () -> new FileBackedTaskManager(tempFile,
+                FileBackedTaskManager.Durability.PERIODIC, Duration.ZERO, -1,
+                FileBackedTaskManager.Acknowledgement.QUEUED));
+    }
+}
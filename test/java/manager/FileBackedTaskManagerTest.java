@@ -2,11 +2,22 @@ package manager;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.RecurringTask;
+import task.Subtask;
 import task.Task;
+import task.TaskStatus;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -78,4 +89,159 @@ public class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskMan
         assertEquals(task1.getName(), newTaskManager.getTaskById(task1.getId()).getName(), "Задача 1 должна совпадать.");
         assertEquals(task2.getName(), newTaskManager.getTaskById(task2.getId()).getName(), "Задача 2 должна совпадать.");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testLoadKeepsIdsAndDoesNotRewriteFile() throws IOException {
+        String content = "id,type,name,status,description,duration,startTime,epic\n"
+                + "12,SUBTASK,Подзадача 1,DONE,Описание,30,2024-01-01T10:00,7\n"
+                + "3,TASK,Задача 1,NEW,Описание,0,null,\n"
+                + "7,EPIC,Эпик 1,NEW,Описание,0,null,\n"
+                + "15,SUBTASK,Подзадача 2,DONE,Описание,60,2024-01-02T10:00,7\n"
+                + "#nextId=20\n";
+        Files.writeString(tempFile.toPath(), content);
+
+        FileBackedTaskManager loaded = new FileBackedTaskManager(tempFile);
+        assertEquals(content, Files.readString(tempFile.toPath()), "Загрузка не переписывает файл");
+        assertEquals(Set.of(12, 15), loaded.getAllSubtasks().stream().map(Task::getId).collect(Collectors.toSet()),
+                "Id подзадач сохраняются");
+        Epic epic = loaded.getEpicById(7);
+        assertEquals(TaskStatus.DONE, epic.getStatus(), "Статус эпика считается по подзадачам");
+        assertEquals(Duration.ofMinutes(90), epic.getDuration());
+        assertEquals(LocalDateTime.of(2024, 1, 1, 10, 0), epic.getStartTime());
+        assertEquals("Задача 1", loaded.getTaskById(3).getName());
+        assertEquals(20, loaded.addTask(new Task("Задача 2", "Описание")).getId());
+    }
+
+    @Test
+    void testEveryKindOfChangeIsSaved() {
+        Epic epic = taskManager.addEpic(new Epic("Эпик 1", "Описание эпика 1"));
+        Subtask subtask = taskManager.addSubtask(new Subtask("Подзадача 1", "Описание", epic.getId()));
+        subtask.setStatus(TaskStatus.DONE);
+        taskManager.updateSubtask(subtask);
+        taskManager.addAll(List.of(new Task("Задача 1", "Описание"), new Task("Задача 2", "Описание")));
+        Task removed = taskManager.getAllTasks().get(0);
+        taskManager.deleteTask(removed.getId());
+        Epic empty = taskManager.addEpic(new Epic("Эпик 2", "Описание эпика 2"));
+        taskManager.deleteEpic(empty.getId());
+
+        FileBackedTaskManager reloaded = new FileBackedTaskManager(tempFile);
+        assertEquals(taskManager.getAllTasks(), reloaded.getAllTasks());
+        assertEquals(List.of(subtask), reloaded.getAllSubtasks());
+        assertEquals(TaskStatus.DONE, reloaded.getEpicById(epic.getId()).getStatus());
+        assertEquals(List.of(epic.getId()), reloaded.getAllEpics().stream().map(Task::getId).toList());
+
+        taskManager.clearEpics();
+        assertTrue(new FileBackedTaskManager(tempFile).getAllEpics().isEmpty(), "Очистка тоже сохраняется");
+    }
+
+    @Test
+    void testDeletedIdsAreNotReusedAfterReload() {
+        Task task1 = taskManager.addTask(new Task("Задача 1", "Описание задачи 1"));
+        taskManager.addTask(new Task("Задача 2", "Описание задачи 2"));
+        Task task3 = taskManager.addTask(new Task("Задача 3", "Описание задачи 3"));
+        taskManager.deleteTask(task3.getId());
+
+        FileBackedTaskManager newTaskManager = new FileBackedTaskManager(tempFile);
+        assertEquals(2, newTaskManager.getAllTasks().size(), "Должны загрузиться 2 задачи.");
+
+        Task task4 = newTaskManager.addTask(new Task("Задача 4", "Описание задачи 4"));
+        assertTrue(task4.getId() > task3.getId(), "Id удалённой задачи не должен выдаваться повторно.");
+        assertNotEquals(task1.getId(), task4.getId());
+    }
+
+    @Test
+    void testDependenciesSurviveReload() {
+        Task blocker = taskManager.addTask(new Task("Задача 1", "Описание задачи 1"));
+        Task blocked = taskManager.addTask(new Task("Задача 2", "Описание задачи 2"));
+        taskManager.addDependency(blocker.getId(), blocked.getId());
+
+        FileBackedTaskManager newTaskManager = new FileBackedTaskManager(tempFile);
+        List<Task> ready = newTaskManager.getReadyTasks();
+        assertEquals(1, ready.size(), "Зависимость должна сохраниться.");
+        assertEquals(blocker.getName(), ready.get(0).getName());
+        Task loadedBlocked = newTaskManager.getAllTasks().stream()
+                .filter(task -> task.getName().equals(blocked.getName())).findFirst().orElseThrow();
+        assertEquals(List.of(ready.get(0)), newTaskManager.getBlockers(loadedBlocked.getId()));
+    }
+
+    @Test
+    void testRecurringTaskSurvivesReload() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 4, 9, 0);
+        RecurringTask series = new RecurringTask("Планёрка", "Описание", TaskStatus.NEW, Duration.ofMinutes(30),
+                start, Duration.ofDays(1), start.plusDays(30));
+        series.skipOccurrence(start.plusDays(1));
+        series.moveOccurrence(start.plusDays(2), start.plusDays(2).plusHours(4));
+        taskManager.addTask(series);
+
+        FileBackedTaskManager newTaskManager = new FileBackedTaskManager(tempFile);
+        RecurringTask loaded = (RecurringTask) newTaskManager.getAllTasks().get(0);
+        assertEquals(series.getEvery(), loaded.getEvery());
+        assertEquals(series.getUntil(), loaded.getUntil());
+        assertEquals(series.getExceptions(), loaded.getExceptions());
+        assertEquals(3, newTaskManager.getTasksInWindow(start, start.plusDays(3).plusHours(1)).size());
+    }
+
+    @Test
+    void testBinarySnapshotKeepsIdsAndExactTimes() throws IOException {
+        FileBackedTaskManager binary = new FileBackedTaskManager(tempFile, FileBackedTaskManager.SnapshotFormat.BINARY);
+        LocalDateTime start = LocalDateTime.of(2024, 3, 4, 9, 0);
+        Epic epic = binary.addEpic(new Epic("Эпик 1", "Описание эпика 1"));
+        Subtask subtask = new Subtask("Подзадача 1", "Описание", epic.getId());
+        subtask.setStartTime(start.withSecond(15).withNano(500)); // Не на границе минуты
+        subtask.setDuration(Duration.ofSeconds(90));
+        subtask = binary.addSubtask(subtask);
+        RecurringTask series = new RecurringTask("Планёрка", "Описание", TaskStatus.IN_PROGRESS,
+                Duration.ofMinutes(30), start.plusHours(1), Duration.ofDays(1), null);
+        series.skipOccurrence(start.plusDays(1).plusHours(1));
+        series.moveOccurrence(start.plusDays(2).plusHours(1), start.plusDays(2).plusHours(5));
+        series = (RecurringTask) binary.addTask(series);
+        Task removed = binary.addTask(new Task("Задача 2", "Описание задачи 2"));
+        binary.addDependency(series.getId(), subtask.getId());
+        binary.deleteTask(removed.getId());
+        assertTrue(SnapshotCodec.isBinary(Files.readAllBytes(tempFile.toPath())));
+
+        FileBackedTaskManager restored = new FileBackedTaskManager(tempFile);
+        assertEquals(List.of(epic), restored.getAllEpics());
+        assertEquals(List.of(subtask), restored.getAllSubtasks());
+        assertEquals(List.of(series), restored.getAllTasks());
+        assertEquals(epic.getEndTime(), restored.getEpicById(epic.getId()).getEndTime());
+        assertEquals(List.of(series), restored.getBlockers(subtask.getId()));
+        assertTrue(restored.addTask(new Task("Задача 3", "Описание")).getId() > removed.getId(),
+                "Id удалённых задач не выдаются повторно");
+    }
+
+    @Test
+    void testConverterKeepsIdsAndLogGeneration() throws IOException {
+        File logged = File.createTempFile("Журнал задач", ".csv");
+        logged.deleteOnExit();
+        FileBackedTaskManager.logPath(logged).toFile().deleteOnExit();
+        FileBackedTaskManager manager = new FileBackedTaskManager(logged, FileBackedTaskManager.Durability.OS_BUFFERED);
+        Task removed = manager.addTask(new Task("Удалённая", "Описание"));
+        manager.deleteTask(removed.getId());
+        Task task = manager.addTask(new Task("Задача 1", "Описание задачи 1"));
+        manager.checkpoint();
+        Task later = manager.addTask(new Task("Задача 2", "Описание задачи 2")); // Только в журнале
+        manager.close();
+
+        SnapshotConverter.convert(logged.toPath(), logged.toPath());
+        FileBackedTaskManager reopened = new FileBackedTaskManager(logged, FileBackedTaskManager.Durability.OS_BUFFERED);
+        assertEquals(Set.of(task, later), new HashSet<>(reopened.getAllTasks()), "Журнал применяется к переведённому файлу");
+        reopened.checkpoint();
+        reopened.close();
+        assertTrue(SnapshotCodec.isBinary(Files.readAllBytes(logged.toPath())),
+                "Контрольная точка сохраняет формат файла");
+    }
+
+    @Test
+    void testCorruptedBinarySnapshotIsRejected() throws IOException {
+        FileBackedTaskManager binary = new FileBackedTaskManager(tempFile, FileBackedTaskManager.SnapshotFormat.BINARY);
+        binary.addTask(new Task("Задача 1", "Описание задачи 1"));
+        byte[] content = Files.readAllBytes(tempFile.toPath());
+        content[content.length / 2] ^= 0x40;
+        Files.write(tempFile.toPath(), content);
+        assertThrows(ManagerSaveException.class, () -> new FileBackedTaskManager(tempFile));
+
+        Files.write(tempFile.toPath(), Arrays.copyOf(content, SnapshotCodec.HEADER_BYTES + 3));
+        assertThrows(ManagerSaveException.class, () -> new FileBackedTaskManager(tempFile), "Обрезанный файл");
+    }
+}
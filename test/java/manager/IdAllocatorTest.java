@@ -0,0 +1,55 @@
+package manager;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdAllocatorTest {
+
+    @Test
+    void testSequentialIds() {
+        IdAllocator allocator = new IdAllocator();
+        assertEquals(1, allocator.next());
+        assertEquals(2, allocator.next());
+        assertEquals(3, allocator.peekNext());
+    }
+
+    @Test
+    void testReserveRange() {
+        IdAllocator allocator = new IdAllocator();
+        allocator.next();
+        int first = allocator.reserve(100);
+
+        assertEquals(2, first);
+        assertEquals(102, allocator.next(), "Зарезервированный диапазон не должен выдаваться повторно");
+    }
+
+    @Test
+    void testAdvanceToNeverMovesBack() {
+        IdAllocator allocator = new IdAllocator();
+        allocator.advanceTo(41);
+        allocator.advanceTo(10);
+
+        assertEquals(42, allocator.next());
+    }
+
+    @Test
+    void testLocalBlocksAreUniqueAcrossThreads() throws InterruptedException {
+        IdAllocator allocator = new IdAllocator(1, 16);
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 10_000; i++) {
+            executor.execute(() -> ids.add(allocator.nextLocal()));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(10_000, ids.size());
+    }
+}
@@ -3,12 +3,19 @@ package manager;
 import history.HistoryManager;
 import history.InMemoryHistoryManager;
 import org.junit.jupiter.api.Nested;
+import task.Epic;
+import task.RecurringTask;
+import task.Subtask;
 import task.Task;
 import task.TaskStatus;
 import org.junit.jupiter.api.Test;
 
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -84,6 +91,32 @@ public class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager
         }
     }
 
+    @Nested
+    class PrioritizedTests { // тесты для списка по приоритету
+        @Test
+        void prioritizedTasksFollowUpdatedStartTime() {
+            Task task1 = new Task("Задача 1", "Описание задачи 1");
+            task1.setStartTime(LocalDateTime.of(2024, 1, 1, 10, 0));
+            task1.setDuration(Duration.ofMinutes(30));
+            taskManager.addTask(task1);
+
+            Task task2 = new Task("Задача 2", "Описание задачи 2");
+            task2.setStartTime(LocalDateTime.of(2024, 1, 1, 11, 0));
+            task2.setDuration(Duration.ofMinutes(30));
+            taskManager.addTask(task2);
+
+            // Меняем поля задачи — её hashCode меняется, но индекс должен остаться согласованным
+            task1.setName("Задача 1 (перенесена)");
+            task1.setStartTime(LocalDateTime.of(2024, 1, 1, 12, 0));
+            taskManager.updateTask(task1);
+
+            assertEquals(List.of(task2, task1), taskManager.getPrioritizedTasks());
+
+            taskManager.deleteTask(task1.getId());
+            assertEquals(List.of(task2), taskManager.getPrioritizedTasks());
+        }
+    }
+
     @Nested
     class ManagerTests { // тесты для менеджеров
         @Test
@@ -97,4 +130,224 @@ public class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager
             assertInstanceOf(InMemoryHistoryManager.class, historyManager);
         }
     }
+
+    @Nested
+    class ChangeEndTests { // тесты сигнала конца изменения
+        @Test
+        void testChangeEndFollowsAllEventsOfChange() {
+            List<TaskEvent> received = new ArrayList<>();
+            List<Integer> seenAtEnd = new ArrayList<>();
+            taskManager.addListener(received::add);
+            taskManager.addChangeListener(() -> seenAtEnd.add(received.size()));
+            LocalDateTime start = LocalDateTime.of(2024, 3, 4, 10, 0);
+
+            Epic epic = taskManager.addEpic(new Epic("Эпик 1", "Описание эпика 1"));
+            taskManager.addSubtask(new Subtask("Подзадача 1", "Описание", epic.getId())); // Подзадача и пересчёт эпика
+            taskManager.addAll(List.of(timedTask("Задача 1", start, 30), new Task("Задача 2", "Описание")));
+            assertThrows(IllegalArgumentException.class, () -> taskManager.addTask(timedTask("Задача 3", start, 30)));
+            taskManager.clearEpics(); // Очистка подзадач и эпиков
+
+            assertEquals(List.of(1, 3, 5, 7), seenAtEnd, "Один сигнал на изменение, после всех его событий");
+        }
+    }
+
+    @Nested
+    class ScheduleTests { // тесты автоматического расписания
+        private final LocalDateTime nine = LocalDateTime.of(2024, 3, 1, 9, 0);
+
+        private Task unscheduled(String name, long minutes) {
+            return taskManager.addTask(new Task(name, "Описание", TaskStatus.NEW, Duration.ofMinutes(minutes), null));
+        }
+
+        @Test
+        void testPlanFillsGapsAndCommitApplies() {
+            taskManager.addTask(new Task("Встреча", "Описание", TaskStatus.NEW, Duration.ofMinutes(60),
+                    nine.plusHours(1)));
+            Task first = unscheduled("Первая", 30);
+            Task second = unscheduled("Вторая", 60);
+            Epic epic = taskManager.addEpic(new Epic("Эпик", "Описание"));
+            Subtask subtask = new Subtask("Подзадача", "Описание", epic.getId());
+            subtask.setDuration(Duration.ofMinutes(30));
+            taskManager.addSubtask(subtask);
+            long version = taskManager.getVersion();
+
+            SchedulePlan plan = taskManager.planSchedule(List.of(first.getId(), second.getId(), subtask.getId()),
+                    nine.plusMinutes(15), null);
+            assertTrue(plan.isComplete());
+            assertEquals(List.of(nine.plusMinutes(15), nine.plusHours(2), nine.plusHours(3)),
+                    plan.getItems().stream().map(SchedulePlan.Item::getStart).toList(),
+                    "Вторая не помещается до встречи и идёт после неё");
+            assertNull(first.getStartTime(), "План ничего не меняет");
+            assertEquals(version, taskManager.getVersion());
+
+            taskManager.commitSchedule(plan);
+            assertEquals(nine.plusMinutes(15), first.getStartTime());
+            assertEquals(nine.plusHours(3), epic.getStartTime(), "Время эпика пересчитано");
+            assertEquals(4, taskManager.getPrioritizedTasks().size());
+            assertThrows(IllegalArgumentException.class, () -> taskManager.commitSchedule(plan),
+                    "Применённый план устарел");
+        }
+
+        @Test
+        void testDeadlinesAndDependenciesOrderPlacement() {
+            Task design = unscheduled("Макет", 60);
+            Task urgent = unscheduled("Срочная", 30);
+            Task layout = unscheduled("Вёрстка", 60);
+            taskManager.addDependency(design.getId(), layout.getId());
+
+            SchedulePlan plan = taskManager.planSchedule(List.of(design.getId(), urgent.getId(), layout.getId()),
+                    nine, Map.of(urgent.getId(), nine.plusMinutes(30), layout.getId(), nine.plusHours(3)));
+            assertEquals(List.of(nine.plusMinutes(30), nine, nine.plusMinutes(90)),
+                    plan.getItems().stream().map(SchedulePlan.Item::getStart).toList(),
+                    "Срочная первой, вёрстка после макета");
+
+            SchedulePlan late = taskManager.planSchedule(List.of(design.getId(), layout.getId()), nine,
+                    Map.of(design.getId(), nine.plusMinutes(30)));
+            assertFalse(late.isComplete());
+            assertEquals("Deadline cannot be met", late.getItems().get(0).getReason());
+            assertEquals("Blocked by unscheduled task " + design.getId(), late.getItems().get(1).getReason());
+            assertThrows(IllegalArgumentException.class, () -> taskManager.commitSchedule(late));
+            assertNull(design.getStartTime());
+        }
+
+        @Test
+        void testInvalidTasksAreRejected() {
+            Task placed = taskManager.addTask(new Task("Стоит", "Описание", TaskStatus.NEW, Duration.ofMinutes(30),
+                    nine));
+            Task empty = unscheduled("Без длительности", 0);
+            Task blocked = unscheduled("Ждёт", 30);
+            Task blocker = unscheduled("Не в пакете", 30);
+            taskManager.addDependency(blocker.getId(), blocked.getId());
+
+            SchedulePlan plan = taskManager.planSchedule(
+                    List.of(placed.getId(), empty.getId(), blocked.getId(), 999), nine, null);
+            assertEquals(List.of("Task already has a start time", "Duration must be positive",
+                            "Blocked by unscheduled task " + blocker.getId(), "Task or subtask with id 999 not found"),
+                    plan.getRejected().stream().map(SchedulePlan.Item::getReason).toList());
+
+            SchedulePlan stale = taskManager.planSchedule(List.of(blocker.getId()), nine, null);
+            unscheduled("Новая", 10);
+            assertThrows(IllegalArgumentException.class, () -> taskManager.commitSchedule(stale));
+            assertThrows(IllegalArgumentException.class, () -> taskManager.planSchedule(null, nine, null));
+        }
+
+        @Test
+        void testLargeBatchIsPackedWithoutOverlaps() {
+            int count = AutoScheduler.PARALLEL_THRESHOLD * 2;
+            taskManager.addTask(new Task("Обед", "Описание", TaskStatus.NEW, Duration.ofMinutes(60),
+                    nine.plusMinutes(100)));
+            List<Integer> ids = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                ids.add(unscheduled("Задача " + i, 1).getId());
+            }
+
+            SchedulePlan plan = taskManager.planSchedule(ids, nine, null);
+            assertTrue(plan.isComplete());
+            for (int i = 0; i < count; i++) {
+                LocalDateTime expected = nine.plusMinutes(i < 100 ? i : i + 60);
+                assertEquals(expected, plan.getItems().get(i).getStart(), "Задачи идут подряд в обход обеда");
+            }
+            taskManager.commitSchedule(plan);
+            assertEquals(count + 1, taskManager.getPrioritizedTasks().size());
+        }
+    }
+
+    @Nested
+    class RecurrenceTests { // тесты повторяющихся задач
+        private final LocalDateTime nine = LocalDateTime.of(2024, 3, 4, 9, 0);
+
+        private RecurringTask daily(LocalDateTime until) {
+            return new RecurringTask("Планёрка", "Описание", TaskStatus.NEW, Duration.ofMinutes(30), nine,
+                    Duration.ofDays(1), until);
+        }
+
+        @Test
+        void testOccurrencesExpandOnlyInsideWindow() {
+            RecurringTask series = (RecurringTask) taskManager.addTask(daily(null));
+            Task single = taskManager.addTask(new Task("Разовая", "Описание", TaskStatus.NEW,
+                    Duration.ofMinutes(60), nine.plusDays(1).plusHours(1)));
+
+            List<Task> window = taskManager.getTasksInWindow(nine.plusDays(1), nine.plusDays(3));
+            assertEquals(List.of(nine.plusDays(1), nine.plusDays(1).plusHours(1), nine.plusDays(2)),
+                    window.stream().map(Task::getStartTime).toList());
+            assertEquals(series.getId(), window.get(0).getId(), "Вхождение несёт id серии");
+            assertEquals(single, window.get(1));
+            assertEquals(List.of(series, single), taskManager.getPrioritizedTasks(),
+                    "Серия стоит в списке один раз");
+        }
+
+        @Test
+        void testOverlapWithOccurrenceIsRejected() {
+            taskManager.addTask(daily(null));
+            assertThrows(IllegalArgumentException.class, () -> taskManager.addTask(new Task("Разовая",
+                    "Описание", TaskStatus.NEW, Duration.ofMinutes(30), nine.plusDays(400).plusMinutes(15))));
+            assertThrows(IllegalArgumentException.class, () -> taskManager.addTask(new RecurringTask("Другая",
+                    "Описание", TaskStatus.NEW, Duration.ofMinutes(30), nine.plusDays(7).minusMinutes(15),
+                    Duration.ofDays(7), null)), "Другая серия задевает вхождения этой");
+            assertDoesNotThrow(() -> taskManager.addTask(new RecurringTask("Обед", "Описание", TaskStatus.NEW,
+                    Duration.ofMinutes(60), nine.plusHours(3), Duration.ofDays(1), null)));
+        }
+
+        @Test
+        void testNewSeriesIsCheckedAgainstExistingTasks() {
+            taskManager.addTask(new Task("Разовая", "Описание", TaskStatus.NEW, Duration.ofMinutes(30),
+                    nine.plusDays(10)));
+            assertThrows(IllegalArgumentException.class, () -> taskManager.addTask(daily(null)));
+            assertDoesNotThrow(() -> taskManager.addTask(daily(nine.plusDays(10))), "Серия кончается раньше");
+        }
+
+        @Test
+        void testSkippedAndMovedOccurrences() {
+            RecurringTask series = (RecurringTask) taskManager.addTask(daily(null));
+            series.skipOccurrence(nine.plusDays(1));
+            series.moveOccurrence(nine.plusDays(2), nine.plusDays(2).plusHours(4));
+            taskManager.updateTask(series);
+
+            assertEquals(List.of(nine, nine.plusDays(2).plusHours(4), nine.plusDays(3)),
+                    taskManager.getTasksInWindow(nine, nine.plusDays(3).plusHours(1)).stream()
+                            .map(Task::getStartTime).toList());
+            assertDoesNotThrow(() -> taskManager.addTask(new Task("На месте пропуска", "Описание",
+                    TaskStatus.NEW, Duration.ofMinutes(30), nine.plusDays(1))));
+            assertThrows(IllegalArgumentException.class, () -> taskManager.addTask(new Task("На перенесённом",
+                    "Описание", TaskStatus.NEW, Duration.ofMinutes(30), nine.plusDays(2).plusHours(4))));
+            assertThrows(IllegalArgumentException.class, () -> series.skipOccurrence(nine.plusMinutes(5)),
+                    "Не начало вхождения");
+        }
+
+        @Test
+        void testMovedOccurrenceOutsideSeriesSpanIsChecked() {
+            Task existing = taskManager.addTask(new Task("Разовая", "Описание", TaskStatus.NEW,
+                    Duration.ofMinutes(30), nine.minusDays(1)));
+            RecurringTask earlier = daily(null);
+            earlier.moveOccurrence(nine, existing.getStartTime());
+            assertThrows(IllegalArgumentException.class, () -> taskManager.addTask(earlier),
+                    "Первое вхождение перенесено на задачу до начала серии");
+
+            taskManager.addTask(new Task("Поздняя", "Описание", TaskStatus.NEW, Duration.ofMinutes(30),
+                    nine.plusDays(10)));
+            RecurringTask later = daily(nine.plusDays(3));
+            later.moveOccurrence(nine.plusDays(1), nine.plusDays(10).plusMinutes(15));
+            assertThrows(IllegalArgumentException.class, () -> taskManager.addTask(later),
+                    "Вхождение перенесено на задачу после конца серии");
+
+            taskManager.addTask(new RecurringTask("Другая", "Описание", TaskStatus.NEW, Duration.ofMinutes(30),
+                    nine.plusDays(20), Duration.ofDays(1), null));
+            RecurringTask intoSeries = daily(nine.plusDays(3));
+            intoSeries.moveOccurrence(nine.plusDays(2), nine.plusDays(25));
+            assertThrows(IllegalArgumentException.class, () -> taskManager.addTask(intoSeries),
+                    "Вхождение перенесено на вхождение другой серии");
+            assertEquals(1, taskManager.getTasksInWindow(nine.minusDays(1), nine).size());
+        }
+
+        @Test
+        void testFreeTimeAvoidsOccurrences() {
+            taskManager.addTask(daily(null));
+            assertEquals(new TimeSlot(nine.plusDays(5).plusMinutes(30), nine.plusDays(5).plusMinutes(90)),
+                    taskManager.findNextFreeSlot(Duration.ofMinutes(60), nine.plusDays(5).plusMinutes(10)));
+            assertEquals(List.of(new TimeSlot(nine.plusDays(5).minusHours(1), nine.plusDays(5)),
+                            new TimeSlot(nine.plusDays(5).plusMinutes(30), nine.plusDays(5).plusHours(2))),
+                    taskManager.findFreeSlots(nine.plusDays(5).minusHours(1), nine.plusDays(5).plusHours(2),
+                            Duration.ofMinutes(30)));
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+package manager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import task.Task;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Поиск и переиндексация на корпусе из миллиона задач. Словарь — несколько тысяч слов
+// с распределением, близким к Ципфу: частые слова дают длинные списки вхождений, редкие — короткие
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx6g")
+public class SearchIndexBenchmark {
+    private static final int VOCABULARY = 5_000;
+    private static final String[] STEMS = {"отчёт", "звонок", "релиз", "встреча", "ревью", "report", "deploy", "fix"};
+
+    @Param({"1000000"})
+    private int documents;
+
+    private final SearchIndex index = new SearchIndex();
+    private String[] words;
+    private Random random;
+    private int nextId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        words = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            words[i] = STEMS[i % STEMS.length] + i;
+        }
+        random = new Random(42);
+        for (nextId = 1; nextId <= documents; nextId++) {
+            index.put(randomTask(nextId));
+        }
+    }
+
+    // Номер слова с убывающей частотой: малые номера встречаются гораздо чаще
+    private String randomWord() {
+        return words[(int) Math.pow(VOCABULARY, random.nextDouble()) - 1];
+    }
+
+    private Task randomTask(int id) {
+        Task task = new Task(randomWord() + " " + randomWord(),
+                randomWord() + " " + randomWord() + " " + randomWord() + " " + randomWord());
+        task.setId(id);
+        return task;
+    }
+
+    @Benchmark
+    public int[] searchRareWord() {
+        return index.search(words[VOCABULARY - 1 - random.nextInt(100)], 20);
+    }
+
+    @Benchmark
+    public int[] searchFrequentWord() {
+        return index.search(words[random.nextInt(10)], 20);
+    }
+
+    @Benchmark
+    public int[] searchTwoWords() {
+        return index.search(randomWord() + " " + randomWord(), 20);
+    }
+
+    // Обновление существующей задачи: удаление прежних слов и добавление новых
+    @Benchmark
+    public void reindex() {
+        index.put(randomTask(random.nextInt(documents) + 1));
+    }
+}
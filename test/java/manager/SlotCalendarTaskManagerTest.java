@@ -0,0 +1,63 @@
+package manager;
+
+import org.junit.jupiter.api.Test;
+import task.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SlotCalendarTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
+
+    @Override
+    protected InMemoryTaskManager createTaskManager() {
+        return (InMemoryTaskManager) Managers.getWithSlotCalendar(Duration.ofMinutes(15));
+    }
+
+    @Test
+    void testAlignedTasksOverlap() {
+        taskManager.addTask(timedTask("Задача", LocalDateTime.of(2024, 3, 1, 9, 0), 60));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> taskManager.addTask(timedTask("Задача", LocalDateTime.of(2024, 3, 1, 9, 45), 30)));
+        assertDoesNotThrow(() -> taskManager.addTask(timedTask("Задача", LocalDateTime.of(2024, 3, 1, 10, 0), 30)));
+    }
+
+    @Test
+    void testTaskAcrossMidnight() {
+        taskManager.addTask(timedTask("Задача", LocalDateTime.of(2024, 3, 1, 23, 30), 60));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> taskManager.addTask(timedTask("Задача", LocalDateTime.of(2024, 3, 2, 0, 15), 15)));
+        assertDoesNotThrow(() -> taskManager.addTask(timedTask("Задача", LocalDateTime.of(2024, 3, 2, 0, 30), 15)));
+    }
+
+    @Test
+    void testUnalignedTaskFallsBackToPreciseCheck() {
+        taskManager.addTask(timedTask("Задача", LocalDateTime.of(2024, 3, 1, 9, 7), 10)); // 09:07–09:17
+
+        // Слоты 09:00 и 09:15 задеты, но задача 09:17–09:30 не пересекается
+        assertDoesNotThrow(() -> taskManager.addTask(timedTask("Задача", LocalDateTime.of(2024, 3, 1, 9, 17), 13)));
+        assertThrows(IllegalArgumentException.class,
+                () -> taskManager.addTask(timedTask("Задача", LocalDateTime.of(2024, 3, 1, 9, 0), 15)));
+    }
+
+    @Test
+    void testUpdateKeepsOwnSlots() {
+        Task task = taskManager.addTask(timedTask("Задача", LocalDateTime.of(2024, 3, 1, 9, 0), 60));
+
+        task.setDuration(Duration.ofMinutes(90));
+        assertDoesNotThrow(() -> taskManager.updateTask(task));
+        assertThrows(IllegalArgumentException.class,
+                () -> taskManager.addTask(timedTask("Задача", LocalDateTime.of(2024, 3, 1, 10, 15), 15)));
+
+        taskManager.deleteTask(task.getId());
+        assertDoesNotThrow(() -> taskManager.addTask(timedTask("Задача", LocalDateTime.of(2024, 3, 1, 10, 15), 15)));
+    }
+
+    @Test
+    void testInvalidSlotIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> Managers.getWithSlotCalendar(Duration.ofMinutes(7)));
+    }
+}
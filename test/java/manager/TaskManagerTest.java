@@ -6,11 +6,19 @@ import org.junit.jupiter.api.Test;
 import task.Epic;
 import task.Subtask;
 import task.Task;
+import task.TaskStatus;
+import task.TaskType;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.*;
 
 public abstract class TaskManagerTest<T extends TaskManager> {
     protected T taskManager;
@@ -27,6 +35,14 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         assertNotNull(taskManager, "Task manager cannot be null");
     }
 
+    // Задача с заданным началом и продолжительностью в минутах
+    protected static Task timedTask(String name, LocalDateTime startTime, long minutes) {
+        Task task = new Task(name, "Описание");
+        task.setStartTime(startTime);
+        task.setDuration(Duration.ofMinutes(minutes));
+        return task;
+    }
+
     @Nested
     class TaskTests { // тесты для задач
 
@@ -88,6 +104,35 @@ public abstract class TaskManagerTest<T extends TaskManager> {
             assertEquals("Эпик 2", taskManager.getEpicById(epic.getId()).getName());
         }
 
+        @Test
+        public void testUpdateEpicKeepsSubtasksAndRollups() {
+            Epic epic = taskManager.addEpic(new Epic("Эпик 1", "Описание эпика 1"));
+            LocalDateTime nine = LocalDateTime.of(2024, 5, 1, 9, 0);
+            Subtask done = new Subtask("Подзадача 1", "Описание", epic.getId());
+            done.setStatus(TaskStatus.DONE);
+            done.setStartTime(nine);
+            done.setDuration(Duration.ofMinutes(30));
+            taskManager.addSubtask(done);
+            Subtask later = new Subtask("Подзадача 2", "Описание", epic.getId());
+            later.setStartTime(nine.plusHours(2));
+            later.setDuration(Duration.ofMinutes(60));
+            taskManager.addSubtask(later);
+
+            Epic renamed = new Epic("Эпик 2", "Новое описание");
+            renamed.setId(epic.getId());
+            renamed.setStatus(TaskStatus.DONE);
+            taskManager.updateEpic(renamed);
+
+            Epic stored = taskManager.getEpicById(epic.getId());
+            assertEquals("Эпик 2", stored.getName());
+            assertEquals(2, stored.getSubtasks().size(), "Подзадачи переходят к обновлённому эпику");
+            assertEquals(TaskStatus.IN_PROGRESS, stored.getStatus(), "Статус считается по подзадачам");
+            assertEquals(Duration.ofMinutes(90), stored.getDuration());
+            assertEquals(nine, stored.getStartTime());
+            assertEquals(nine.plusHours(3), stored.getEndTime());
+            assertEquals(List.of(stored), taskManager.getTasksByStatus(TaskStatus.IN_PROGRESS, TaskType.EPIC));
+        }
+
         @Test
         public void testDeleteEpic() {
             Epic epic = new Epic("Эпик 1", "Описание эпика 1");
@@ -138,5 +183,624 @@ public abstract class TaskManagerTest<T extends TaskManager> {
             taskManager.deleteSubtask(subtask.getId());
             assertEquals(0, taskManager.getAllSubtasks().size());
         }
+
+        @Test
+        public void testDeleteSubtaskWithTaskIdKeepsTask() {
+            Task task = taskManager.addTask(timedTask("Задача 1", LocalDateTime.of(2024, 5, 1, 9, 0), 60));
+            taskManager.getTaskById(task.getId());
+            taskManager.deleteSubtask(task.getId());
+
+            assertEquals(List.of(task), taskManager.getPrioritizedTasks(), "Задача остаётся в индексе времени");
+            assertEquals(List.of(task), taskManager.getHistory());
+            assertThrows(IllegalArgumentException.class, () -> taskManager.addTask(
+                    timedTask("Задача 2", LocalDateTime.of(2024, 5, 1, 9, 30), 30)));
+        }
+    }
+
+    @Nested
+    class BatchImportTests { // тесты пакетного импорта
+
+        @Test
+        public void testAddAllAcceptsValidBatch() {
+            Epic epic = taskManager.addEpic(new Epic("Эпик 1", "Описание эпика 1"));
+            Subtask subtask1 = new Subtask("Подзадача 1", "Описание подзадачи 1", epic.getId());
+            subtask1.setStartTime(LocalDateTime.of(2024, 5, 1, 9, 0));
+            subtask1.setDuration(Duration.ofMinutes(30));
+            subtask1.setStatus(TaskStatus.DONE);
+            Subtask subtask2 = new Subtask("Подзадача 2", "Описание подзадачи 2", epic.getId());
+            subtask2.setStartTime(LocalDateTime.of(2024, 5, 1, 10, 0));
+            subtask2.setDuration(Duration.ofMinutes(30));
+            Task task = timedTask("Задача 1", LocalDateTime.of(2024, 5, 1, 9, 30), 30);
+
+            ImportReport report = taskManager.addAll(List.of(subtask1, task, subtask2, new Epic("Эпик 2", "Описание")));
+
+            assertTrue(report.isAccepted());
+            assertEquals(4, report.getItems().size());
+            for (ImportReport.Item item : report.getItems()) {
+                assertEquals(ImportReport.Outcome.ACCEPTED, item.getOutcome());
+                assertEquals(item.getTask().getId(), item.getId());
+            }
+            assertEquals(1, taskManager.getAllTasks().size());
+            assertEquals(2, taskManager.getAllSubtasks().size());
+            assertEquals(2, taskManager.getAllEpics().size());
+            assertEquals(TaskStatus.IN_PROGRESS, taskManager.getEpicById(epic.getId()).getStatus());
+            assertEquals(LocalDateTime.of(2024, 5, 1, 9, 0), epic.getStartTime());
+            assertEquals(LocalDateTime.of(2024, 5, 1, 10, 30), epic.getEndTime());
+            assertEquals(List.of(subtask1, task, subtask2), taskManager.getPrioritizedTasks());
+        }
+
+        @Test
+        public void testAddAllRejectsOverlapInsideBatch() {
+            Task first = timedTask("Задача 1", LocalDateTime.of(2024, 5, 1, 9, 0), 60);
+            Task second = timedTask("Задача 2", LocalDateTime.of(2024, 5, 1, 11, 0), 30);
+            Task third = timedTask("Задача 3", LocalDateTime.of(2024, 5, 1, 9, 45), 30);
+
+            ImportReport report = taskManager.addAll(List.of(first, second, third));
+
+            assertFalse(report.isAccepted());
+            assertEquals(ImportReport.Outcome.NOT_APPLIED, report.getItems().get(0).getOutcome());
+            assertEquals(ImportReport.Outcome.NOT_APPLIED, report.getItems().get(1).getOutcome());
+            assertEquals(ImportReport.Outcome.REJECTED, report.getItems().get(2).getOutcome());
+            assertEquals(1, report.getRejected().size());
+            assertTrue(taskManager.getAllTasks().isEmpty());
+            assertTrue(taskManager.getPrioritizedTasks().isEmpty());
+        }
+
+        @Test
+        public void testAddAllRejectsOverlapWithExistingSchedule() {
+            Task existing = taskManager.addTask(timedTask("Задача 1", LocalDateTime.of(2024, 5, 1, 9, 0), 60));
+            Task adjacent = timedTask("Задача 2", LocalDateTime.of(2024, 5, 1, 10, 0), 30);
+            Task clashing = timedTask("Задача 3", LocalDateTime.of(2024, 5, 1, 9, 30), 15);
+
+            ImportReport report = taskManager.addAll(List.of(adjacent, clashing));
+
+            assertFalse(report.isAccepted());
+            assertEquals(ImportReport.Outcome.REJECTED, report.getItems().get(1).getOutcome());
+            assertEquals(List.of(existing), taskManager.getAllTasks());
+            assertDoesNotThrow(() -> taskManager.addTask(adjacent));
+        }
+
+        @Test
+        public void testAddAllRejectsUnknownEpicAndNulls() {
+            Task task = new Task("Задача 1", "Описание задачи 1");
+            List<Task> batch = new ArrayList<>();
+            batch.add(task);
+            batch.add(new Subtask("Подзадача 1", "Описание подзадачи 1", 999));
+            batch.add(null);
+            batch.add(task);
+
+            ImportReport report = taskManager.addAll(batch);
+
+            assertFalse(report.isAccepted());
+            assertEquals(3, report.getRejected().size());
+            assertEquals(0, report.getItems().get(0).getId());
+            assertTrue(taskManager.getAllTasks().isEmpty());
+            assertTrue(taskManager.getAllSubtasks().isEmpty());
+        }
+
+        @Test
+        public void testAddAllAssignsConsecutiveIds() {
+            ImportReport report = taskManager.addAll(List.of(new Task("Задача 1", "Описание"),
+                    new Task("Задача 2", "Описание"), new Task("Задача 3", "Описание")));
+
+            int firstId = report.getItems().get(0).getId();
+            assertEquals(firstId + 1, report.getItems().get(1).getId());
+            assertEquals(firstId + 2, report.getItems().get(2).getId());
+            assertTrue(taskManager.addTask(new Task("Задача 4", "Описание")).getId() > firstId + 2);
+        }
+    }
+
+    @Nested
+    class SnapshotTests { // тесты неизменяемых срезов
+
+        @Test
+        public void testListsAreSharedUntilChange() {
+            taskManager.addTask(new Task("Задача 1", "Описание задачи 1"));
+            List<Task> first = taskManager.getAllTasks();
+
+            assertSame(first, taskManager.getAllTasks());
+            assertThrows(UnsupportedOperationException.class, () -> first.add(new Task("Задача 2", "Описание")));
+
+            taskManager.addTask(new Task("Задача 2", "Описание задачи 2"));
+            assertEquals(1, first.size());
+            assertEquals(2, taskManager.getAllTasks().size());
+        }
+
+        @Test
+        public void testVersionGrowsOnEveryWrite() {
+            long initial = taskManager.getVersion();
+            Epic epic = taskManager.addEpic(new Epic("Эпик 1", "Описание эпика 1"));
+            long afterEpic = taskManager.getVersion();
+            assertTrue(afterEpic > initial);
+
+            taskManager.getEpicById(epic.getId());
+            taskManager.getAllEpics();
+            assertEquals(afterEpic, taskManager.getVersion());
+
+            Subtask subtask = taskManager.addSubtask(new Subtask("Подзадача 1", "Описание", epic.getId()));
+            long afterSubtask = taskManager.getVersion();
+            assertTrue(afterSubtask > afterEpic);
+
+            taskManager.deleteSubtask(subtask.getId());
+            assertTrue(taskManager.getVersion() > afterSubtask);
+        }
+
+        @Test
+        public void testSnapshotIsConsistent() {
+            Epic epic = taskManager.addEpic(new Epic("Эпик 1", "Описание эпика 1"));
+            taskManager.addSubtask(new Subtask("Подзадача 1", "Описание", epic.getId()));
+            TaskSnapshot snapshot = taskManager.getSnapshot();
+
+            taskManager.clearEpics();
+
+            assertEquals(1, snapshot.getEpics().size());
+            assertEquals(1, snapshot.getSubtasks().size());
+            assertTrue(taskManager.getSnapshot().getVersion() > snapshot.getVersion());
+            assertTrue(taskManager.getSnapshot().getEpics().isEmpty());
+        }
+    }
+
+    @Nested
+    class StatusIndexTests { // тесты выборки по статусу
+
+        @Test
+        public void testTasksByStatusFollowUpdates() {
+            Task task1 = taskManager.addTask(new Task("Задача 1", "Описание задачи 1"));
+            Task task2 = taskManager.addTask(new Task("Задача 2", "Описание задачи 2"));
+
+            assertEquals(List.of(task1, task2), taskManager.getTasksByStatus(TaskStatus.NEW, TaskType.TASK));
+
+            task2.setStatus(TaskStatus.DONE);
+            taskManager.updateTask(task2);
+            assertEquals(List.of(task1), taskManager.getTasksByStatus(TaskStatus.NEW, TaskType.TASK));
+            assertEquals(List.of(task2), taskManager.getTasksByStatus(TaskStatus.DONE, TaskType.TASK));
+
+            taskManager.deleteTask(task2.getId());
+            assertTrue(taskManager.getTasksByStatus(TaskStatus.DONE, TaskType.TASK).isEmpty());
+        }
+
+        @Test
+        public void testEpicStatusIsReindexedOnRecalculation() {
+            Epic epic = taskManager.addEpic(new Epic("Эпик 1", "Описание эпика 1"));
+            Subtask subtask = taskManager.addSubtask(new Subtask("Подзадача 1", "Описание", epic.getId()));
+            assertEquals(List.of(epic), taskManager.getTasksByStatus(TaskStatus.IN_PROGRESS, TaskType.EPIC));
+
+            subtask.setStatus(TaskStatus.DONE);
+            taskManager.updateSubtask(subtask);
+            assertEquals(List.of(subtask), taskManager.getTasksByStatus(TaskStatus.DONE, TaskType.SUBTASK));
+            assertEquals(List.of(epic), taskManager.getTasksByStatus(TaskStatus.DONE, TaskType.EPIC));
+            assertTrue(taskManager.getTasksByStatus(TaskStatus.IN_PROGRESS, TaskType.EPIC).isEmpty());
+
+            taskManager.clearSubtasks();
+            assertTrue(taskManager.getTasksByStatus(TaskStatus.DONE, TaskType.SUBTASK).isEmpty());
+            assertEquals(List.of(epic), taskManager.getTasksByStatus(TaskStatus.NEW, TaskType.EPIC));
+        }
+
+        @Test
+        public void testTypesAreKeptApart() {
+            taskManager.addTask(new Task("Задача 1", "Описание задачи 1"));
+            Epic epic = taskManager.addEpic(new Epic("Эпик 1", "Описание эпика 1"));
+
+            assertEquals(List.of(epic), taskManager.getTasksByStatus(TaskStatus.NEW, TaskType.EPIC));
+            assertTrue(taskManager.getTasksByStatus(TaskStatus.NEW, TaskType.SUBTASK).isEmpty());
+            assertThrows(IllegalArgumentException.class, () -> taskManager.getTasksByStatus(null, TaskType.TASK));
+        }
+    }
+
+    @Nested
+    class PaginationTests { // тесты постраничного чтения
+
+        @Test
+        public void testTasksPagesCoverAllTasksOnce() {
+            List<Task> added = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                added.add(taskManager.addTask(new Task("Задача " + i, "Описание")));
+            }
+
+            List<Task> seen = new ArrayList<>();
+            String cursor = null;
+            int pages = 0;
+            do {
+                Page<Task> page = taskManager.getTasksPage(cursor, 3);
+                seen.addAll(page.getItems());
+                cursor = page.getNextCursor();
+                pages++;
+            } while (cursor != null);
+
+            assertEquals(added, seen);
+            assertEquals(3, pages);
+        }
+
+        @Test
+        public void testFullListsFollowPageOrder() {
+            Epic epic = taskManager.addEpic(new Epic("Эпик 1", "Описание эпика 1"));
+            for (int i = 0; i < 40; i++) {
+                Task task = taskManager.addTask(new Task("Задача " + i, "Описание"));
+                taskManager.addSubtask(new Subtask("Подзадача " + i, "Описание", epic.getId()));
+                if (i % 3 == 0) {
+                    taskManager.deleteTask(task.getId());
+                }
+                taskManager.addEpic(new Epic("Эпик " + i, "Описание"));
+            }
+
+            assertEquals(ids(taskManager.getTasksPage(null, 5).getItems()),
+                    ids(taskManager.getAllTasks().subList(0, 5)));
+            assertEquals(ids(taskManager.getTasksPage(null, 100).getItems()), ids(taskManager.getAllTasks()));
+            assertEquals(ids(taskManager.getEpicsPage(null, 100).getItems()), ids(taskManager.getAllEpics()));
+            assertEquals(ids(taskManager.getSubtasksPage(null, 100).getItems()), ids(taskManager.getAllSubtasks()));
+        }
+
+        private List<Integer> ids(List<? extends Task> items) {
+            return items.stream().map(Task::getId).toList();
+        }
+
+        @Test
+        public void testCursorSurvivesInsertsAndDeletes() {
+            Task task1 = taskManager.addTask(new Task("Задача 1", "Описание"));
+            Task task2 = taskManager.addTask(new Task("Задача 2", "Описание"));
+            Task task3 = taskManager.addTask(new Task("Задача 3", "Описание"));
+
+            Page<Task> first = taskManager.getTasksPage(null, 2);
+            assertEquals(List.of(task1, task2), first.getItems());
+
+            taskManager.deleteTask(task2.getId());
+            Task task4 = taskManager.addTask(new Task("Задача 4", "Описание"));
+
+            Page<Task> second = taskManager.getTasksPage(first.getNextCursor(), 2);
+            assertEquals(List.of(task3, task4), second.getItems());
+            assertFalse(second.hasMore());
+        }
+
+        @Test
+        public void testEpicAndSubtaskPages() {
+            Epic epic = taskManager.addEpic(new Epic("Эпик 1", "Описание эпика 1"));
+            Subtask subtask1 = taskManager.addSubtask(new Subtask("Подзадача 1", "Описание", epic.getId()));
+            Subtask subtask2 = taskManager.addSubtask(new Subtask("Подзадача 2", "Описание", epic.getId()));
+
+            assertEquals(List.of(epic), taskManager.getEpicsPage(null, 10).getItems());
+            Page<Subtask> page = taskManager.getSubtasksPage(null, 1);
+            assertEquals(List.of(subtask1), page.getItems());
+            assertEquals(List.of(subtask2), taskManager.getSubtasksPage(page.getNextCursor(), 1).getItems());
+        }
+
+        @Test
+        public void testPrioritizedPages() {
+            LocalDateTime start = LocalDateTime.of(2024, 6, 1, 9, 0);
+            List<Task> expected = new ArrayList<>();
+            for (int i = 4; i >= 0; i--) {
+                Task task = new Task("Задача " + i, "Описание");
+                task.setStartTime(start.plusHours(i));
+                task.setDuration(Duration.ofMinutes(30));
+                expected.add(0, taskManager.addTask(task));
+            }
+            taskManager.addTask(new Task("Без времени", "Описание"));
+
+            Page<Task> first = taskManager.getPrioritizedPage(null, 2);
+            assertEquals(expected.subList(0, 2), first.getItems());
+
+            // Задача, вставленная перед курсором, не сдвигает следующую страницу
+            Task early = new Task("Ранняя", "Описание");
+            early.setStartTime(start.minusHours(1));
+            early.setDuration(Duration.ofMinutes(30));
+            taskManager.addTask(early);
+
+            Page<Task> second = taskManager.getPrioritizedPage(first.getNextCursor(), 2);
+            assertEquals(expected.subList(2, 4), second.getItems());
+            Page<Task> third = taskManager.getPrioritizedPage(second.getNextCursor(), 2);
+            assertEquals(expected.subList(4, 5), third.getItems());
+            assertFalse(third.hasMore());
+        }
+
+        @Test
+        public void testInvalidPageArguments() {
+            assertThrows(IllegalArgumentException.class, () -> taskManager.getTasksPage(null, 0));
+            assertThrows(IllegalArgumentException.class, () -> taskManager.getTasksPage("abc", 10));
+            assertThrows(IllegalArgumentException.class, () -> taskManager.getPrioritizedPage("abc", 10));
+        }
+    }
+
+    @Nested
+    class WindowTests { // тесты выборки по временному окну
+
+        @Test
+        public void testTasksInWindow() {
+            LocalDateTime monday = LocalDateTime.of(2024, 6, 3, 0, 0);
+            Task before = taskManager.addTask(timedTask("До окна", monday.minusHours(2), 60));
+            Task crossing = taskManager.addTask(timedTask("На границе", monday.minusMinutes(30), 60));
+            Epic epic = taskManager.addEpic(new Epic("Эпик 1", "Описание эпика 1"));
+            Subtask inside = new Subtask("Внутри", "Описание", epic.getId());
+            inside.setStartTime(monday.plusDays(1));
+            inside.setDuration(Duration.ofMinutes(90));
+            taskManager.addSubtask(inside);
+            Task point = taskManager.addTask(timedTask("Без длительности", monday.plusDays(2), 0));
+            Task after = taskManager.addTask(timedTask("После окна", monday.plusDays(5), 60));
+            taskManager.addTask(new Task("Без времени", "Описание"));
+
+            List<Task> window = taskManager.getTasksInWindow(monday, monday.plusDays(5));
+
+            assertEquals(List.of(crossing, inside, point), window);
+            assertFalse(window.contains(before));
+            assertFalse(window.contains(after));
+        }
+
+        @Test
+        public void testInvalidWindow() {
+            LocalDateTime now = LocalDateTime.of(2024, 6, 3, 0, 0);
+            assertThrows(IllegalArgumentException.class, () -> taskManager.getTasksInWindow(now, now.minusDays(1)));
+            assertThrows(IllegalArgumentException.class, () -> taskManager.getTasksInWindow(null, now));
+        }
+    }
+
+    @Nested
+    class FreeSlotTests { // тесты поиска свободного времени
+
+        private final LocalDateTime day = LocalDateTime.of(2024, 6, 3, 9, 0);
+
+        @Test
+        public void testNextFreeSlotSkipsBusyIntervals() {
+            taskManager.addTask(timedTask("Задача", day, 60));                 // 09:00–10:00
+            taskManager.addTask(timedTask("Задача", day.plusMinutes(90), 60)); // 10:30–11:30
+
+            assertEquals(new TimeSlot(day.plusMinutes(60), day.plusMinutes(90)),
+                    taskManager.findNextFreeSlot(Duration.ofMinutes(30), day));
+            assertEquals(new TimeSlot(day.plusMinutes(150), day.plusMinutes(195)),
+                    taskManager.findNextFreeSlot(Duration.ofMinutes(45), day.plusMinutes(10)));
+            assertEquals(new TimeSlot(day.minusHours(1), day),
+                    taskManager.findNextFreeSlot(Duration.ofMinutes(60), day.minusHours(1)));
+        }
+
+        @Test
+        public void testFoundSlotCanBeBooked() {
+            taskManager.addTask(timedTask("Задача", day, 60));
+            TimeSlot slot = taskManager.findNextFreeSlot(Duration.ofMinutes(30), day.plusMinutes(15));
+
+            Task task = new Task("Новая задача", "Описание");
+            task.setStartTime(slot.getStart());
+            task.setDuration(slot.getDuration());
+            assertDoesNotThrow(() -> taskManager.addTask(task));
+        }
+
+        @Test
+        public void testFreeSlotsInWindow() {
+            taskManager.addTask(timedTask("Задача", day, 60));                  // 09:00–10:00
+            taskManager.addTask(timedTask("Задача", day.plusMinutes(70), 20));  // 10:10–10:30
+            taskManager.addTask(timedTask("Задача", day.plusMinutes(180), 30)); // 12:00–12:30
+
+            List<TimeSlot> slots = taskManager.findFreeSlots(day.minusMinutes(30), day.plusHours(4),
+                    Duration.ofMinutes(15));
+
+            assertEquals(List.of(
+                    new TimeSlot(day.minusMinutes(30), day),
+                    new TimeSlot(day.plusMinutes(90), day.plusMinutes(180)),
+                    new TimeSlot(day.plusMinutes(210), day.plusHours(4))), slots);
+        }
+
+        @Test
+        public void testInvalidSlotArguments() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> taskManager.findNextFreeSlot(Duration.ofMinutes(-1), day));
+            assertThrows(IllegalArgumentException.class,
+                    () -> taskManager.findFreeSlots(day, day.minusHours(1), Duration.ZERO));
+        }
+    }
+
+    @Nested
+    class SearchTests { // тесты полнотекстового поиска
+
+        @Test
+        public void testSearchIgnoresCaseAndYo() {
+            Task task = taskManager.addTask(new Task("Ёлка в офисе", "Купить ИГРУШКИ и гирлянду"));
+            taskManager.addTask(new Task("Отчёт", "Квартальный отчёт"));
+
+            assertEquals(List.of(task), taskManager.search("елка", 10));
+            assertEquals(List.of(task), taskManager.search("игрушки", 10));
+            assertEquals(List.of(task), taskManager.search("ГИРЛЯНДУ!", 10));
+            assertTrue(taskManager.search("ёлки", 10).isEmpty(), "Слова сравниваются целиком");
+        }
+
+        @Test
+        public void testSearchCoversAllTypesAndRanksNameHigher() {
+            Epic epic = taskManager.addEpic(new Epic("Переезд", "Сменить офис"));
+            Subtask subtask = taskManager.addSubtask(new Subtask("Упаковать офис", "Коробки", epic.getId()));
+            Task task = taskManager.addTask(new Task("Уборка", "Убрать офис после переезда"));
+
+            List<Task> found = taskManager.search("офис", 10);
+            assertEquals(3, found.size());
+            assertEquals(subtask, found.get(0), "Слово в названии весит больше, чем в описании");
+            assertEquals(List.of(epic), taskManager.search("переезд", 1), "Лимит оставляет самые релевантные");
+            assertEquals(task, taskManager.search("уборка офис", 10).get(0),
+                    "Задача со всеми словами запроса идёт первой");
+        }
+
+        @Test
+        public void testSearchFollowsUpdatesAndDeletes() {
+            Task task = taskManager.addTask(new Task("Позвонить клиенту", "Обсудить договор"));
+            task.setName("Написать клиенту");
+            taskManager.updateTask(task);
+
+            assertTrue(taskManager.search("позвонить", 10).isEmpty());
+            assertEquals(List.of(task), taskManager.search("написать", 10));
+
+            taskManager.deleteTask(task.getId());
+            assertTrue(taskManager.search("клиенту", 10).isEmpty());
+
+            Epic epic = taskManager.addEpic(new Epic("Релиз", "Выпуск версии"));
+            taskManager.addSubtask(new Subtask("Тесты релиза", "Прогнать тесты", epic.getId()));
+            taskManager.clearEpics();
+            assertTrue(taskManager.search("релиз", 10).isEmpty());
+        }
+
+        @Test
+        public void testInvalidSearchArguments() {
+            assertThrows(IllegalArgumentException.class, () -> taskManager.search(null, 10));
+            assertThrows(IllegalArgumentException.class, () -> taskManager.search("офис", 0));
+            assertTrue(taskManager.search("  ,. ", 10).isEmpty());
+        }
+    }
+
+    @Nested
+    class DependencyTests { // тесты графа зависимостей
+
+        @Test
+        public void testReadyTasksFollowStatusChanges() {
+            Task design = taskManager.addTask(new Task("Макет", "Нарисовать макет"));
+            Task layout = taskManager.addTask(new Task("Вёрстка", "Сверстать страницу"));
+            Task release = taskManager.addTask(new Task("Релиз", "Выложить страницу"));
+            Epic epic = taskManager.addEpic(new Epic("Тексты", "Подготовить тексты"));
+            Subtask copy = taskManager.addSubtask(new Subtask("Заголовки", "Написать заголовки", epic.getId()));
+            taskManager.addDependency(design.getId(), layout.getId());
+            taskManager.addDependency(layout.getId(), release.getId());
+            taskManager.addDependency(design.getId(), copy.getId());
+
+            assertEquals(List.of(design), taskManager.getReadyTasks());
+
+            design.setStatus(TaskStatus.DONE);
+            taskManager.updateTask(design);
+            assertEquals(List.of(layout, copy), taskManager.getReadyTasks(), "Выполненная задача снимает блокировку");
+
+            layout.setStatus(TaskStatus.DONE);
+            taskManager.updateTask(layout);
+            design.setStatus(TaskStatus.IN_PROGRESS);
+            taskManager.updateTask(design);
+            assertEquals(List.of(design, release), taskManager.getReadyTasks(),
+                    "Возврат в работу снова блокирует зависимые");
+            assertEquals(List.of(design), taskManager.getBlockers(copy.getId()));
+            assertEquals(List.of(layout), taskManager.getBlockers(release.getId()));
+        }
+
+        @Test
+        public void testCyclesAndInvalidDependenciesAreRejected() {
+            Task first = taskManager.addTask(new Task("Первая", "Описание"));
+            Task second = taskManager.addTask(new Task("Вторая", "Описание"));
+            Task third = taskManager.addTask(new Task("Третья", "Описание"));
+            Epic epic = taskManager.addEpic(new Epic("Эпик", "Описание"));
+            taskManager.addDependency(second.getId(), third.getId());
+            taskManager.addDependency(first.getId(), second.getId());
+            taskManager.addDependency(first.getId(), second.getId()); // Повтор ничего не меняет
+
+            assertThrows(IllegalArgumentException.class,
+                    () -> taskManager.addDependency(third.getId(), first.getId()));
+            assertThrows(IllegalArgumentException.class,
+                    () -> taskManager.addDependency(first.getId(), first.getId()));
+            assertThrows(IllegalArgumentException.class,
+                    () -> taskManager.addDependency(epic.getId(), first.getId()), "Эпики в зависимостях не участвуют");
+            assertThrows(IllegalArgumentException.class, () -> taskManager.addDependency(first.getId(), 999));
+            assertThrows(IllegalArgumentException.class, () -> taskManager.getBlockers(999));
+
+            assertEquals(List.of(first), taskManager.getBlockers(second.getId()));
+            assertEquals(List.of(first), taskManager.getReadyTasks(), "Отклонённое ребро ничего не добавило");
+
+            taskManager.removeDependency(second.getId(), third.getId());
+            taskManager.addDependency(third.getId(), first.getId());
+            assertEquals(List.of(third), taskManager.getReadyTasks());
+        }
+
+        @Test
+        public void testDeletingTaskReleasesDependents() {
+            Task blocker = taskManager.addTask(new Task("Блокирующая", "Описание"));
+            Task blocked = taskManager.addTask(new Task("Заблокированная", "Описание"));
+            Epic epic = taskManager.addEpic(new Epic("Эпик", "Описание"));
+            Subtask subtask = taskManager.addSubtask(new Subtask("Подзадача", "Описание", epic.getId()));
+            taskManager.addDependency(blocker.getId(), blocked.getId());
+            taskManager.addDependency(subtask.getId(), blocker.getId());
+            assertEquals(List.of(subtask), taskManager.getReadyTasks());
+
+            taskManager.clearSubtasks();
+            assertEquals(List.of(blocker), taskManager.getReadyTasks());
+            assertTrue(taskManager.getBlockers(blocker.getId()).isEmpty());
+
+            taskManager.deleteTask(blocker.getId());
+            assertEquals(List.of(blocked), taskManager.getReadyTasks());
+            assertTrue(taskManager.getBlockers(blocked.getId()).isEmpty());
+
+            taskManager.clearTasks();
+            assertTrue(taskManager.getReadyTasks().isEmpty());
+        }
+
+        @Test
+        public void testLongChainReordersWithoutFalseCycles() {
+            List<Task> chain = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                chain.add(taskManager.addTask(new Task("Задача " + i, "Описание")));
+            }
+            // Рёбра добавляются против порядка создания, каждое требует перестановки
+            for (int i = chain.size() - 1; i > 0; i--) {
+                taskManager.addDependency(chain.get(i).getId(), chain.get(i - 1).getId());
+            }
+            assertEquals(List.of(chain.get(chain.size() - 1)), taskManager.getReadyTasks());
+            assertThrows(IllegalArgumentException.class,
+                    () -> taskManager.addDependency(chain.get(0).getId(), chain.get(chain.size() - 1).getId()));
+            taskManager.addDependency(chain.get(chain.size() - 1).getId(), chain.get(0).getId());
+        }
+    }
+
+    @Nested
+    class EventTests { // тесты событий изменений
+
+        @Test
+        public void testListenerSeesMutationsInOrder() {
+            List<TaskEvent> received = new ArrayList<>();
+            taskManager.addListener(received::add);
+
+            Task task = taskManager.addTask(new Task("Задача 1", "Описание задачи 1"));
+            task.setStatus(TaskStatus.IN_PROGRESS);
+            taskManager.updateTask(task);
+            Epic epic = taskManager.addEpic(new Epic("Эпик 1", "Описание эпика 1"));
+            Subtask subtask = taskManager.addSubtask(new Subtask("Подзадача 1", "Описание", epic.getId()));
+            taskManager.addDependency(task.getId(), subtask.getId());
+            taskManager.deleteTask(task.getId());
+            taskManager.clearTasks();
+
+            assertEquals(List.of(TaskEvent.Kind.ADDED, TaskEvent.Kind.UPDATED, TaskEvent.Kind.ADDED,
+                            TaskEvent.Kind.ADDED, TaskEvent.Kind.EPIC_ROLLED_UP, TaskEvent.Kind.DEPENDENCY_ADDED,
+                            TaskEvent.Kind.DELETED, TaskEvent.Kind.CLEARED),
+                    received.stream().map(TaskEvent::getKind).toList());
+            assertEquals(List.of(task.getId(), task.getId(), epic.getId(), subtask.getId(), epic.getId(),
+                            subtask.getId(), task.getId(), 0),
+                    received.stream().map(TaskEvent::getId).toList());
+            assertEquals(TaskType.SUBTASK, received.get(3).getType());
+            assertEquals(task.getId(), received.get(5).getBlockerId());
+            assertEquals("Задача 1", received.get(6).getTask().getName(), "Удалённая сущность приходит в событии");
+            assertEquals(TaskType.TASK, received.get(7).getType());
+            assertEquals(taskManager.getVersion(), received.get(7).getVersion());
+            for (int i = 1; i < received.size(); i++) {
+                assertTrue(received.get(i - 1).getVersion() <= received.get(i).getVersion());
+            }
+        }
+
+        @Test
+        public void testBatchListenerReceivesAllEventsInOrder() throws InterruptedException {
+            List<TaskEvent> received = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch delivered = new CountDownLatch(200);
+            taskManager.addBatchListener(batch -> {
+                received.addAll(batch);
+                batch.forEach(event -> delivered.countDown());
+            });
+
+            List<Integer> ids = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                ids.add(taskManager.addTask(new Task("Задача " + i, "Описание")).getId());
+            }
+            assertTrue(delivered.await(5, TimeUnit.SECONDS), "Все события доставлены");
+            assertEquals(ids, received.stream().map(TaskEvent::getId).toList());
+        }
+
+        @Test
+        public void testRemovedListenerAndFailingListener() {
+            List<TaskEvent> received = new ArrayList<>();
+            TaskEvent.Listener listener = received::add;
+            taskManager.addListener(listener);
+            taskManager.addTask(new Task("Задача 1", "Описание задачи 1"));
+            taskManager.removeListener(listener);
+            taskManager.addTask(new Task("Задача 2", "Описание задачи 2"));
+            assertEquals(1, received.size());
+
+            taskManager.addListener(event -> {
+                throw new RuntimeException("Сбой слушателя");
+            });
+            assertThrows(RuntimeException.class,
+                    () -> taskManager.addTask(new Task("Задача 3", "Описание задачи 3")));
+            assertEquals(3, taskManager.getAllTasks().size(), "Изменение внесено до вызова слушателя");
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,64 @@
+package manager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import task.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Проверка пересечения на заполненном индексе. Запускать с -prof gc: в gc.alloc.rate.norm
+// видно, что проверка не создаёт объектов, а размер кучи после setUp даёт байты на задачу
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TimeIndexBenchmark {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private final TimeIndex index = new TimeIndex();
+    private Task[] probes;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        // Задачи по 30 минут через каждый час: половина проверок попадает в занятое время
+        for (int i = 0; i < size; i++) {
+            Task task = new Task("Задача " + i, "Описание");
+            task.setId(i + 1);
+            task.setStartTime(BASE.plusHours(i));
+            task.setDuration(Duration.ofMinutes(30));
+            index.put(task);
+        }
+        Random random = new Random(42);
+        probes = new Task[1 << 12];
+        for (int i = 0; i < probes.length; i++) {
+            Task probe = new Task("Проверка", "Описание");
+            probe.setStartTime(BASE.plusMinutes(random.nextInt(size * 60)));
+            probe.setDuration(Duration.ofMinutes(20));
+            probes[i] = probe;
+        }
+    }
+
+    @Benchmark
+    public boolean overlaps() {
+        Task probe = probes[cursor++ & (probes.length - 1)];
+        return index.overlaps(probe.getStartNanos(), probe.getEndNanos(), probe.getId());
+    }
+}
@@ -91,4 +91,41 @@ public class TimeSlotManagerTest {
         Task addedTask2 = taskManager.addTask(task2);
         assertEquals(task2.getId(), addedTask2.getId(), "Задача должна быть успешно добавлена после удаления перекрывающейся задачи.");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testUpdateTaskMovesTimeSlot() {
+        Task task1 = new Task("Задача 1", "Описание задачи 1");
+        task1.setStartTime(LocalDateTime.of(2023, 10, 10, 10, 0));
+        task1.setDuration(Duration.ofMinutes(30));
+        taskManager.addTask(task1);
+
+        // Переносим задачу 1 на другое время — прежний интервал должен освободиться
+        task1.setStartTime(LocalDateTime.of(2023, 10, 10, 12, 0));
+        taskManager.updateTask(task1);
+
+        Task task2 = new Task("Задача 2", "Описание задачи 2");
+        task2.setStartTime(LocalDateTime.of(2023, 10, 10, 10, 0));
+        task2.setDuration(Duration.ofMinutes(30));
+        assertDoesNotThrow(() -> taskManager.addTask(task2));
+
+        Task task3 = new Task("Задача 3", "Описание задачи 3");
+        task3.setStartTime(LocalDateTime.of(2023, 10, 10, 12, 15));
+        task3.setDuration(Duration.ofMinutes(30));
+        assertThrows(IllegalArgumentException.class, () -> taskManager.addTask(task3));
+    }
+
+    @Test
+    public void testClearTasksFreesTimeSlots() {
+        Task task1 = new Task("Задача 1", "Описание задачи 1");
+        task1.setStartTime(LocalDateTime.of(2023, 10, 10, 10, 0));
+        task1.setDuration(Duration.ofMinutes(30));
+        taskManager.addTask(task1);
+
+        taskManager.clearTasks();
+
+        Task task2 = new Task("Задача 2", "Описание задачи 2");
+        task2.setStartTime(LocalDateTime.of(2023, 10, 10, 10, 0));
+        task2.setDuration(Duration.ofMinutes(30));
+        assertDoesNotThrow(() -> taskManager.addTask(task2));
+    }
+}
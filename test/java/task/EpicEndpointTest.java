@@ -106,6 +106,28 @@ class EpicEndpointTest {
         assertEquals(2, epics.size());
     }
 
+    @Test
+    void testGetEpicsFilteredByStatus() throws IOException, InterruptedException {
+        Epic epic1 = manager.addEpic(new Epic("Эпик 1", "Описание эпика 1"));
+        Epic epic2 = manager.addEpic(new Epic("Эпик 2", "Описание эпика 2"));
+        Subtask subtask = new Subtask("Подзадача 1", "Описание подзадачи 1", epic2.getId());
+        subtask.setStatus(TaskStatus.DONE);
+        manager.addSubtask(subtask);
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/tasks/epic?status=DONE"))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        List<Epic> epics = gson.fromJson(response.body(), new TypeToken<List<Epic>>() {
+        }.getType());
+        assertEquals(1, epics.size());
+        assertEquals(epic2.getId(), epics.getFirst().getId());
+        assertNotEquals(epic1.getId(), epics.getFirst().getId());
+    }
+
     @Test
     void testDeleteEpic() throws IOException, InterruptedException {
         // Создаем и добавляем тестовый эпик
@@ -4,6 +4,8 @@ import manager.InMemoryTaskManager;
 import manager.TaskManager;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -41,6 +43,19 @@ class EpicTest {
         assertTrue(subtasks.contains(subtask2));
     }
 
+    @Test
+    void getSubtasksReturnsSameViewUntilChange() {
+        Epic epic = taskManager.addEpic(new Epic("Эпик 1", "Описание эпика 1"));
+        taskManager.addSubtask(new Subtask("Подзадача 1", "Описание подзадачи 1", epic.getId()));
+        List<Subtask> view = epic.getSubtasks();
+        assertSame(view, epic.getSubtasks());
+        assertThrows(UnsupportedOperationException.class, view::clear);
+
+        taskManager.addSubtask(new Subtask("Подзадача 2", "Описание подзадачи 2", epic.getId()));
+        assertEquals(1, view.size());
+        assertEquals(2, epic.getSubtasks().size());
+    }
+
     @Test
     void updateSubtask() {
         Epic epic = taskManager.addEpic(new Epic("Эпик 1", "Описание эпика 1"));
@@ -50,4 +65,52 @@ class EpicTest {
         epic.updateSubtask(subtask1);
         assertEquals(TaskStatus.DONE, epic.getSubtasks().getFirst().getStatus());
     }
-}
\ No newline at end of file
+
+    @Test
+    void statusFollowsSubtaskCounters() {
+        Epic epic = taskManager.addEpic(new Epic("Эпик 1", "Описание эпика 1"));
+        assertEquals(TaskStatus.NEW, epic.getStatus());
+
+        Subtask subtask1 = taskManager.addSubtask(new Subtask("Подзадача 1", "Описание подзадачи 1", epic.getId()));
+        Subtask subtask2 = taskManager.addSubtask(new Subtask("Подзадача 2", "Описание подзадачи 2", epic.getId()));
+
+        subtask1.setStatus(TaskStatus.DONE);
+        taskManager.updateSubtask(subtask1);
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus());
+        assertEquals(1, epic.getSubtaskCount(TaskStatus.DONE));
+
+        subtask2.setStatus(TaskStatus.DONE);
+        taskManager.updateSubtask(subtask2);
+        assertEquals(TaskStatus.DONE, epic.getStatus());
+
+        taskManager.deleteSubtask(subtask2.getId());
+        assertEquals(1, epic.getSubtasks().size());
+        assertEquals(TaskStatus.DONE, epic.getStatus());
+    }
+
+    @Test
+    void timeRollupFollowsSubtasks() {
+        Epic epic = taskManager.addEpic(new Epic("Эпик 1", "Описание эпика 1"));
+        Subtask subtask1 = new Subtask("Подзадача 1", "Описание подзадачи 1", epic.getId());
+        subtask1.setStartTime(LocalDateTime.of(2024, 5, 1, 9, 0));
+        subtask1.setDuration(Duration.ofMinutes(30));
+        taskManager.addSubtask(subtask1);
+        Subtask subtask2 = new Subtask("Подзадача 2", "Описание подзадачи 2", epic.getId());
+        subtask2.setStartTime(LocalDateTime.of(2024, 5, 1, 14, 0));
+        subtask2.setDuration(Duration.ofMinutes(60));
+        taskManager.addSubtask(subtask2);
+
+        assertEquals(LocalDateTime.of(2024, 5, 1, 9, 0), epic.getStartTime());
+        assertEquals(LocalDateTime.of(2024, 5, 1, 15, 0), epic.getEndTime());
+        assertEquals(Duration.ofMinutes(90), epic.getDuration());
+
+        subtask2.setStartTime(LocalDateTime.of(2024, 5, 1, 8, 0));
+        taskManager.updateSubtask(subtask2);
+        assertEquals(LocalDateTime.of(2024, 5, 1, 8, 0), epic.getStartTime());
+        assertEquals(LocalDateTime.of(2024, 5, 1, 9, 30), epic.getEndTime());
+
+        taskManager.deleteSubtask(subtask1.getId());
+        assertEquals(Duration.ofMinutes(60), epic.getDuration());
+        assertEquals(LocalDateTime.of(2024, 5, 1, 9, 0), epic.getEndTime());
+    }
+}
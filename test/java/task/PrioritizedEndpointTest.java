@@ -17,6 +17,7 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -92,6 +93,74 @@ class PrioritizedEndpointTest {
         assertTrue(tasks.isEmpty());
     }
 
+    @Test
+    void testPrioritizedTasksPages() throws IOException, InterruptedException {
+        LocalDateTime start = LocalDateTime.of(2024, 6, 1, 9, 0);
+        for (int i = 0; i < 5; i++) {
+            Task task = new Task("Задача " + i, "Описание задачи " + i);
+            task.setStartTime(start.plusHours(i));
+            task.setDuration(Duration.ofMinutes(30));
+            manager.addTask(task);
+        }
+
+        List<Task> seen = new ArrayList<>();
+        String query = "?limit=2";
+        int pages = 0;
+        while (query != null) {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(BASE_URL + "/tasks/prioritized" + query))
+                    .GET()
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+
+            List<Task> page = gson.fromJson(response.body(), new TypeToken<List<Task>>() {
+            }.getType());
+            assertTrue(page.size() <= 2);
+            seen.addAll(page);
+            pages++;
+            query = response.headers().firstValue("X-Next-Cursor")
+                    .map(cursor -> "?limit=2&after=" + cursor)
+                    .orElse(null);
+        }
+
+        assertEquals(3, pages);
+        assertEquals(5, seen.size());
+        for (int i = 0; i < seen.size(); i++) {
+            assertEquals(start.plusHours(i), seen.get(i).getStartTime());
+        }
+    }
+
+    @Test
+    void testPrioritizedTasksInWindow() throws IOException, InterruptedException {
+        LocalDateTime start = LocalDateTime.of(2024, 6, 3, 9, 0);
+        for (int i = 0; i < 4; i++) {
+            Task task = new Task("Задача " + i, "Описание задачи " + i);
+            task.setStartTime(start.plusDays(i));
+            task.setDuration(Duration.ofMinutes(60));
+            manager.addTask(task);
+        }
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/tasks/prioritized?from=2024-06-04T00:00&to=2024-06-06T00:00"))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        List<Task> tasks = gson.fromJson(response.body(), new TypeToken<List<Task>>() {
+        }.getType());
+        assertEquals(2, tasks.size());
+        assertEquals(start.plusDays(1), tasks.get(0).getStartTime());
+        assertEquals(start.plusDays(2), tasks.get(1).getStartTime());
+
+        HttpRequest missingEnd = HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/tasks/prioritized?from=2024-06-04T00:00"))
+                .GET()
+                .build();
+        assertEquals(400, client.send(missingEnd, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
     @Test
     void testPrioritizedTasksOrder() throws IOException, InterruptedException {
         // Создаем задачи с разным временем начала
@@ -0,0 +1,121 @@
+package task;
+
+import com.google.gson.*;
+import com.google.gson.reflect.TypeToken;
+import manager.HttpTaskServer;
+import manager.Managers;
+import manager.TaskManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchEndpointTest {
+    private static final String BASE_URL = "http://localhost:8080";
+    private HttpTaskServer server;
+    private TaskManager manager;
+    private HttpClient client;
+
+    // Адаптер для Duration
+    private static class DurationAdapter implements JsonSerializer<Duration>, JsonDeserializer<Duration> {
+        @Override
+        public JsonElement serialize(Duration duration, Type type, JsonSerializationContext context) {
+            return new JsonPrimitive(duration.toMinutes());
+        }
+
+        @Override
+        public Duration deserialize(JsonElement json, Type type, JsonDeserializationContext context)
+                throws JsonParseException {
+            return Duration.ofMinutes(json.getAsLong());
+        }
+    }
+
+    // Адаптер для LocalDateTime
+    private static class LocalDateTimeAdapter implements JsonSerializer<LocalDateTime>, JsonDeserializer<LocalDateTime> {
+        @Override
+        public JsonElement serialize(LocalDateTime dateTime, Type type, JsonSerializationContext context) {
+            return new JsonPrimitive(dateTime.toString());
+        }
+
+        @Override
+        public LocalDateTime deserialize(JsonElement json, Type type, JsonDeserializationContext context)
+                throws JsonParseException {
+            return LocalDateTime.parse(json.getAsString());
+        }
+    }
+
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(Duration.class, new DurationAdapter())
+            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+            .create();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        manager = Managers.getDefault();
+        server = new HttpTaskServer(manager);
+        client = HttpClient.newHttpClient();
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + path))
+                .GET()
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void testSearchByCyrillicWord() throws IOException, InterruptedException {
+        Task task = manager.addTask(new Task("Подготовить отчёт", "Квартальный отчёт для бухгалтерии"));
+        manager.addTask(new Task("Задача 2", "Описание задачи 2"));
+
+        HttpResponse<String> response = get("/tasks/search?q="
+                + URLEncoder.encode("ОТЧЁТ", StandardCharsets.UTF_8));
+
+        assertEquals(200, response.statusCode());
+        List<Task> found = gson.fromJson(response.body(), new TypeToken<List<Task>>() {
+        }.getType());
+        assertEquals(1, found.size());
+        assertEquals(task.getId(), found.get(0).getId());
+    }
+
+    @Test
+    void testSearchLimit() throws IOException, InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            manager.addTask(new Task("Задача " + i, "Описание"));
+        }
+
+        HttpResponse<String> response = get("/tasks/search?q="
+                + URLEncoder.encode("описание", StandardCharsets.UTF_8) + "&limit=2");
+
+        assertEquals(200, response.statusCode());
+        List<Task> found = gson.fromJson(response.body(), new TypeToken<List<Task>>() {
+        }.getType());
+        assertEquals(2, found.size());
+    }
+
+    @Test
+    void testMissingQuery() throws IOException, InterruptedException {
+        assertEquals(400, get("/tasks/search").statusCode());
+        assertEquals(400, get("/tasks/search?q=test&limit=0").statusCode());
+    }
+}
@@ -0,0 +1,127 @@
+package task;
+
+import com.google.gson.*;
+import com.google.gson.reflect.TypeToken;
+import manager.HttpTaskServer;
+import manager.Managers;
+import manager.TaskManager;
+import manager.TimeSlot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlotsEndpointTest {
+    private static final String BASE_URL = "http://localhost:8080";
+    private HttpTaskServer server;
+    private TaskManager manager;
+    private HttpClient client;
+
+    // Адаптер для Duration
+    private static class DurationAdapter implements JsonSerializer<Duration>, JsonDeserializer<Duration> {
+        @Override
+        public JsonElement serialize(Duration duration, Type type, JsonSerializationContext context) {
+            return new JsonPrimitive(duration.toMinutes());
+        }
+
+        @Override
+        public Duration deserialize(JsonElement json, Type type, JsonDeserializationContext context)
+                throws JsonParseException {
+            return Duration.ofMinutes(json.getAsLong());
+        }
+    }
+
+    // Адаптер для LocalDateTime
+    private static class LocalDateTimeAdapter implements JsonSerializer<LocalDateTime>, JsonDeserializer<LocalDateTime> {
+        @Override
+        public JsonElement serialize(LocalDateTime dateTime, Type type, JsonSerializationContext context) {
+            return new JsonPrimitive(dateTime.toString());
+        }
+
+        @Override
+        public LocalDateTime deserialize(JsonElement json, Type type, JsonDeserializationContext context)
+                throws JsonParseException {
+            return LocalDateTime.parse(json.getAsString());
+        }
+    }
+
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(Duration.class, new DurationAdapter())
+            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+            .create();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        manager = Managers.getDefault();
+        server = new HttpTaskServer(manager);
+        client = HttpClient.newHttpClient();
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void testNextFreeSlot() throws IOException, InterruptedException {
+        Task task = new Task("Задача 1", "Описание задачи 1");
+        task.setStartTime(LocalDateTime.of(2024, 6, 3, 9, 0));
+        task.setDuration(Duration.ofMinutes(60));
+        manager.addTask(task);
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/tasks/slots?duration=30&notBefore=2024-06-03T09:15"))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        TimeSlot slot = gson.fromJson(response.body(), TimeSlot.class);
+        assertEquals(LocalDateTime.of(2024, 6, 3, 10, 0), slot.getStart());
+        assertEquals(LocalDateTime.of(2024, 6, 3, 10, 30), slot.getEnd());
+    }
+
+    @Test
+    void testFreeSlotsInWindow() throws IOException, InterruptedException {
+        Task task = new Task("Задача 1", "Описание задачи 1");
+        task.setStartTime(LocalDateTime.of(2024, 6, 3, 10, 0));
+        task.setDuration(Duration.ofMinutes(60));
+        manager.addTask(task);
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/tasks/slots?from=2024-06-03T09:00&to=2024-06-03T12:00&minDuration=30"))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        List<TimeSlot> slots = gson.fromJson(response.body(), new TypeToken<List<TimeSlot>>() {
+        }.getType());
+        assertEquals(List.of(
+                new TimeSlot(LocalDateTime.of(2024, 6, 3, 9, 0), LocalDateTime.of(2024, 6, 3, 10, 0)),
+                new TimeSlot(LocalDateTime.of(2024, 6, 3, 11, 0), LocalDateTime.of(2024, 6, 3, 12, 0))), slots);
+    }
+
+    @Test
+    void testMissingParameters() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/tasks/slots"))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(400, response.statusCode());
+    }
+}
@@ -85,6 +85,58 @@ class TaskEndpointTest {
         kvServer.stop();
     }
 
+    @Test
+    void testGetTasksFilteredByStatus() throws IOException, InterruptedException {
+        Task task1 = new Task("Задача 1", "Описание задачи 1");
+        Task task2 = new Task("Задача 2", "Описание задачи 2");
+        task2.setStatus(TaskStatus.DONE);
+        manager.addTask(task1);
+        manager.addTask(task2);
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/tasks/task?status=done"))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        List<Task> tasks = gson.fromJson(response.body(), new TypeToken<List<Task>>() {
+        }.getType());
+        assertEquals(1, tasks.size());
+        assertEquals(task2.getId(), tasks.getFirst().getId());
+
+        HttpRequest invalid = HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/tasks/task?status=unknown"))
+                .GET()
+                .build();
+        assertEquals(400, client.send(invalid, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    @Test
+    void testGetTasksPage() throws IOException, InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            manager.addTask(new Task("Задача " + i, "Описание задачи " + i));
+        }
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/tasks/task?limit=2"))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        List<Task> tasks = gson.fromJson(response.body(), new TypeToken<List<Task>>() {
+        }.getType());
+        assertEquals(2, tasks.size());
+        assertEquals(String.valueOf(tasks.get(1).getId()), response.headers().firstValue("X-Next-Cursor").orElseThrow());
+
+        HttpRequest invalid = HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/tasks/task?limit=-1"))
+                .GET()
+                .build();
+        assertEquals(400, client.send(invalid, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
     @Test
     void testGetAllTasks() throws IOException, InterruptedException {
         // Создаем и добавляем тестовые задачи через менеджер
@@ -195,6 +247,29 @@ class TaskEndpointTest {
         assertNotNull(createdTask.getId(), "Созданная задача должна иметь ID");
     }
 
+    @Test
+    void testCreateTaskOutsideSupportedTimeRange() throws IOException, InterruptedException {
+        Task late = new Task("Test Task", "Task Description");
+        late.setStartTime(LocalDateTime.of(2300, 1, 1, 10, 0));
+        late.setDuration(Duration.ofMinutes(30));
+        Task endsLate = new Task("Test Task", "Task Description");
+        endsLate.setStartTime(LocalDateTime.of(2262, 4, 11, 23, 0)); // Начало в диапазоне, окончание — нет
+        endsLate.setDuration(Duration.ofMinutes(120));
+
+        for (Task task : List.of(late, endsLate)) {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(BASE_URL + "/tasks/task"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(task)))
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(400, response.statusCode(), "Время вне диапазона — ошибка запроса");
+            assertTrue(response.body().contains("2262-04-11"), "Ответ называет допустимый диапазон");
+        }
+        assertTrue(manager.getAllTasks().isEmpty(), "Задачи не добавлены");
+    }
+
     @Test
     void testUpdateTask() throws IOException, InterruptedException {
         // Создаем задачу через менеджер
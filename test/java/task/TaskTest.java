@@ -6,6 +6,7 @@ import manager.Managers;
 import manager.TaskManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import util.EpochNanos;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
@@ -50,4 +51,19 @@ class TaskTest {
         assertEquals(Duration.ofMinutes(75), epic.getDuration());
         assertEquals(LocalDateTime.of(2023, 10, 10, 10, 0), epic.getStartTime());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testTimeNanosMatchLocalDateTime() {
+        Task task = new Task("Тестовое задание", "Описание теста");
+        task.setStartTime(LocalDateTime.of(2023, 10, 10, 10, 0, 15, 500));
+        task.setDuration(null);
+        assertEquals(Task.NO_END, task.getEndNanos());
+
+        task.setDuration(Duration.ofMinutes(90));
+        assertEquals(task.getStartTime(), EpochNanos.toLocalDateTime(task.getStartNanos()));
+        assertEquals(task.getEndTime(), EpochNanos.toLocalDateTime(task.getEndNanos()));
+
+        task.setStartTime(LocalDateTime.of(3000, 1, 1, 0, 0));
+        assertThrows(IllegalArgumentException.class, task::getStartNanos);
+    }
+}
@@ -0,0 +1,106 @@
+package util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import task.Task;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Сравнение HashMap<Integer, Task> и IntObjectHashMap<Task> на типичных для менеджера операциях:
+// поиск по id, вставка серии задач и удаление с повторной вставкой
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class IntObjectHashMapBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private final Map<Integer, Task> boxed = new HashMap<>();
+    private final IntObjectHashMap<Task> primitive = new IntObjectHashMap<>();
+    private Task[] taskArray;
+    private int[] lookups;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        taskArray = new Task[size];
+        for (int i = 0; i < size; i++) {
+            Task task = new Task("Задача " + i, "Описание");
+            task.setId(i + 1);
+            taskArray[i] = task;
+            boxed.put(task.getId(), task);
+            primitive.put(task.getId(), task);
+        }
+        Random random = new Random(42);
+        lookups = new int[1 << 16];
+        for (int i = 0; i < lookups.length; i++) {
+            lookups[i] = random.nextInt(size) + 1;
+        }
+    }
+
+    private int nextId() {
+        return lookups[cursor++ & (lookups.length - 1)];
+    }
+
+    @Benchmark
+    public Task getBoxed() {
+        return boxed.get(nextId());
+    }
+
+    @Benchmark
+    public Task getPrimitive() {
+        return primitive.get(nextId());
+    }
+
+    @Benchmark
+    public Task removeAndPutBoxed() {
+        int id = nextId();
+        Task task = boxed.remove(id);
+        boxed.put(id, task);
+        return task;
+    }
+
+    @Benchmark
+    public Task removeAndPutPrimitive() {
+        int id = nextId();
+        Task task = primitive.remove(id);
+        primitive.put(id, task);
+        return task;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void fillBoxed(Blackhole blackhole) {
+        Map<Integer, Task> map = new HashMap<>();
+        for (Task task : taskArray) {
+            map.put(task.getId(), task);
+        }
+        blackhole.consume(map);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void fillPrimitive(Blackhole blackhole) {
+        IntObjectHashMap<Task> map = new IntObjectHashMap<>();
+        for (Task task : taskArray) {
+            map.put(task.getId(), task);
+        }
+        blackhole.consume(map);
+    }
+}
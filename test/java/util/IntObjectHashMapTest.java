@@ -0,0 +1,85 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntObjectHashMapTest {
+
+    @Test
+    void testPutGetRemove() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+        assertNull(map.put(1, "один"));
+        assertEquals("один", map.put(1, "первый"));
+        map.put(0, "ноль");
+        map.put(-5, "минус пять");
+
+        assertEquals(3, map.size());
+        assertEquals("первый", map.get(1));
+        assertEquals("ноль", map.get(0));
+        assertTrue(map.containsKey(-5));
+        assertEquals("минус пять", map.remove(-5));
+        assertNull(map.get(-5));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void testNullValueIsRejected() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+        assertThrows(IllegalArgumentException.class, () -> map.put(1, null));
+    }
+
+    @Test
+    void testMatchesHashMapUnderRandomOperations() {
+        IntObjectHashMap<Integer> map = new IntObjectHashMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+    }
+
+    @Test
+    void testIntHashSet() {
+        IntHashSet set = new IntHashSet();
+        assertTrue(set.add(0));
+        assertTrue(set.add(42));
+        assertFalse(set.add(42));
+        assertTrue(set.contains(0));
+        assertTrue(set.remove(0));
+        assertFalse(set.contains(0));
+        assertArrayEquals(new int[]{42}, set.toArray());
+    }
+
+    @Test
+    void testIntIntHashMapMatchesHashMap() {
+        IntIntHashMap map = new IntIntHashMap();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(2_000) - 100; // Включая 0 и отрицательные ключи
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key) != null, map.remove(key));
+            } else {
+                expected.put(key, i);
+                map.put(key, i);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key, -1)));
+        Map<Integer, Integer> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(expected, visited);
+    }
+}